@@ -11,6 +11,11 @@ import java.util.Random;
 public class Main {
     // Main method: launches the login UI on the Event Dispatch Thread
     public static void main(String[] args) {
+        Data_Watcher.start();   // Picks up data and report files changed by other instances
+        // Run with -Dowsb.lockReport=true to print how long writers waited for each table's lock on exit
+        if (Boolean.getBoolean("owsb.lockReport")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(Lock_Manager.report())));
+        }
         SwingUtilities.invokeLater(Main::createLoginUI);
     }
 
@@ -401,7 +406,7 @@ public class Main {
             try (BufferedReader reader = new BufferedReader(new FileReader("data/users_data.txt"))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
+                    String[] parts = Csv_Codec.split(line);
                     if (parts.length == 6 && parts[1].equals(username) && parts[2].equals(password)) {
                         userFound = true;
                         if (parts[3].equalsIgnoreCase(selectedRole)) {
@@ -460,7 +465,7 @@ public class Main {
             try (BufferedReader reader = new BufferedReader(new FileReader("data/users_data.txt"))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
+                    String[] parts = Csv_Codec.split(line);
                     if (parts.length >= 5 &&
                             parts[1].equals(adminUser) &&
                             parts[2].equals(adminPass) &&
@@ -500,38 +505,27 @@ public class Main {
                 String status = "Active";
                 String registrationDate = new java.text.SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
 
-                try {
+                Data_Worker.submit(frame, () -> {   // Reads and writes off the EDT
                     List<String> lines = File_Utils.readLines("data/users_data.txt");
-                    boolean exists = false;
-                    int maxNum = 0;
-
                     for (String line : lines) {
-                        String[] parts = line.split(",");
+                        String[] parts = Csv_Codec.split(line);
                         if (parts.length >= 2 && parts[1].equalsIgnoreCase(newUser)) {
-                            exists = true;
-                            break;
-                        }
-                        if (parts.length >= 1 && parts[0].startsWith("OW")) {
-                            try {
-                                int num = Integer.parseInt(parts[0].substring(2));
-                                if (num > maxNum) maxNum = num;
-                            } catch (NumberFormatException ignored) {}
+                            return false;           // Username already exists
                         }
                     }
 
-                    if (exists) {
-                        new StyledDialog(frame, "Error", "❌ Username already exists.", true).setVisible(true);
-                        return;
-                    }
-
-                    String nextID = String.format("OW%03d", maxNum + 1);
-                    String newLine = String.join(",", nextID, newUser, newPass, newRole, status, registrationDate);
+                    String nextID = Id_Allocator.next("data/users_data.txt", "OW");
+                    String newLine = Csv_Codec.join(nextID, newUser, newPass, newRole, status, registrationDate);
 
                     File_Utils.appendLine("data/users_data.txt", newLine);
-                    new StyledDialog(frame, "Success", "✅ User registered successfully!", false).setVisible(true);
-                } catch (Exception ex) {
-                    new StyledDialog(frame, "Error", "⚠️ Failed to save user: " + ex.getMessage(), true).setVisible(true);
-                }
+                    return true;
+                }, registered -> {
+                    if (registered) {
+                        new StyledDialog(frame, "Success", "✅ User registered successfully!", false).setVisible(true);
+                    } else {
+                        new StyledDialog(frame, "Error", "❌ Username already exists.", true).setVisible(true);
+                    }
+                }, ex -> new StyledDialog(frame, "Error", "⚠️ Failed to save user: " + ex.getMessage(), true).setVisible(true));
             }
         });
 
@@ -180,6 +180,8 @@ public class AdministratorDashboard {
         JLabel contentLabel = new JLabel("Welcome back, " + displayName + "!", SwingConstants.CENTER);
         contentLabel.setFont(new Font("Times New Roman", Font.PLAIN, 22));
         contentPanel.add(contentLabel, BorderLayout.CENTER);
+        // Builds each panel on first use and keeps it for later visits
+        Panel_Registry panels = new Panel_Registry(contentPanel);
 
         // Create User Management button with custom gradient styling
         // This is a static button (not part of an expandable section)
@@ -209,10 +211,7 @@ public class AdministratorDashboard {
         userMgmtBtn.setBackground(new Color(120, 60, 220));
         userMgmtBtn.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
         userMgmtBtn.addActionListener(_ -> {
-            contentPanel.removeAll();
-            contentPanel.add(new UserManagementPanel_A(), BorderLayout.CENTER);
-            contentPanel.revalidate();
-            contentPanel.repaint();
+            panels.show(UserManagementPanel_A.class, UserManagementPanel_A::new);
         });
         sidebar.add(userMgmtBtn);
         sidebar.add(Box.createVerticalStrut(18));
@@ -230,40 +229,22 @@ public class AdministratorDashboard {
         };
         Runnable[] smActions = new Runnable[] {
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ItemEntryPanel_SM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ItemEntryPanel_SM.class, ItemEntryPanel_SM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new SupplierEntryPanel_SM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(SupplierEntryPanel_SM.class, SupplierEntryPanel_SM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new SalesEntryPanel_SM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(SalesEntryPanel_SM.class, SalesEntryPanel_SM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new PurchaseRequisitionPanel_SM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(PurchaseRequisitionPanel_SM.class, PurchaseRequisitionPanel_SM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseRequisitionPanel_SM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseRequisitionPanel_SM.class, ViewPurchaseRequisitionPanel_SM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseOrderPanel_SM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseOrderPanel_SM.class, ViewPurchaseOrderPanel_SM::new);
                 }
         };
         // Create Sales Management section with red color theme
@@ -289,34 +270,19 @@ public class AdministratorDashboard {
         };
         Runnable[] pmActions = new Runnable[] {
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewItemsPanel_PM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewItemsPanel_PM.class, ViewItemsPanel_PM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewSuppliersPanel_PM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewSuppliersPanel_PM.class, ViewSuppliersPanel_PM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseRequisitionPanel_PM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseRequisitionPanel_PM.class, ViewPurchaseRequisitionPanel_PM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new PurchaseOrderPanel_PM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(PurchaseOrderPanel_PM.class, PurchaseOrderPanel_PM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseOrderPanel_PM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseOrderPanel_PM.class, ViewPurchaseOrderPanel_PM::new);
                 }
         };
         // Create Purchasing Management section with blue color theme
@@ -342,34 +308,19 @@ public class AdministratorDashboard {
         };
         Runnable[] imActions = new Runnable[] {
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewItemsPanel_IM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewItemsPanel_IM.class, ViewItemsPanel_IM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new UpdateStock_IM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(UpdateStock_IM.class, UpdateStock_IM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ManageStock_IM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ManageStock_IM.class, ManageStock_IM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new StockReports_IM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(StockReports_IM.class, StockReports_IM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseOrderPanel_IM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseOrderPanel_IM.class, ViewPurchaseOrderPanel_IM::new);
                 }
         };
         // Create Inventory Management section with yellow/orange color theme
@@ -396,40 +347,22 @@ public class AdministratorDashboard {
         };
         Runnable[] fmActions = new Runnable[] {
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new PurchaseOrders_FM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(PurchaseOrders_FM.class, PurchaseOrders_FM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new VerifyInventory_FM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(VerifyInventory_FM.class, VerifyInventory_FM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ProccessPayments_FM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ProccessPayments_FM.class, ProccessPayments_FM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new FinancialReports_FM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(FinancialReports_FM.class, FinancialReports_FM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseOrderPanel_FM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseOrderPanel_FM.class, ViewPurchaseOrderPanel_FM::new);
                 },
                 () -> {
-                    contentPanel.removeAll();
-                    contentPanel.add(new ViewPurchaseRequisitionPanel_FM(), BorderLayout.CENTER);
-                    contentPanel.revalidate();
-                    contentPanel.repaint();
+                    panels.show(ViewPurchaseRequisitionPanel_FM.class, ViewPurchaseRequisitionPanel_FM::new);
                 }
         };
         // Create Financial Management section with green color theme
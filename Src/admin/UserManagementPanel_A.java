@@ -1,14 +1,14 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
-import java.util.ArrayList;
 import java.util.Objects;
 
 // Panel for Administrator to manage user accounts (register, edit, deactivate, search)
 public class UserManagementPanel_A extends JPanel {
     // Table model for displaying user data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
+    // Debounced search over the users
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public UserManagementPanel_A() {
@@ -44,7 +44,7 @@ public class UserManagementPanel_A extends JPanel {
 
         // --- TABLE: Shows user records ---
         String[] columnNames = {"User ID", "Username", "Password", "Role", "Status", "Registered Date"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new Record_Table_Model(columnNames);
         JTable itemTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(javax.swing.table.TableCellRenderer renderer, int row, int column) {
@@ -125,17 +125,15 @@ public class UserManagementPanel_A extends JPanel {
         buttonPanel.add(deactivateBtn);
         add(buttonPanel, BorderLayout.SOUTH);
 
+        // --- SEARCH ---
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/users_data.txt", 6);
+        search.attach(searchField);
+        roleFilter.addActionListener(_ -> filterTable((String)roleFilter.getSelectedItem()));
+
         // Load initial user records
         loadUsers();
 
-        // --- SEARCH FILTER LISTENER ---
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(searchField.getText().trim().toLowerCase(), (String)roleFilter.getSelectedItem()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(searchField.getText().trim().toLowerCase(), (String)roleFilter.getSelectedItem()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
-        roleFilter.addActionListener(_ -> filterTable(searchField.getText().trim().toLowerCase(), (String)roleFilter.getSelectedItem()));
-
         // --- Register User button handler ---
         addBtn.addActionListener(_ -> {
             JTextField usernameField = new JTextField();
@@ -154,29 +152,22 @@ public class UserManagementPanel_A extends JPanel {
             int result = JOptionPane.showConfirmDialog(null, panel, "Register New User", JOptionPane.OK_CANCEL_OPTION);
 
             if (result == JOptionPane.OK_OPTION) {
-                try {
-                    if (usernameExists(usernameField.getText().trim())) {
-                        JOptionPane.showMessageDialog(null, "❌ Username already exists", "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
+                String username = usernameField.getText().trim();
+                String password = passwordField.getText().trim();
+                String role = Objects.requireNonNull(roleCombo.getSelectedItem()).toString();
+                Data_Worker.submit(this, () -> {   // Reads and writes off the EDT
+                    if (usernameExists(username)) {
+                        throw new IllegalArgumentException("Username already exists");
                     }
 
                     String nextCode = generateNextUserCode();
                     String today = new java.text.SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
-                    String newLine = String.join(",",
-                            nextCode,
-                            usernameField.getText().trim(),
-                            passwordField.getText().trim(),
-                            Objects.requireNonNull(roleCombo.getSelectedItem()).toString(),
-                            "Active",
-                            today
-                    );
-
-                    File_Utils.appendLine("data/data/users_data.txt", newLine);
-                    tableModel.addRow(newLine.split(","));
+                    File_Utils.appendLine("data/users_data.txt", Csv_Codec.join(nextCode, username, password, role, "Active", today));
+                    return nextCode;
+                }, _ -> {
+                    search.refresh();
                     JOptionPane.showMessageDialog(null, "✅ User registered successfully!");
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(null, "❌ Failed to register user: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                }, error -> JOptionPane.showMessageDialog(null, "❌ Failed to register user: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
             }
         });
 
@@ -189,6 +180,7 @@ public class UserManagementPanel_A extends JPanel {
             }
             String[] selected = new String[6];
             for (int i = 0; i < 6; i++) selected[i] = (String) tableModel.getValueAt(selectedRow, i);
+            long seenVersion = tableModel.version();   // Edits made after the list was shown show up as conflicts
 
             JTextField usernameField = new JTextField(selected[1]);
             JTextField passwordField = new JTextField(selected[2]);
@@ -211,27 +203,29 @@ public class UserManagementPanel_A extends JPanel {
             int update = JOptionPane.showConfirmDialog(null, panel, "Edit User", JOptionPane.OK_CANCEL_OPTION);
             if (update == JOptionPane.OK_OPTION) {
                 try {
-                    String newLine = String.join(",",
-                            selected[0], // User ID (unchanged)
+                    String[] values = {
                             usernameField.getText().trim(),
                             passwordField.getText().trim(),
                             Objects.requireNonNull(roleCombo.getSelectedItem()).toString(),
-                            Objects.requireNonNull(statusCombo.getSelectedItem()).toString(),
-                            selected[5] // Registered Date (unchanged)
-                    );
-
-                    List<String> lines = File_Utils.readLines("data/users_data.txt");
-                    List<String> updated = new ArrayList<>();
-                    for (String line : lines) {
-                        if (line.startsWith(selected[0] + ",")) {
-                            updated.add(newLine);
-                        } else {
-                            updated.add(line);
+                            Objects.requireNonNull(statusCombo.getSelectedItem()).toString()
+                    };   // User ID and registered date stay unchanged
+
+                    Data_Worker.submit(this, () -> {   // Writes off the EDT
+                        // Only this user's fields, unless someone changed them while the dialog was open
+                        File_Utils.Update written = File_Utils.compareAndSet("data/users_data.txt", selected[0], seenVersion,
+                                new int[]{1, 2, 3, 4}, values);
+                        if (written != File_Utils.Update.APPLIED) {
+                            throw new IllegalStateException(switch (written) {
+                                case CONFLICT -> "This user was changed by someone else in the meantime. Please select it again and retry.";
+                                case MISSING -> "User " + selected[0] + " no longer exists.";
+                                default -> "The user could not be written.";
+                            });
                         }
-                    }
-                    File_Utils.writeLines("data/users_data.txt", new ArrayList<>(updated));
-                    loadUsers();
-                    JOptionPane.showMessageDialog(null, "✅ User updated successfully!");
+                        return selected[0];
+                    }, _ -> {
+                        loadUsers();
+                        JOptionPane.showMessageDialog(null, "✅ User updated successfully!");
+                    }, error -> JOptionPane.showMessageDialog(null, "❌ Update failed: " + error.getMessage()));
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Update failed: " + ex.getMessage());
                 }
@@ -252,26 +246,19 @@ public class UserManagementPanel_A extends JPanel {
                 return;
             }
 
-            List<String> lines = File_Utils.readLines("data/users_data.txt");
-            List<String> updated = new ArrayList<>();
-            boolean found = false;
-
-            for (String line : lines) {
-                String[] parts = line.split(",");
-                if (parts.length >= 6 && parts[0].equals(userId)) {
-                    found = true; // Skip this line to delete the user
+            Data_Worker.submit(this, () -> {   // Write off the EDT
+                // Only this record goes; the rest of the file is taken as it is now
+                File_Utils.Update removed = File_Utils.deleteRecord("data/users_data.txt", userId);
+                if (removed == File_Utils.Update.FAILED) throw new IllegalStateException("The user could not be deleted.");
+                return removed == File_Utils.Update.APPLIED;
+            }, found -> {
+                if (found) {
+                    loadUsers();
+                    JOptionPane.showMessageDialog(null, "🗑️ User deleted successfully!");
                 } else {
-                    updated.add(line);
+                    JOptionPane.showMessageDialog(null, "User not found.");
                 }
-            }
-
-            if (found) {
-                File_Utils.writeLines("data/users_data.txt", new ArrayList<>(updated));
-                loadUsers();
-                JOptionPane.showMessageDialog(null, "🗑️ User deleted successfully!");
-            } else {
-                JOptionPane.showMessageDialog(null, "User not found.");
-            }
+            });
         });
 
         // --- Deactivate User button handler ---
@@ -282,65 +269,33 @@ public class UserManagementPanel_A extends JPanel {
                 return;
             }
             String userId = (String) tableModel.getValueAt(selectedRow, 0);
-            List<String> lines = File_Utils.readLines("data/users_data.txt");
-            List<String> updated = new ArrayList<>();
-            boolean found = false;
-            for (String line : lines) {
-                String[] parts = line.split(",");
-                if (parts.length >= 6 && parts[0].equals(userId)) {
-                    parts[4] = "Inactive";
-                    updated.add(String.join(",", parts));
-                    found = true;
+            // Only the status column is written (off the EDT), so other changes to the user are kept
+            Data_Worker.submit(this, () -> File_Utils.updateField("data/users_data.txt", userId, 4, "Inactive"), found -> {
+                if (found) {
+                    loadUsers();
+                    JOptionPane.showMessageDialog(null, "✅ User deactivated successfully!");
                 } else {
-                    updated.add(line);
+                    JOptionPane.showMessageDialog(null, "User not found.");
                 }
-            }
-            if (found) {
-                File_Utils.writeLines("data/users_data.txt", new ArrayList<>(updated));
-                loadUsers();
-                JOptionPane.showMessageDialog(null, "✅ User deactivated successfully!");
-            } else {
-                JOptionPane.showMessageDialog(null, "User not found.");
-            }
-
-
-
+            });
         });
     }
 
-    // Loads and displays user records from data/users_data.txt
+    // Reloads the table, keeping the current search and role filter (the file is only re-read if it changed)
     private void loadUsers() {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/users_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length >= 6) {
-                tableModel.addRow(parts);
-            }
-        }
+        search.refresh();
     }
 
     // Generates the next User ID in the format OW###
     private String generateNextUserCode() {
-        List<String> lines = File_Utils.readLines("data/users_data.txt");
-        int maxNum = 0;
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length > 0 && parts[0].startsWith("OW")) {
-                try {
-                    int num = Integer.parseInt(parts[0].substring(2));
-                    maxNum = Math.max(maxNum, num);
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("OW%03d", maxNum + 1);
+        return Id_Allocator.next("data/users_data.txt", "OW");   // Persisted sequence, no table scan
     }
 
     // Checks if a username already exists in data/users_data.txt
     private boolean usernameExists(String username) {
         List<String> lines = File_Utils.readLines("data/users_data.txt");
         for (String line : lines) {
-            String[] parts = line.split(",");
+            String[] parts = Csv_Codec.split(line);
             if (parts.length >= 2 && parts[1].equalsIgnoreCase(username)) {
                 return true;
             }
@@ -348,26 +303,9 @@ public class UserManagementPanel_A extends JPanel {
         return false;
     }
 
-    // Filters the table based on the search field and role filter
-    private void filterTable(String filter, String role) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/users_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length >= 6) {
-                boolean match = filter.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                boolean roleMatch = role.equals("All") || (parts[3].equalsIgnoreCase(role));
-                if (match && roleMatch) tableModel.addRow(parts);
-            }
-        }
+    // Shows only the users with the given role ("All" for everyone)
+    private void filterTable(String role) {
+        search.setScope(row -> role.equals("All") || row.equalsIgnoreCase(3, role));
     }
 
 }
\ No newline at end of file
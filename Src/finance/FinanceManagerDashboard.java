@@ -72,6 +72,8 @@ public class FinanceManagerDashboard {
         JLabel contentLabel = new JLabel("Welcome back, " + displayName + "!", SwingConstants.CENTER);
         contentLabel.setFont(new Font("Times New Roman", Font.PLAIN, 22));
         contentPanel.add(contentLabel, BorderLayout.CENTER); // Default greeting
+        // Builds each panel on first use and keeps it for later visits
+        Panel_Registry panels = new Panel_Registry(contentPanel);
 
         // Create each menu button and assign actions
         for (String item : menuItems) {
@@ -90,40 +92,22 @@ public class FinanceManagerDashboard {
                         Main.createLoginUI();          // Open login screen
                     }
                     case "Approve POs" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new PurchaseOrders_FM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(PurchaseOrders_FM.class, PurchaseOrders_FM::new);
                     }
                     case "Verify Inv Updates" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new VerifyInventory_FM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(VerifyInventory_FM.class, VerifyInventory_FM::new);
                     }
                     case "Process Payments" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ProccessPayments_FM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ProccessPayments_FM.class, ProccessPayments_FM::new);
                     }
                     case "Generate Reports" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new FinancialReports_FM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(FinancialReports_FM.class, FinancialReports_FM::new);
                     }
                     case "View Purchase Requisitions" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseRequisitionPanel_FM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseRequisitionPanel_FM.class, ViewPurchaseRequisitionPanel_FM::new);
                     }
                     case "View Purchase Orders" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseOrderPanel_FM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseOrderPanel_FM.class, ViewPurchaseOrderPanel_FM::new);
                     }
                     default -> {
                         // Fallback for unimplemented actions
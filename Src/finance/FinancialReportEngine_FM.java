@@ -0,0 +1,156 @@
+import java.io.*;                                  // Report file output
+import java.text.SimpleDateFormat;                 // Formats range bounds and timestamps
+import java.util.Calendar;                         // Rounds range bounds to whole seconds/days
+import java.util.Date;                             // Range bounds
+import java.util.Formatter;                        // Reused for every report line
+import java.util.HashMap;                          // Item code -> unit price
+
+// Computes the exported financial report for FinancialReports_FM in one pass per table
+public class FinancialReportEngine_FM {
+
+    private static final String PAYMENTS_FILE = "data/payments_data.txt";
+    private static final String SALES_FILE = "data/sales_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+
+    // Column layouts of the report sections
+    private static final String PAYMENT_ROW = "%-10s %-10s %-10s %-10s %-10s %-20s %-8s\n";
+    private static final String SALE_HEADER = "%-10s %-10s %-18s %-8s %-12s %-10s %-10s\n";
+    private static final String SALE_ROW = "%-10s %-10s %-18s %-8s %-12s %-10s %-10.2f\n";
+
+    // Totals over payments and sales
+    public static class Totals {
+        public int payments;        // Number of payment records
+        public double paid;         // Sum of the amounts already paid
+        public int sales;           // Number of sales records
+        public double salesAmount;  // Sum of qty x unit price over the sales
+    }
+
+    /**
+     * Writes the financial report for a date range to a file
+     * @param reportFile The file to create
+     * @param fromDate Start of the range (inclusive)
+     * @param toDate End of the range (inclusive)
+     * @param generatedBy User shown in the "Generated by" line
+     * @return The totals printed in the report
+     * @throws IOException If the file could not be written
+     */
+    public static Totals export(File reportFile, Date fromDate, Date toDate, String generatedBy) throws IOException {
+        StringBuilder paid = new StringBuilder();
+        StringBuilder pending = new StringBuilder();
+        StringBuilder sales = new StringBuilder();
+        Totals totals = run(new Date[]{fromDate, toDate}, paid, pending, sales);
+
+        try (Formatter out = new Formatter(new BufferedWriter(new FileWriter(reportFile)))) {
+            out.format("==============================\n");
+            out.format("   Omega Wholesale Sdn Bhd (OWSB)\n");
+            out.format("==============================\n");
+            out.format("      FINANCIAL REPORT\n");
+            out.format("==============================\n");
+            out.format("Generated: %s\n", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+            out.format("Generated by: %s\n\n", generatedBy);
+            out.format("Total Payments: %d\nTotal Paid: RM %.2f\n", totals.payments, totals.paid);
+            out.format("Total Sales: %d\nTotal Sales Amount: RM %.2f\n", totals.sales, totals.salesAmount);
+            out.format("\n");
+            section(out, "Paid Payments", paid);
+            section(out, "Pending Payments", pending);
+            // Sales section
+            out.format("------------------------------\n");
+            out.format("Sales\n");
+            out.format("------------------------------\n");
+            out.format(SALE_HEADER, "SaleID", "ItemCode", "ItemName", "Qty", "Date", "ManagerID", "Amount");
+            out.format("%s", sales.isEmpty() ? "(None)\n" : sales);
+            out.format("\n");
+            out.format("==============================\n");
+            out.format("Grand Total (Paid + Sales): RM %.2f\n", (totals.paid + totals.salesAmount));
+            out.format("End of Report\n");
+            out.flush();
+            if (out.ioException() != null) throw out.ioException();
+        }
+        return totals;
+    }
+
+    // Writes one payments section
+    private static void section(Formatter out, String title, StringBuilder rows) {
+        out.format("------------------------------\n");
+        out.format("%s\n", title);
+        out.format("------------------------------\n");
+        out.format(PAYMENT_ROW, "PayID", "POID", "ItemCode", "SuppID", "Amount", "Date", "Status");
+        out.format("%s", rows.isEmpty() ? "(None)\n" : rows);
+        out.format("\n");
+    }
+
+    /*
+     * Streams payments and sales once each. Records outside the range are
+     * rejected on their raw date text before anything else is parsed.
+     */
+    private static Totals run(Date[] range, StringBuilder paid, StringBuilder pending, StringBuilder sales) {
+        Totals totals = new Totals();
+        // ISO dates sort like the dates themselves, so the range becomes two string bounds per format
+        String[] stampRange = stampBounds(range[0], range[1]);
+        String[] dayRange = dayBounds(range[0], range[1]);
+        // One formatter for every report line, writing into a scratch buffer that is copied out
+        StringBuilder scratch = new StringBuilder();
+        Formatter line = new Formatter(scratch);
+
+        Record_Store.forEach(PAYMENTS_FILE, p -> {
+            if (p.size() <= 11) return;
+            // p[5] is date (yyyy-MM-dd HH:mm:ss)
+            if (!inRange(p, 5, stampRange)) return;
+            totals.payments++;
+            boolean isPaid = p.get(11).equalsIgnoreCase("paid");
+            if (isPaid) {
+                try { totals.paid += p.parseDouble(4); } catch (Exception ignored) {}
+            }
+            scratch.setLength(0);
+            line.format(PAYMENT_ROW, p.get(0), p.get(1), p.get(2), p.get(3), p.get(4), p.get(5), p.get(11));
+            (isPaid ? paid : pending).append(scratch);
+        });
+
+        // Hash-join side: unit price per item code, built once per run
+        HashMap<String, Double> prices = new HashMap<>();
+        Record_Store.forEach(ITEMS_FILE, item -> {
+            if (item.size() <= 4) return;
+            try { prices.putIfAbsent(item.get(0), item.parseDouble(4)); } catch (Exception ignored) {}
+        });
+
+        Record_Store.forEach(SALES_FILE, s -> {
+            if (s.size() < 5) return;
+            // s[4] is date (yyyy-MM-dd)
+            if (!inRange(s, 4, dayRange)) return;
+            double amount = 0.0;
+            try { amount = prices.getOrDefault(s.get(1), 0.0) * s.parseInt(3); } catch (Exception ignored) {}
+            totals.sales++;
+            totals.salesAmount += amount;
+            scratch.setLength(0);
+            line.format(SALE_ROW, s.get(0), s.get(1), s.get(2), s.get(3), s.get(4), s.size() > 5 ? s.get(5) : "", amount);
+            sales.append(scratch);
+        });
+        return totals;
+    }
+
+    // True if a date field has the expected shape and lies within [bounds[0], bounds[1]]
+    private static boolean inRange(Csv_Codec.Row row, int column, String[] bounds) {
+        return row.length(column) == bounds[0].length()
+            && row.compareTo(column, bounds[0]) >= 0
+            && row.compareTo(column, bounds[1]) <= 0;
+    }
+
+    // Range bounds for yyyy-MM-dd HH:mm:ss values, rounded inwards to whole seconds
+    private static String[] stampBounds(Date from, Date to) {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long low = (from.getTime() + 999) / 1000 * 1000;
+        long high = to.getTime() / 1000 * 1000;
+        return new String[]{df.format(new Date(low)), df.format(new Date(high))};
+    }
+
+    // Range bounds for yyyy-MM-dd values (a day counts from its midnight)
+    private static String[] dayBounds(Date from, Date to) {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(from);
+        boolean midnight = cal.get(Calendar.HOUR_OF_DAY) == 0 && cal.get(Calendar.MINUTE) == 0
+            && cal.get(Calendar.SECOND) == 0 && cal.get(Calendar.MILLISECOND) == 0;
+        if (!midnight) cal.add(Calendar.DATE, 1);          // Midnight of the start day is before the range
+        return new String[]{df.format(cal.getTime()), df.format(to)};
+    }
+}
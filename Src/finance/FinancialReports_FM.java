@@ -5,14 +5,14 @@ import java.awt.*;                                 // For layouts, dimensions, c
 import java.awt.event.MouseAdapter;               // To detect mouse interactions
 import java.awt.event.MouseEvent;                 // Mouse event handler
 import java.io.*;                                  // File input/output
-import java.nio.file.Files;                        // File reading utility for Paths
-import java.nio.file.Path;
 import java.text.ParseException;                   // Date parsing exceptions
 import java.text.SimpleDateFormat;                 // Used to parse and format date/time
+import java.util.ArrayList;                        // Rows built by the background load
 import java.util.Date;                             // Date object for timestamp handling
+import java.util.List;
 
 // Panel class responsible for displaying and interacting with financial reports
-public class FinancialReports_FM extends JPanel {
+public class FinancialReports_FM extends JPanel implements Panel_Registry.Refreshable {
     // Table to list all financial report files
     private final JTable reportTable;
     // Table model to manage table data
@@ -23,10 +23,13 @@ public class FinancialReports_FM extends JPanel {
     private final TableRowSorter<DefaultTableModel> sorter;
     // Label to show overall financial summary
     private final JLabel summaryLabel;
+    // Re-lists the reports when another instance adds or removes one (held here, Data_Watcher keeps it weakly)
+    private final Runnable onReportsChanged = () -> { if (isShowing()) reload(); };
 
     // Constructor: builds the entire financial reports panel
     public FinancialReports_FM() {
         setLayout(new BorderLayout());                           // Use border layout for main panel
+        Data_Watcher.observe("financial_reports", onReportsChanged);
 
         // --- TOP PANEL: Contains the title, export button, and search bar ---
         JPanel topPanel = new JPanel();
@@ -232,45 +235,61 @@ public class FinancialReports_FM extends JPanel {
 
     // Loads all report files from the financial_reports directory and populates the table
     private void loadReports() {
-        tableModel.setRowCount(0);
-        File reportsDir = new File("financial_reports");
-        if (!reportsDir.exists() || !reportsDir.isDirectory()) return;
-        File[] files = reportsDir.listFiles((_, name) -> name.endsWith(".txt"));
-        if (files == null) return;
-        SimpleDateFormat df = new SimpleDateFormat("yyyyMMdd_HHmmss");
-        for (File file : files) {
-            String fileName = file.getName();
-            String createdBy = "";
-            String dateStr = "";
-            String dateTimeDisplay = "";
-            // Try to parse metadata from file
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.startsWith("Generated by:")) {
-                        createdBy = line.replace("Generated by:", "").trim();
-                    }
-                    if (line.startsWith("Generated:")) {
-                        dateStr = line.replace("Generated:", "").trim();
+        Data_Worker.fill(this, tableModel, () -> {   // Read off the EDT
+            List<Object[]> rows = new ArrayList<>();
+            File reportsDir = new File("financial_reports");
+            if (!reportsDir.exists() || !reportsDir.isDirectory()) return rows;
+            File[] files = reportsDir.listFiles((_, name) -> name.endsWith(".txt"));
+            if (files == null) return rows;
+            SimpleDateFormat df = new SimpleDateFormat("yyyyMMdd_HHmmss");
+            for (File file : files) {
+                String fileName = file.getName();
+                String createdBy = "";
+                String dateStr = "";
+                String dateTimeDisplay = "";
+                // Try to parse metadata from file
+                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("Generated by:")) {
+                            createdBy = line.replace("Generated by:", "").trim();
+                        }
+                        if (line.startsWith("Generated:")) {
+                            dateStr = line.replace("Generated:", "").trim();
+                        }
+                        if (!createdBy.isEmpty() && !dateStr.isEmpty()) break;
                     }
-                    if (!createdBy.isEmpty() && !dateStr.isEmpty()) break;
+                } catch (Exception ignored) {}
+                // Fallback: parse date from filename
+                if (dateStr.isEmpty()) {
+                    try {
+                        String[] parts = fileName.split("_");
+                        if (parts.length >= 3) {
+                            String datePart = parts[1] + "_" + parts[2].replace(".txt", "");
+                            Date d = df.parse(datePart);
+                            dateTimeDisplay = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(d);
+                        }
+                    } catch (ParseException ignored) {}
+                } else {
+                    dateTimeDisplay = dateStr;
                 }
-            } catch (Exception ignored) {}
-            // Fallback: parse date from filename
-            if (dateStr.isEmpty()) {
-                try {
-                    String[] parts = fileName.split("_");
-                    if (parts.length >= 3) {
-                        String datePart = parts[1] + "_" + parts[2].replace(".txt", "");
-                        Date d = df.parse(datePart);
-                        dateTimeDisplay = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(d);
-                    }
-                } catch (ParseException ignored) {}
-            } else {
-                dateTimeDisplay = dateStr;
+                rows.add(new Object[]{fileName, createdBy, dateTimeDisplay});
             }
-            tableModel.addRow(new Object[]{fileName, createdBy, dateTimeDisplay});
-        }
+            return rows;
+        });
+    }
+
+    // The report folder and the tables behind the summary (see Panel_Registry)
+    @Override
+    public String[] sources() {
+        return new String[]{"financial_reports", "data/payments_data.txt", "data/sales_data.txt", "data/items_data.txt"};
+    }
+
+    // Re-lists the reports and updates the summary after something changed while the panel was hidden
+    @Override
+    public void reload() {
+        loadReports();
+        updateSummary();
     }
 
     // Filters the table based on the search field input
@@ -307,48 +326,16 @@ public class FinancialReports_FM extends JPanel {
         JOptionPane.showMessageDialog(this, scrollPane, fileName, JOptionPane.PLAIN_MESSAGE);
     }
 
-    // Updates the summary label at the bottom with total payments and sales
+    // Updates the summary label at the bottom with total payments and sales (maintained incrementally)
     private void updateSummary() {
-        java.util.List<String> payments = File_Utils.readLines("data/payments_data.txt");
-        int totalPayments = 0;
-        double totalPaid = 0.0;
-        for (String line : payments) {
-            String[] parts = line.split(",", -1);
-            if (parts.length > 11) {
-                totalPayments++;
-                if (parts[11].equalsIgnoreCase("paid")) {
-                    try { totalPaid += Double.parseDouble(parts[4]); } catch (Exception ignored) {}
-                }
-            }
-        }
-        java.util.List<String> sales = File_Utils.readLines("data/sales_data.txt");
-        java.util.List<String> items = File_Utils.readLines("data/items_data.txt");
-        int totalSales = 0;
-        double totalSalesAmount = 0.0;
-        for (String line : sales) {
-            String[] s = line.split(",", -1);
-            if (s.length >= 4) {
-                totalSales++;
-                // Find price from data/items_data.txt
-                double price = 0.0;
-                for (String itemLine : items) {
-                    String[] item = itemLine.split(",", -1);
-                    if (item.length > 4 && item[0].equals(s[1])) {
-                        try { price = Double.parseDouble(item[4]); } catch (Exception ignored) {}
-                        break;
-                    }
-                }
-                try { totalSalesAmount += price * Integer.parseInt(s[3]); } catch (Exception ignored) {}
-            }
-        }
         String summary = "<html><div style='text-align:center;'>"
-            + "<span style='font-size:18px;font-weight:bold;'>Total Payments: " + totalPayments + "</span>"
+            + "<span style='font-size:18px;font-weight:bold;'>Total Payments: " + Running_Totals.payments() + "</span>"
             + " &nbsp; &nbsp; "
-            + "<span style='font-size:18px;font-weight:bold;'>Total Paid: RM " + String.format("%.2f", totalPaid) + "</span>"
+            + "<span style='font-size:18px;font-weight:bold;'>Total Paid: RM " + String.format("%.2f", Running_Totals.paid()) + "</span>"
             + "<br>"
-            + "<span style='font-size:18px;font-weight:bold;'>Total Sales: " + totalSales + "</span>"
+            + "<span style='font-size:18px;font-weight:bold;'>Total Sales: " + Running_Totals.sales() + "</span>"
             + " &nbsp; &nbsp; "
-            + "<span style='font-size:18px;font-weight:bold;'>Total Sales Amount: RM " + String.format("%.2f", totalSalesAmount) + "</span>"
+            + "<span style='font-size:18px;font-weight:bold;'>Total Sales Amount: RM " + String.format("%.2f", Running_Totals.salesAmount()) + "</span>"
             + "</div></html>";
         summaryLabel.setText(summary);
     }
@@ -364,108 +351,11 @@ public class FinancialReports_FM extends JPanel {
             File reportFile = new File(reportsDir, fileName);
             String userId = Session.getLoggedInUserId();
             String userName = "";
-            try {
-                java.util.List<String> userLines = Files.readAllLines(Path.of("data/users_data.txt"));
-                for (String line : userLines) {
-                    String[] parts = line.split(",", -1);
-                    if (parts.length >= 2 && parts[0].equals(userId)) {
-                        userName = parts[1];
-                        break;
-                    }
-                }
-            } catch (Exception ex) { userName = ""; }
-            // Prepare payment data
-            java.util.List<String[]> paid = new java.util.ArrayList<>();
-            java.util.List<String[]> pending = new java.util.ArrayList<>();
-            int totalPayments = 0;
-            double totalPaid = 0.0;
-            java.util.List<String> payments = File_Utils.readLines("data/payments_data.txt");
-            for (String line : payments) {
-                String[] p = line.split(",", -1);
-                if (p.length > 11) {
-                    // p[5] is date (yyyy-MM-dd HH:mm:ss)
-                    Date d = null;
-                    try { d = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(p[5]); } catch (Exception ignored) {}
-                    if (d == null || d.before(fromDate) || d.after(toDate)) continue;
-                    totalPayments++;
-                    if (p[11].equalsIgnoreCase("paid")) {
-                        paid.add(p);
-                        try { totalPaid += Double.parseDouble(p[4]); } catch (Exception ignored) {}
-                    } else {
-                        pending.add(p);
-                    }
-                }
-            }
-            // Prepare sales data
-            java.util.List<String> sales = File_Utils.readLines("data/sales_data.txt");
-            java.util.List<String> items = File_Utils.readLines("data/items_data.txt");
-            java.util.List<String[]> salesList = new java.util.ArrayList<>();
-            double totalSalesAmount = 0.0;
-            for (String line : sales) {
-                String[] s = line.split(",", -1);
-                if (s.length >= 5) {
-                    // s[4] is date (yyyy-MM-dd)
-                    Date d = null;
-                    try { d = new SimpleDateFormat("yyyy-MM-dd").parse(s[4]); } catch (Exception ignored) {}
-                    if (d == null || d.before(fromDate) || d.after(toDate)) continue;
-                    double price = 0.0;
-                    for (String itemLine : items) {
-                        String[] item = itemLine.split(",", -1);
-                        if (item.length > 4 && item[0].equals(s[1])) {
-                            try { price = Double.parseDouble(item[4]); } catch (Exception ignored) {}
-                            break;
-                        }
-                    }
-                    double amount = 0.0;
-                    try { amount = price * Integer.parseInt(s[3]); } catch (Exception ignored) {}
-                    totalSalesAmount += amount;
-                    salesList.add(new String[]{s[0], s[1], s[2], s[3], s[4], s[5], String.format("%.2f", amount)});
-                }
-            }
-            // Write report
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(reportFile))) {
-                writer.write("==============================\n");
-                writer.write("   Omega Wholesale Sdn Bhd (OWSB)\n");
-                writer.write("==============================\n");
-                writer.write("      FINANCIAL REPORT\n");
-                writer.write("==============================\n");
-                writer.write("Generated: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + "\n");
-                writer.write("Generated by: " + (userId != null ? userId : "") + (userName.isEmpty() ? "" : (" " + userName)) + "\n\n");
-                writer.write(String.format("Total Payments: %d\nTotal Paid: RM %.2f\n", totalPayments, totalPaid));
-                writer.write(String.format("Total Sales: %d\nTotal Sales Amount: RM %.2f\n", salesList.size(), totalSalesAmount));
-                writer.write("\n");
-                // Payments section
-                java.util.function.BiConsumer<String, java.util.List<String[]>> section = (title, list) -> {
-                    try {
-                        writer.write("------------------------------\n");
-                        writer.write(title + "\n");
-                        writer.write("------------------------------\n");
-                        writer.write(String.format("%-10s %-10s %-10s %-10s %-10s %-20s %-8s\n", "PayID", "POID", "ItemCode", "SuppID", "Amount", "Date", "Status"));
-                        for (String[] p : list) {
-                            writer.write(String.format("%-10s %-10s %-10s %-10s %-10s %-20s %-8s\n",
-                                p[0], p[1], p[2], p[3], p[4], p[5], p[11]));
-                        }
-                        if (list.isEmpty()) writer.write("(None)\n");
-                        writer.write("\n");
-                    } catch (IOException _) { }
-                };
-                section.accept("Paid Payments", paid);
-                section.accept("Pending Payments", pending);
-                // Sales section
-                writer.write("------------------------------\n");
-                writer.write("Sales\n");
-                writer.write("------------------------------\n");
-                writer.write(String.format("%-10s %-10s %-18s %-8s %-12s %-10s %-10s\n", "SaleID", "ItemCode", "ItemName", "Qty", "Date", "ManagerID", "Amount"));
-                for (String[] s : salesList) {
-                    writer.write(String.format("%-10s %-10s %-18s %-8s %-12s %-10s %-10s\n",
-                        s[0], s[1], s[2], s[3], s[4], s[5], s[6]));
-                }
-                if (salesList.isEmpty()) writer.write("(None)\n");
-                writer.write("\n");
-                writer.write("==============================\n");
-                writer.write(String.format("Grand Total (Paid + Sales): RM %.2f\n", (totalPaid + totalSalesAmount)));
-                writer.write("End of Report\n");
-            }
+            String[] user = userId == null ? null : Record_Store.get("data/users_data.txt", userId);
+            if (user != null && user.length >= 2) userName = user[1];
+            // Single pass over payments and sales, written straight to the file
+            FinancialReportEngine_FM.export(reportFile, fromDate, toDate,
+                (userId != null ? userId : "") + (userName.isEmpty() ? "" : (" " + userName)));
             JOptionPane.showMessageDialog(this, "Report exported to: " + reportFile.getAbsolutePath(), "Export Successful", JOptionPane.INFORMATION_MESSAGE);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Failed to export report: " + ex.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
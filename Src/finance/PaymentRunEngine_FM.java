@@ -0,0 +1,207 @@
+import java.io.*;                                  // Run summary file output
+import java.text.SimpleDateFormat;                 // Timestamps and the age cut-off
+import java.util.ArrayList;
+import java.util.Calendar;                         // Age cut-off in days
+import java.util.Date;
+import java.util.Formatter;                        // Summary lines
+import java.util.LinkedHashSet;                    // Suppliers paid into one account
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;                          // Payments grouped by bank account, sorted
+import java.util.function.Predicate;              // Rules choosing the payments of a run
+
+/**
+ * PaymentRunEngine_FM - Pays many pending payments in one run
+ * A run marks every pending payment that matches its rule (selected IDs,
+ * one supplier, older than some days, or a combination) as paid. The whole
+ * run is a single atomic rewrite of payments_data.txt under the payments
+ * lock, so either every payment of the run is paid or none is, and paying
+ * thousands of payments costs one write instead of one per payment.
+ *
+ * Each run writes a summary to financial_reports/ with the payments grouped
+ * by the supplier bank account they are paid into.
+ */
+public class PaymentRunEngine_FM {
+
+    private static final String PAYMENTS_FILE = "data/payments_data.txt";
+    private static final String SUPPLIERS_FILE = "data/suppliers_data.txt";
+    private static final String REPORTS_DIR = "financial_reports";
+
+    private static final int SUPPLIER_COL = 3;
+    private static final int AMOUNT_COL = 4;
+    private static final int DATE_COL = 5;
+    private static final int BANK_COL = 10;
+    private static final int STATUS_COL = 11;
+
+    // Column layout of the payments listed under each bank account
+    private static final String PAYMENT_ROW = "  %-10s %-10s %-10s %-20s %12s\n";
+
+    /**
+     * The payments of one bank account in a run
+     */
+    public static final class BankGroup {
+        public final String bankAccount;
+        public final LinkedHashSet<String> suppliers = new LinkedHashSet<>();   // "SUP001 Name" of each payee
+        public final List<String[]> payments = new ArrayList<>();   // The payment records, as paid
+        public double total;
+
+        BankGroup(String bankAccount) {
+            this.bankAccount = bankAccount;
+        }
+    }
+
+    /**
+     * What a run paid (or, for a preview, would pay)
+     */
+    public static final class Run {
+        public int count;                   // Payments marked paid
+        public double total;                // Their amount
+        public final TreeMap<String, BankGroup> byBank = new TreeMap<>();
+        public File summary;                // The summary file, null if nothing was paid or it could not be written
+        public boolean written;             // false if the payments file could not be rewritten (nothing was paid)
+    }
+
+    /**
+     * Rule matching the given payment IDs
+     * @param paymentIds The selected payments
+     * @return The rule
+     */
+    public static Predicate<Csv_Codec.Row> selected(Set<String> paymentIds) {
+        return p -> paymentIds.contains(p.get(0));
+    }
+
+    /**
+     * Rule matching the payments of one supplier
+     * @param supplierId The supplier ID
+     * @return The rule
+     */
+    public static Predicate<Csv_Codec.Row> supplier(String supplierId) {
+        return p -> p.equals(SUPPLIER_COL, supplierId);
+    }
+
+    /**
+     * Rule matching payments created more than some days ago
+     * @param days The age in whole days (a payment from today is 0 days old)
+     * @return The rule
+     */
+    public static Predicate<Csv_Codec.Row> olderThan(int days) {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DATE, -days);
+        // Any time on the cut-off day sorts after the bare date, so only earlier days match
+        String cutoff = new SimpleDateFormat("yyyy-MM-dd").format(cal.getTime());
+        return p -> p.compareTo(DATE_COL, cutoff) < 0;
+    }
+
+    /**
+     * Counts what a run would pay, without writing anything
+     * @param rule Chooses among the pending payments
+     * @return The payments the rule matches now
+     */
+    public static Run preview(Predicate<Csv_Codec.Row> rule) {
+        Run run = new Run();
+        Record_Store.forEach(PAYMENTS_FILE, p -> {
+            if (isDue(p, rule)) add(run, p.toArray());
+        });
+        return run;
+    }
+
+    /**
+     * Marks every pending payment matching the rule as paid and writes the run summary
+     * @param rule Chooses among the pending payments
+     * @param generatedBy User shown in the summary's "Generated by" line
+     * @return What was paid
+     */
+    public static Run pay(Predicate<Csv_Codec.Row> rule, String generatedBy) {
+        Run run = new Run();
+        try (Lock_Manager.Held _ = Lock_Manager.lock(PAYMENTS_FILE)) {   // Nobody pays or adds payments meanwhile
+            ArrayList<String> lines = new ArrayList<>();
+            Csv_Codec.Row p = new Csv_Codec.Row();
+            for (String line : Record_Store.lines(PAYMENTS_FILE)) {
+                if (isDue(p.reset(line), rule)) {
+                    String[] payment = p.toArray();
+                    payment[STATUS_COL] = "paid";
+                    add(run, payment);
+                    line = Csv_Codec.join(payment);
+                }
+                lines.add(line);
+            }
+            if (run.count == 0) {
+                run.written = true;
+                return run;
+            }
+            run.written = File_Utils.rewrite(PAYMENTS_FILE, lines);   // The whole run, atomically
+        }
+        if (!run.written) return run;
+        try {
+            run.summary = writeSummary(run, generatedBy);
+        } catch (IOException e) {
+            System.out.println("⚠️ Error writing payment run summary: " + e.getMessage());  // Log error
+        }
+        return run;
+    }
+
+    // True if a payment is pending and the rule picks it
+    private static boolean isDue(Csv_Codec.Row p, Predicate<Csv_Codec.Row> rule) {
+        return p.size() > STATUS_COL && p.equalsIgnoreCase(STATUS_COL, "pending") && rule.test(p);
+    }
+
+    // Adds a payment to its bank account's group
+    private static void add(Run run, String[] payment) {
+        double amount = 0;
+        try { amount = Double.parseDouble(payment[AMOUNT_COL].trim()); } catch (NumberFormatException ignored) {}
+        BankGroup group = run.byBank.computeIfAbsent(bankOf(payment), BankGroup::new);
+        group.suppliers.add((payment[SUPPLIER_COL] + " " + payment[7]).trim());
+        group.payments.add(payment);
+        group.total += amount;
+        run.count++;
+        run.total += amount;
+    }
+
+    // The account a payment goes to: the one recorded with it, else the supplier's current one
+    private static String bankOf(String[] payment) {
+        String bank = payment[BANK_COL].trim();
+        if (!bank.isEmpty()) return bank;
+        String[] supplier = Record_Store.get(SUPPLIERS_FILE, payment[SUPPLIER_COL]);
+        if (supplier != null && supplier.length > 8 && !supplier[8].trim().isEmpty()) return supplier[8].trim();
+        return "(no bank account)";
+    }
+
+    // Writes the run summary, grouped by bank account
+    private static File writeSummary(Run run, String generatedBy) throws IOException {
+        File reportsDir = new File(REPORTS_DIR);
+        if (!reportsDir.exists()) reportsDir.mkdir();
+        Date now = new Date();
+        String stamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(now);
+        File file = new File(reportsDir, "PaymentRun_" + stamp + ".txt");
+        for (int n = 2; file.exists(); n++) {            // Several runs within one second
+            file = new File(reportsDir, "PaymentRun_" + stamp + "_" + n + ".txt");
+        }
+        try (Formatter out = new Formatter(new BufferedWriter(new FileWriter(file)))) {
+            out.format("==============================\n");
+            out.format("   Omega Wholesale Sdn Bhd (OWSB)\n");
+            out.format("==============================\n");
+            out.format("      PAYMENT RUN\n");
+            out.format("==============================\n");
+            out.format("Generated: %s\n", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(now));
+            out.format("Generated by: %s\n\n", generatedBy);
+            out.format("Payments Paid: %d\nTotal Paid: RM %.2f\nBank Accounts: %d\n\n", run.count, run.total, run.byBank.size());
+            for (BankGroup group : run.byBank.values()) {
+                out.format("------------------------------\n");
+                out.format("Bank Account: %s\n", group.bankAccount);
+                out.format("Supplier: %s\n", String.join(", ", group.suppliers));
+                out.format("Payments: %d   Amount: RM %.2f\n", group.payments.size(), group.total);
+                out.format("------------------------------\n");
+                out.format(PAYMENT_ROW, "PayID", "POID", "SuppID", "Date", "Amount");
+                for (String[] p : group.payments) {
+                    out.format(PAYMENT_ROW, p[0], p[1], p[SUPPLIER_COL], p[DATE_COL], p[AMOUNT_COL]);
+                }
+                out.format("\n");
+            }
+            out.format("==============================\n");
+            out.format("End of Payment Run\n");
+            out.flush();
+            if (out.ioException() != null) throw out.ioException();
+        }
+        return file;
+    }
+}
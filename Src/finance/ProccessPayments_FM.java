@@ -1,20 +1,19 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.io.*;
-import java.util.List;
 
 // Panel for Finance Manager to process and mark payments as paid
 public class ProccessPayments_FM extends JPanel {
     // Table for displaying payment records
     private final JTable paymentTable;
     // Table model for managing payment data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     // Search field for filtering payments
     private final JTextField searchField;
     // Dropdown for filtering by payment status
     private final JComboBox<String> statusFilter;
+    // Debounced search over the payments
+    private final Search_Controller search;
     // Column names for the payment table
     private static final String[] COLUMN_NAMES = {
         "PaymentID", "PO_Number", "ItemCode", "SupplierID", "TotalPrice", "Date", "VerifiedBy", "SupplierName", "SupplierPhone", "SupplierEmail", "SupplierBank", "Status"
@@ -58,12 +57,10 @@ public class ProccessPayments_FM extends JPanel {
         add(topPanel, BorderLayout.NORTH);
 
         // --- TABLE ---
-        tableModel = new DefaultTableModel(COLUMN_NAMES, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
+        tableModel = new Record_Table_Model(COLUMN_NAMES);
         paymentTable = new JTable(tableModel);
-        // Select whole row, not just cell
-        paymentTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Select whole rows, not just cells (several at once for a payment run)
+        paymentTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         paymentTable.setRowSelectionAllowed(true);
         paymentTable.setColumnSelectionAllowed(false);
         // Custom renderer for striped rows (green theme, with status coloring for Status column)
@@ -118,13 +115,10 @@ public class ProccessPayments_FM extends JPanel {
         add(scroll, BorderLayout.CENTER);
 
         // --- Listeners ---
-        Runnable updateTable = this::filterPayments;
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { updateTable.run(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { updateTable.run(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
-        statusFilter.addActionListener(_ -> updateTable.run());
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/payments_data.txt", _ -> true);
+        search.attach(searchField);
+        statusFilter.addActionListener(_ -> filterPayments());
 
         // --- BUTTONS PANEL ---
         JPanel btnPanel = new JPanel();
@@ -142,6 +136,12 @@ public class ProccessPayments_FM extends JPanel {
         payBtn.setFocusPainted(false);
         payBtn.setPreferredSize(new Dimension(160, 35));
         btnPanel.add(payBtn);
+        JButton runBtn = new JButton("Payment Run");
+        runBtn.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        runBtn.setBackground(new Color(200, 230, 255));
+        runBtn.setFocusPainted(false);
+        runBtn.setPreferredSize(new Dimension(160, 35));
+        btnPanel.add(runBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
         // --- VIEW PAYMENT LOGIC ---
@@ -209,74 +209,111 @@ public class ProccessPayments_FM extends JPanel {
                 JOptionPane.showMessageDialog(this, "Please select a payment to mark as paid.");
                 return;
             }
+            int[] rows = paymentTable.getSelectedRows();
+            if (rows.length > 1) {
+                // Several payments: pay them together as one run
+                java.util.Set<String> ids = new java.util.HashSet<>();
+                for (int r : rows) ids.add(tableModel.getValueAt(r, 0).toString());
+                confirmAndPay(PaymentRunEngine_FM.selected(ids), ids.size() + " selected payments");
+                return;
+            }
             String paymentId = tableModel.getValueAt(row, 0).toString();
-            List<String> lines = File_Utils.readLines("data/payments_data.txt");
-            boolean updated = false;
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter("data/payments_data.txt"))) {
-                for (String line : lines) {
-                    String[] parts = line.split(",", -1);
-                    if (parts.length > STATUS_COL && parts[0].equals(paymentId)) {
-                        parts[STATUS_COL] = "paid";
-                        writer.write(String.join(",", parts));
-                        updated = true;
-                    } else {
-                        writer.write(line);
-                    }
-                    writer.newLine();
+            Data_Worker.submit(this, () -> File_Utils.updateField("data/payments_data.txt", paymentId, STATUS_COL, "paid"), updated -> {
+                if (updated) {
+                    JOptionPane.showMessageDialog(this, "Payment marked as paid.");
+                    loadPayments();
+                } else {
+                    JOptionPane.showMessageDialog(this, "Payment not found or already paid.");
                 }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Failed to update payment: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                return;
+            });
+        });
+
+        // --- PAYMENT RUN LOGIC ---
+        // Pays every pending payment of a supplier and/or older than some days in one run
+        runBtn.addActionListener(_ -> Data_Worker.submit(this, () -> {   // Supplier list read off the EDT
+            java.util.List<String> supplierIds = new java.util.ArrayList<>();
+            supplierIds.add("All suppliers");
+            Record_Store.forEach("data/suppliers_data.txt", supplier -> {
+                if (supplier.size() > 0) supplierIds.add(supplier.get(0));
+            });
+            return supplierIds;
+        }, supplierIds -> {
+            JComboBox<String> supplierBox = new JComboBox<>(supplierIds.toArray(new String[0]));
+            JSpinner daysSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 3650, 1));
+
+            JPanel panel = new JPanel(new GridLayout(0, 1, 8, 8));
+            panel.add(new JLabel("Pay all pending payments of:"));
+            panel.add(supplierBox);
+            panel.add(new JLabel("Older than (days, 0 = any age):"));
+            panel.add(daysSpinner);
+            int result = JOptionPane.showConfirmDialog(this, panel, "Payment Run", JOptionPane.OK_CANCEL_OPTION);
+            if (result != JOptionPane.OK_OPTION) return;
+
+            String supplierId = (String) supplierBox.getSelectedItem();
+            int days = (Integer) daysSpinner.getValue();
+            java.util.function.Predicate<Csv_Codec.Row> rule = _ -> true;
+            String description = "all pending payments";
+            if (supplierId != null && supplierBox.getSelectedIndex() > 0) {
+                rule = rule.and(PaymentRunEngine_FM.supplier(supplierId));
+                description += " of " + supplierId;
             }
-            if (updated) {
-                JOptionPane.showMessageDialog(this, "Payment marked as paid.");
-                loadPayments();
-            } else {
-                JOptionPane.showMessageDialog(this, "Payment not found or already paid.");
+            if (days > 0) {
+                rule = rule.and(PaymentRunEngine_FM.olderThan(days));
+                description += " older than " + days + " days";
             }
-        });
+            confirmAndPay(rule, description);
+        }));
 
         // --- Initial load ---
         loadPayments();
     }
 
-    // Loads all payments from data/payments_data.txt into the table
-    private void loadPayments() {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/payments_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            Object[] row = new Object[COLUMN_NAMES.length];
-            for (int i = 0; i < COLUMN_NAMES.length; i++) {
-                row[i] = parts.length > i ? parts[i] : "";
+    // Counts what a payment run would pay off the EDT, then asks before paying it
+    private void confirmAndPay(java.util.function.Predicate<Csv_Codec.Row> rule, String description) {
+        Data_Worker.submit(this, () -> PaymentRunEngine_FM.preview(rule), preview -> {   // Preview read off the EDT
+            if (preview.count == 0) {
+                JOptionPane.showMessageDialog(this, "No pending payments match " + description + ".");
+                return;
             }
-            tableModel.addRow(row);
-        }
+            int confirm = JOptionPane.showConfirmDialog(this,
+                    String.format("Pay %d payment(s) totalling RM %.2f into %d bank account(s)?\n(%s)",
+                            preview.count, preview.total, preview.byBank.size(), description),
+                    "Confirm Payment Run", JOptionPane.OK_CANCEL_OPTION);
+            if (confirm == JOptionPane.OK_OPTION) pay(rule);
+        });
+    }
+
+    // Pays a run off the EDT and reports the summary
+    private void pay(java.util.function.Predicate<Csv_Codec.Row> rule) {
+        String userId = Session.getLoggedInUserId();
+        Data_Worker.submit(this, () -> {
+            String[] user = userId == null ? null : Record_Store.get("data/users_data.txt", userId);
+            String generatedBy = (userId != null ? userId : "") + (user != null && user.length >= 2 ? " " + user[1] : "");
+            return PaymentRunEngine_FM.pay(rule, generatedBy);
+        }, run -> {
+            if (!run.written) {
+                JOptionPane.showMessageDialog(this, "The payment run could not be saved; no payment was marked as paid.",
+                        "Payment Run", JOptionPane.ERROR_MESSAGE);
+            } else if (run.count == 0) {
+                JOptionPane.showMessageDialog(this, "The payments were already paid by someone else.");
+            } else {
+                JOptionPane.showMessageDialog(this, String.format("%d payment(s) marked as paid, RM %.2f.\n%s",
+                        run.count, run.total, run.summary != null
+                                ? "Summary saved to: " + run.summary.getPath()
+                                : "The run summary could not be written."));
+            }
+            loadPayments();
+        });
+    }
+
+    // Reloads the table, keeping the current search and status filter (the file is only re-read if it changed)
+    private void loadPayments() {
+        search.refresh();
     }
 
-    // Filters the payments table based on search and status filter
+    // Shows only the payments with the selected status
     private void filterPayments() {
-        String filter = searchField.getText().trim().toLowerCase();
         String statusFilterText = (String) statusFilter.getSelectedItem();
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/payments_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            Object[] row = new Object[COLUMN_NAMES.length];
-            for (int i = 0; i < COLUMN_NAMES.length; i++) {
-                row[i] = parts.length > i ? parts[i] : "";
-            }
-            boolean match = filter.isEmpty();
-            if (!match) {
-                for (Object part : row) {
-                    if (part != null && part.toString().toLowerCase().contains(filter)) {
-                        match = true;
-                        break;
-                    }
-                }
-            }
-            boolean statusMatch = statusFilterText == null || statusFilterText.equals("All") || row[STATUS_COL].toString().equalsIgnoreCase(statusFilterText);
-            if (match && statusMatch) tableModel.addRow(row);
-        }
+        search.setScope(row -> statusFilterText == null || statusFilterText.equals("All") || row.equalsIgnoreCase(STATUS_COL, statusFilterText));
     }
 } 
\ No newline at end of file
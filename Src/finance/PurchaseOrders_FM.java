@@ -1,5 +1,4 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.util.List;
@@ -11,9 +10,11 @@ public class PurchaseOrders_FM extends JPanel {
     // Table displaying purchase orders
     private final JTable ordersTable;
     // Table model for managing order data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     // Search field for filtering purchase orders
     private final JTextField searchField;
+    // Debounced search over the loaded orders
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public PurchaseOrders_FM() {
@@ -53,9 +54,7 @@ public class PurchaseOrders_FM extends JPanel {
 
         // --- TABLE: Shows purchase order data ---
         String[] columnNames = {"POID", "RequisitionID", "ItemCode", "ItemName", "Quantity", "Purchase Price", "RequiredBy", "SupplierID", "ManagerID", "Date", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        tableModel = new Record_Table_Model(columnNames);
 
         // Custom renderer for striped rows (green theme, with pill status coloring)
         class GreenStripedRowRenderer extends DefaultTableCellRenderer {
@@ -124,20 +123,14 @@ public class PurchaseOrders_FM extends JPanel {
         btnPanel.add(approveBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
-        // Load initial orders into the table
-        loadOrders("", "All");
-
         // --- Search and status filter listeners ---
-        Runnable updateTable = () -> loadOrders(
-            searchField.getText().trim().toLowerCase(),
-            Objects.requireNonNull(statusFilter.getSelectedItem()).toString()
-        );
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { updateTable.run(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { updateTable.run(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
-        statusFilter.addActionListener(_ -> updateTable.run());
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/purchase_orders_data.txt", 11);
+        search.attach(searchField);
+        statusFilter.addActionListener(_ -> loadOrders(Objects.requireNonNull(statusFilter.getSelectedItem()).toString()));
+
+        // Load initial orders into the table
+        loadOrders("All");
 
         // --- Approve/Reject button handler ---
         approveBtn.addActionListener(_ -> {
@@ -146,7 +139,8 @@ public class PurchaseOrders_FM extends JPanel {
                 JOptionPane.showMessageDialog(null, "Please select a purchase order first.");
                 return;
             }
-            // Gather original order data
+            // Gather original order data, and the version it was shown at for the compare-and-set below
+            long seenVersion = tableModel.version();
             String[] original = new String[11];
             for (int i = 0; i < 11; i++) original[i] = (String) tableModel.getValueAt(row, i);
 
@@ -154,7 +148,7 @@ public class PurchaseOrders_FM extends JPanel {
             List<String> supplierLines = File_Utils.readLines("data/suppliers_data.txt");
             List<String> supplierIds = new ArrayList<>();
             for (String line : supplierLines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length > 0) supplierIds.add(parts[0]);
             }
             JComboBox<String> supplierIdBox = new JComboBox<>(supplierIds.toArray(new String[0]));
@@ -178,23 +172,21 @@ public class PurchaseOrders_FM extends JPanel {
                 String newStatus = ((String) Objects.requireNonNull(statusBox.getSelectedItem())).trim();
                 String newSupplierId = (String) supplierIdBox.getSelectedItem();
 
-                // Update data/purchase_orders_data.txt
-                List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-                List<String> updated = new ArrayList<>();
-                for (String line : lines) {
-                    String[] parts = line.split(",", -1);
-                    if (parts.length >= 11 && parts[0].equals(original[0])) {
-                        parts[4] = newQuantity;
-                        parts[7] = newSupplierId; // Update supplier ID
-                        parts[10] = newStatus.toLowerCase();
-                        updated.add(String.join(",", parts));
-                    } else {
-                        updated.add(line);
+                // Update data/purchase_orders_data.txt (quantity, supplier and status in one log entry),
+                // unless someone else changed this PO while the dialog was open
+                Data_Worker.submit(this, () -> File_Utils.compareAndSet("data/purchase_orders_data.txt", original[0], seenVersion,
+                        new int[]{4, 7, 10},
+                        new String[]{newQuantity, newSupplierId, newStatus.toLowerCase()}), result -> {
+                    switch (result) {
+                        case APPLIED -> JOptionPane.showMessageDialog(null, "Purchase order updated successfully!");
+                        case CONFLICT -> JOptionPane.showMessageDialog(null,
+                                "This purchase order was changed by someone else in the meantime.\nThe list has been refreshed; please check it and try again.",
+                                "Purchase Order Changed", JOptionPane.WARNING_MESSAGE);
+                        case MISSING -> JOptionPane.showMessageDialog(null, "❌ Purchase order " + original[0] + " no longer exists.");
+                        case FAILED -> JOptionPane.showMessageDialog(null, "❌ Failed to update purchase order " + original[0] + ".");
                     }
-                }
-                File_Utils.writeLines("data/purchase_orders_data.txt", new ArrayList<>(updated));
-                JOptionPane.showMessageDialog(null, "Purchase order updated successfully!");
-                loadOrders(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem());
+                    search.refresh();
+                });
             }
         });
     }
@@ -205,25 +197,8 @@ public class PurchaseOrders_FM extends JPanel {
         return s.substring(0, 1).toUpperCase() + s.substring(1).toLowerCase();
     }
 
-    // Loads and displays purchase orders from file, applying search and status filters
-    private void loadOrders(String filter, String statusFilter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 11) {
-                boolean match = filter.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                boolean statusMatch = statusFilter == null || statusFilter.equals("All") || parts[10].equalsIgnoreCase(statusFilter);
-                if (match && statusMatch) tableModel.addRow(parts);
-            }
-        }
+    // Shows only the purchase orders with the given status ("All" for every order)
+    private void loadOrders(String statusFilter) {
+        search.setScope(row -> statusFilter == null || statusFilter.equals("All") || row.equalsIgnoreCase(10, statusFilter));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;                          // Prices, suppliers and receipts looked up by key
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * ThreeWayMatchEngine_FM - Verifies many delivered purchase orders at once
+ * Each PO is matched three ways before it is paid:
+ *   - ordered against delivered: the units booked against it in the
+ *     Stock_Ledger (deliveries carry the PO number) must equal the units
+ *     ordered. A PO with no delivery in the ledger at all (received before
+ *     the ledger existed) has an unknown delivery and, as when verifying a
+ *     single PO, is not held up by it
+ *   - ordered against invoiced: the PO total must equal the item's
+ *     purchase price times the quantity, which is what the payment is for
+ *   - nothing paid yet: no payment may already exist for the PO (looked
+ *     up through the index on the payments' PO column)
+ * The matching runs in parallel over a batch, against lookups built with
+ * one scan of the items and suppliers tables and the ledger's delivery
+ * totals. POs that match are marked verified and get their pending
+ * payment; the payment IDs come from one Id_Allocator block and all
+ * payments are appended in one write. POs that do not match are flagged
+ * with the reasons and left as they are.
+ */
+public class ThreeWayMatchEngine_FM {
+
+    private static final String PO_FILE = "data/purchase_orders_data.txt";
+    private static final String PAYMENTS_FILE = "data/payments_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+    private static final String SUPPLIERS_FILE = "data/suppliers_data.txt";
+
+    // Largest difference between the PO total and price x quantity still counted as equal
+    private static final double PRICE_TOLERANCE = 0.005;
+
+    /**
+     * What happened to one purchase order
+     */
+    public enum Outcome {
+        VERIFIED,       // Matched; the PO is verified and a pending payment recorded
+        FLAGGED,        // Quantities or prices do not match (see detail); nothing written
+        SKIPPED,        // Not verifiable now (not delivered, changed meanwhile); nothing written
+        FAILED          // The batch could not be written
+    }
+
+    /**
+     * The result for one purchase order of a batch
+     */
+    public static final class Result {
+        public final String poNumber;
+        public final Outcome outcome;
+        public final String paymentId;  // The new payment, or "" if none was recorded
+        public final String detail;     // Amount paid, or the mismatches / reason
+
+        Result(String poNumber, Outcome outcome, String paymentId, String detail) {
+            this.poNumber = poNumber;
+            this.outcome = outcome;
+            this.paymentId = paymentId;
+            this.detail = detail;
+        }
+    }
+
+    /**
+     * Matches and verifies a batch of delivered purchase orders
+     * @param poNumbers The purchase orders (duplicates are ignored)
+     * @param seenVersion Version of the PO list they were picked from
+     *                    (Record_Table_Model.version()); a PO changed after it is skipped
+     * @return One result per purchase order, in the order given
+     */
+    public static List<Result> verify(List<String> poNumbers, long seenVersion) {
+        List<String> numbers = new ArrayList<>(new LinkedHashSet<>(poNumbers));
+        String verifiedBy = Session.getLoggedInUserId() == null ? "" : Session.getLoggedInUserId();
+
+        // Lookups shared by all matches: one scan per table, payments by PO through the index
+        List<String[]> orders = new ArrayList<>();
+        HashSet<String> paid = new HashSet<>();
+        for (String poNumber : numbers) {
+            orders.add(Record_Store.get(PO_FILE, poNumber));
+            if (isPaid(poNumber)) paid.add(poNumber);
+        }
+        HashMap<String, Double> prices = new HashMap<>();
+        Record_Store.forEach(ITEMS_FILE, item -> {
+            if (item.size() <= 5) return;
+            try { prices.putIfAbsent(item.get(0), item.parseDouble(5)); } catch (NumberFormatException ignored) {}
+        });
+        HashMap<String, String[]> suppliers = new HashMap<>();
+        Record_Store.forEach(SUPPLIERS_FILE, supplier -> {
+            if (supplier.size() > 0) suppliers.putIfAbsent(supplier.get(0), supplier.toArray());
+        });
+        HashMap<String, Integer> delivered = Stock_Ledger.totalsFor(Stock_Ledger.Kind.DELIVERY, new HashSet<>(numbers));
+
+        // Match every PO in parallel; each task only reads the lookups above
+        Result[] results = new Result[numbers.size()];
+        String[] payments = new String[numbers.size()];   // Payment line (without ID) per matched PO
+        String date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        java.util.stream.IntStream.range(0, numbers.size()).parallel().forEach(i -> {
+            String[] po = orders.get(i);
+            String poNumber = numbers.get(i);
+            if (po == null || po.length < 11) {
+                results[i] = new Result(poNumber, Outcome.SKIPPED, "", "No such purchase order");
+                return;
+            }
+            if (!po[10].trim().equalsIgnoreCase("delivered")) {
+                results[i] = new Result(poNumber, Outcome.SKIPPED, "", "Status is " + po[10].trim());
+                return;
+            }
+            List<String> mismatches = new ArrayList<>();
+            int ordered = -1;
+            double total = -1;
+            try { ordered = Integer.parseInt(po[4].trim()); } catch (NumberFormatException ignored) {}
+            try { total = Double.parseDouble(po[5].trim()); } catch (NumberFormatException ignored) {}
+            Integer received = delivered.get(poNumber);   // null: delivered before the ledger, quantity unknown
+            Double price = prices.get(po[2]);
+            if (ordered < 0) mismatches.add("ordered quantity " + po[4] + " is not a number");
+            else if (received != null && received != ordered) mismatches.add("ordered " + ordered + " but " + received + " delivered");
+            if (total < 0) mismatches.add("total " + po[5] + " is not an amount");
+            else if (price == null) mismatches.add("no purchase price for item " + po[2]);
+            else if (ordered >= 0 && Math.abs(price * ordered - total) > PRICE_TOLERANCE) {
+                mismatches.add(String.format("total %.2f but %d x %.2f = %.2f", total, ordered, price, price * ordered));
+            }
+            if (paid.contains(poNumber)) mismatches.add("a payment is already recorded");
+            String[] supplier = suppliers.get(po[7]);
+            if (supplier == null) mismatches.add("unknown supplier " + po[7]);
+            if (!mismatches.isEmpty()) {
+                results[i] = new Result(poNumber, Outcome.FLAGGED, "", String.join("; ", mismatches));
+                return;
+            }
+            payments[i] = Csv_Codec.join(poNumber, po[2], po[7], po[5], date, verifiedBy,
+                    field(supplier, 1), field(supplier, 2), field(supplier, 7), field(supplier, 8), "pending");
+        });
+
+        // Write the matched POs: recheck them under the locks, then one append and one log write
+        long ticket = 0;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(PO_FILE, PAYMENTS_FILE)) {
+            Record_Store.refresh(PAYMENTS_FILE);        // Pick up outside edits before the append is stamped
+            List<Integer> matched = new ArrayList<>();
+            for (int i = 0; i < numbers.size(); i++) {
+                if (payments[i] == null) continue;
+                String poNumber = numbers.get(i);
+                String[] po = Record_Store.get(PO_FILE, poNumber);
+                if (po == null || po.length < 11 || !po[10].trim().equalsIgnoreCase("delivered")
+                        || Record_Store.recordVersion(PO_FILE, poNumber) > seenVersion) {
+                    results[i] = new Result(poNumber, Outcome.SKIPPED, "", "Changed by someone else since it was listed");
+                } else if (isPaid(poNumber)) {
+                    results[i] = new Result(poNumber, Outcome.SKIPPED, "", "A payment was recorded meanwhile");
+                } else {
+                    matched.add(i);
+                }
+            }
+            if (!matched.isEmpty()) {
+                String[] paymentIds = Id_Allocator.reserve(PAYMENTS_FILE, "PAY", matched.size());   // One sequence update
+                List<String> lines = new ArrayList<>();
+                List<String> verified = new ArrayList<>();
+                List<String[]> statuses = new ArrayList<>();
+                for (int k = 0; k < matched.size(); k++) {
+                    int i = matched.get(k);
+                    lines.add(paymentIds[k] + "," + payments[i]);
+                    verified.add(numbers.get(i));
+                    statuses.add(new String[]{"verified"});
+                }
+                try {
+                    // Payments first: a PO left delivered by a crash is flagged as paid next time
+                    ticket = Durable_Writer.append(PAYMENTS_FILE, lines);
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error recording payments: " + e.getMessage());  // Log error
+                    for (int i : matched) results[i] = new Result(numbers.get(i), Outcome.FAILED, "", "Could not write the payments");
+                    return List.of(results);
+                }
+                for (String line : lines) Record_Store.appended(PAYMENTS_FILE, line);
+                String note = "";
+                try {
+                    ticket = Math.max(ticket, Change_Log.append(PO_FILE, verified, new int[]{10}, statuses));
+                    for (String poNumber : verified) Record_Store.applied(PO_FILE, poNumber, new int[]{10}, new String[]{"verified"});
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error marking purchase orders verified: " + e.getMessage());  // Log error
+                    note = " (PO not marked verified)";
+                }
+                for (int k = 0; k < matched.size(); k++) {
+                    int i = matched.get(k);
+                    String unchecked = delivered.containsKey(numbers.get(i)) ? "" : " (delivery not in the stock ledger, quantity not checked)";
+                    results[i] = new Result(numbers.get(i), Outcome.VERIFIED, paymentIds[k], "RM " + orders.get(i)[5] + note + unchecked);
+                }
+            }
+        }
+        if (ticket > 0) {
+            try {
+                Durable_Writer.awaitDurable(ticket);    // One sync for the payments and the PO statuses
+            } catch (IOException e) {
+                System.out.println("⚠️ Error syncing payments");  // Log error
+            }
+        }
+        return List.of(results);
+    }
+
+    // Whether a PO already has a payment (index lookup on the PO column)
+    private static boolean isPaid(String poNumber) {
+        return !Record_Store.findBy(PAYMENTS_FILE, 1, poNumber).isEmpty();
+    }
+
+    // A field of a record, or "" if it is missing
+    private static String field(String[] record, int index) {
+        return record != null && record.length > index ? record[index] : "";
+    }
+}
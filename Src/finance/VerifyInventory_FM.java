@@ -1,18 +1,17 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 
 // Panel for Finance Manager to verify delivered purchase orders and record payments
 public class VerifyInventory_FM extends JPanel {
     // Table model for displaying purchase orders
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     // Search field for filtering purchase orders
     private final JTextField searchField;
+    // Debounced search over the delivered purchase orders
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public VerifyInventory_FM() {
@@ -46,7 +45,9 @@ public class VerifyInventory_FM extends JPanel {
 
         // --- TABLE: Shows delivered purchase orders ---
         String[] columnNames = {"PONumber", "PRNumber", "ItemCode", "ItemName", "Quantity", "TotalPrice", "OrderDate1", "SupplierID", "OWNUM", "OrderDate2", "Status", "Verify"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        // Columns 0-10 show the PO fields; the Verify column has no field behind it
+        tableModel = new Record_Table_Model(columnNames, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, -1}) {
+            @Override
             public boolean isCellEditable(int row, int column) {
                 return column == 11; // Only the Verify button is editable
             }
@@ -89,6 +90,20 @@ public class VerifyInventory_FM extends JPanel {
         scroll.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         add(scroll, BorderLayout.CENTER);
 
+        // --- BUTTON PANEL: three-way match over many POs ---
+        JButton verifyAllBtn = new JButton("Verify Batch");
+        verifyAllBtn.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        verifyAllBtn.setBackground(new Color(255, 245, 220));
+        verifyAllBtn.setFocusPainted(false);
+        verifyAllBtn.setPreferredSize(new Dimension(200, 35));
+        verifyAllBtn.setToolTipText("Matches the selected POs (or all shown) against deliveries and prices, and records their payments");
+        JPanel btnPanel = new JPanel();
+        btnPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        btnPanel.setBackground(new Color(240, 255, 240));
+        btnPanel.add(verifyAllBtn);
+        add(btnPanel, BorderLayout.SOUTH);
+        verifyAllBtn.addActionListener(_ -> verifyBatch(poTable));
+
         // Add Verify button as a cell editor and renderer
         poTable.getColumnModel().getColumn(11).setCellEditor(new DefaultCellEditor(new JCheckBox()) {
             @Override
@@ -110,59 +125,66 @@ public class VerifyInventory_FM extends JPanel {
             }
         });
 
-        // Search listener to filter purchase orders as user types
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { loadPOs(searchField.getText().trim().toLowerCase()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { loadPOs(searchField.getText().trim().toLowerCase()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // Search an in-memory copy of the delivered purchase orders, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/purchase_orders_data.txt", record -> record.equalsIgnoreCase(10, "delivered"));
+        search.attach(searchField);
 
         // Initial load of delivered purchase orders
-        loadPOs("");
+        loadPOs();
     }
 
-    // Loads and displays delivered purchase orders, applying search filter if provided
-    private void loadPOs(String filter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 11) {
-                String status = parts[10].toLowerCase();
-                if (!status.equals("delivered")) continue;
-                boolean match = filter.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                if (match) {
-                    Object[] row = new Object[12];
-                    System.arraycopy(parts, 0, row, 0, 11);
-                    row[11] = "Verify";
-                    tableModel.addRow(row);
-                }
-            }
+    // Reloads the delivered purchase orders, keeping the current search
+    private void loadPOs() {
+        search.refresh();
+    }
+
+    // Verifies the selected POs, or every one the search shows, in one three-way-match batch
+    private void verifyBatch(JTable poTable) {
+        int[] rows = poTable.getSelectedRows();
+        if (rows.length == 0) {
+            rows = new int[tableModel.getRowCount()];
+            for (int i = 0; i < rows.length; i++) rows[i] = i;
+        }
+        if (rows.length == 0) {
+            JOptionPane.showMessageDialog(this, "There are no delivered purchase orders to verify.");
+            return;
         }
+        java.util.List<String> poNumbers = new java.util.ArrayList<>();
+        for (int r : rows) poNumbers.add((String) tableModel.getValueAt(r, 0));
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Match " + poNumbers.size() + " purchase order(s) against their deliveries and prices,\n"
+                        + "and record payments for the ones that match?",
+                "Verify Batch", JOptionPane.OK_CANCEL_OPTION);
+        if (confirm != JOptionPane.OK_OPTION) return;
+        long seenVersion = tableModel.version();   // The POs must still be as shown
+
+        Data_Worker.submit(this, () -> ThreeWayMatchEngine_FM.verify(poNumbers, seenVersion), results -> {
+            javax.swing.table.DefaultTableModel model = new javax.swing.table.DefaultTableModel(
+                    new String[]{"PONumber", "Outcome", "PaymentID", "Amount / Mismatch"}, 0);
+            int verified = 0, flagged = 0;
+            for (ThreeWayMatchEngine_FM.Result r : results) {
+                if (r.outcome == ThreeWayMatchEngine_FM.Outcome.VERIFIED) verified++;
+                if (r.outcome == ThreeWayMatchEngine_FM.Outcome.FLAGGED) flagged++;
+                model.addRow(new Object[]{r.poNumber, r.outcome, r.paymentId, r.detail});
+            }
+            JTable table = new JTable(model);
+            table.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+            table.setRowHeight(22);
+            table.getColumnModel().getColumn(3).setPreferredWidth(380);
+            JScrollPane scrollPane = new JScrollPane(table);
+            scrollPane.setPreferredSize(new Dimension(700, 400));
+            JPanel panel = new JPanel(new BorderLayout(0, 8));
+            panel.add(new JLabel(verified + " verified with payments recorded, " + flagged + " flagged for review, "
+                    + (results.size() - verified - flagged) + " skipped."), BorderLayout.NORTH);
+            panel.add(scrollPane, BorderLayout.CENTER);
+            JOptionPane.showMessageDialog(this, panel, "Verify Batch Results", JOptionPane.PLAIN_MESSAGE);
+            loadPOs();
+        });
     }
 
     // Generates the next Payment ID in the format PAY###
     private String generateNextPaymentId() {
-        List<String> lines = File_Utils.readLines("data/payments_data.txt");
-        int max = 0;
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length > 0 && parts[0].startsWith("PAY")) {
-                try {
-                    int num = Integer.parseInt(parts[0].substring(3));
-                    if (num > max) max = num;
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("PAY%03d", max + 1);
+        return Id_Allocator.next("data/payments_data.txt", "PAY");   // Persisted sequence, no table scan
     }
 
     // Handles verification of a delivered purchase order and records payment
@@ -173,56 +195,47 @@ public class VerifyInventory_FM extends JPanel {
         String itemCode = (String) tableModel.getValueAt(row, 2);
         String date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
         String verifiedBy = Session.getLoggedInUserId();
-        String paymentId = generateNextPaymentId();
-
-        // Fetch supplier infos (supplier name, phone, email, bank account) from data/suppliers_data.txt
-        String supplierName = "", supplierPhone = "", supplierEmail = "", supplierBank = "";
-        List<String> supplierLines = File_Utils.readLines("data/suppliers_data.txt");
-        for (String line : supplierLines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length > 0 && parts[0].equals(supplierId)) {
-                if (parts.length > 1) supplierName = parts[1];
-                if (parts.length > 2) supplierPhone = parts[2];
-                if (parts.length > 7) supplierEmail = parts[7];
-                if (parts.length > 8) supplierBank = parts[8];
-                break;
+        long seenVersion = tableModel.version();   // The PO must still be as shown (delivered)
+
+        Data_Worker.submit(this, () -> {   // Reads and writes off the EDT
+            // A PO is paid once: check the payments recorded for it through the index on the PO column.
+            // One that already has a payment is only marked verified, so it does not stay delivered for good
+            boolean alreadyPaid = !Record_Store.findBy("data/payments_data.txt", 1, poNumber).isEmpty();
+            // Fetch supplier infos (supplier name, phone, email, bank account) from data/suppliers_data.txt
+            String supplierName = "", supplierPhone = "", supplierEmail = "", supplierBank = "";
+            String[] supplier = Record_Store.get("data/suppliers_data.txt", supplierId);
+            if (supplier != null) {
+                if (supplier.length > 1) supplierName = supplier[1];
+                if (supplier.length > 2) supplierPhone = supplier[2];
+                if (supplier.length > 7) supplierEmail = supplier[7];
+                if (supplier.length > 8) supplierBank = supplier[8];
             }
-        }
 
-        // Update data/purchase_orders_data.txt to mark as verified
-        List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-        try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter("data/purchase_orders_data.txt"));
-            for (String line : lines) {
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 11 && parts[0].equals(poNumber)) {
-                    parts[10] = "verified";
-                    writer.write(String.join(",", parts));
-                } else {
-                    writer.write(line);
-                }
-                writer.newLine();
+            // Mark the PO as verified in data/purchase_orders_data.txt (logged, no full rewrite),
+            // unless someone changed it since it was shown
+            File_Utils.Update result = File_Utils.compareAndSet("data/purchase_orders_data.txt", poNumber, seenVersion,
+                    new int[]{10}, new String[]{"verified"});
+            if (result == File_Utils.Update.CONFLICT) {
+                throw new IllegalStateException("PO " + poNumber + " was changed by someone else in the meantime. Please check it and try again.");
             }
-            writer.close();
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Failed to update PO: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+            if (result != File_Utils.Update.APPLIED) {
+                throw new IllegalStateException("Failed to update PO: " + poNumber);
+            }
+            if (alreadyPaid) {
+                return "PO verified. A payment was already recorded for it, so no new payment was added.";
+            }
+            String paymentId = generateNextPaymentId();
 
-        // Add payment record (now including supplier infos)
-        try (BufferedWriter payWriter = new BufferedWriter(new FileWriter("data/payments_data.txt", true))) {
-            String paymentLine = String.join(",",
+            // Add payment record (now including supplier infos)
+            String paymentLine = Csv_Codec.join(
                 paymentId, poNumber, itemCode, supplierId, totalPrice, date, verifiedBy,
                 supplierName, supplierPhone, supplierEmail, supplierBank
             ) + ",pending";
-            payWriter.write(paymentLine);
-            payWriter.newLine();
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Failed to record payment: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        JOptionPane.showMessageDialog(this, "PO verified and payment recorded.");
-        loadPOs(searchField.getText().trim().toLowerCase());
+            File_Utils.appendLine("data/payments_data.txt", paymentLine);
+            return "PO verified and payment recorded.";
+        }, message -> {
+            JOptionPane.showMessageDialog(this, message);
+            loadPOs();
+        });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;                          // Units received so far per PO
+import java.util.HashSet;
+import java.util.LinkedHashSet;                    // POs of a session in the order they were added
+import java.util.List;
+
+/**
+ * GoodsReceiptEngine_IM - Receives the goods of many purchase orders in one go
+ * A receiving session collects approved purchase orders (selected in the
+ * list or scanned one after another) together with the units that actually
+ * arrived, which may be less than ordered. Committing the session books
+ * every delivery at once: one append of all the movements to the
+ * Stock_Ledger, one Change_Log write of all the new stock figures and one
+ * of all the PO status changes, under the items, ledger and PO locks.
+ *
+ * What a PO received so far is the sum of its delivery movements in the
+ * ledger (they carry the PO number as their reference). A PO becomes
+ * "delivered" once that covers the ordered quantity; until then it stays
+ * approved and can be received again in a later session. Stock_Ledger keeps
+ * those sums in memory and only reads the movements appended since it was
+ * last asked, so opening a session pays for any catching up outside the
+ * locks and the check repeated under them reads just the ledger's tail.
+ */
+public class GoodsReceiptEngine_IM {
+
+    private static final String PO_FILE = "data/purchase_orders_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+
+    /**
+     * One purchase order in a receiving session
+     */
+    public static final class Line {
+        public final String poNumber;
+        public final String itemCode;
+        public final String itemName;
+        public final int ordered;           // Units on the PO
+        public final int receivedBefore;    // Units booked against it by earlier receipts
+        public int receiving;               // Units arriving now (defaults to the rest of the order)
+        final long seenVersion;             // The PO must not change after this version
+
+        Line(String poNumber, String itemCode, String itemName, int ordered, int receivedBefore, long seenVersion) {
+            this.poNumber = poNumber;
+            this.itemCode = itemCode;
+            this.itemName = itemName;
+            this.ordered = ordered;
+            this.receivedBefore = receivedBefore;
+            this.receiving = Math.max(0, ordered - receivedBefore);
+            this.seenVersion = seenVersion;
+        }
+
+        // Units still to come before this receipt
+        public int outstanding() {
+            return Math.max(0, ordered - receivedBefore);
+        }
+    }
+
+    /**
+     * What happened to one purchase order when a session was committed
+     */
+    public enum Outcome {
+        DELIVERED,      // Stock booked and the PO is now fully delivered
+        PARTIAL,        // Stock booked, the PO stays open for the rest
+        SKIPPED,        // Nothing booked (see detail)
+        FAILED          // The session could not be written
+    }
+
+    /**
+     * The result for one purchase order of a committed session
+     */
+    public static final class Result {
+        public final String poNumber;
+        public final Outcome outcome;
+        public final String detail;
+
+        Result(String poNumber, Outcome outcome, String detail) {
+            this.poNumber = poNumber;
+            this.outcome = outcome;
+            this.detail = detail;
+        }
+    }
+
+    /**
+     * Starts session lines for purchase orders, reading what each has received so far
+     * @param poNumbers The purchase orders (duplicates are ignored)
+     * @param seenVersion Version of the PO list the orders were picked from
+     *                    (Record_Table_Model.version()); a PO changed after it is not received
+     * @param problems Receives one message per PO that cannot be received
+     * @return One line per approved purchase order, in the order given
+     */
+    public static List<Line> open(List<String> poNumbers, long seenVersion, List<String> problems) {
+        List<String[]> orders = new ArrayList<>();
+        HashSet<String> numbers = new HashSet<>();
+        for (String poNumber : new LinkedHashSet<>(poNumbers)) {
+            String[] po = Record_Store.get(PO_FILE, poNumber);
+            if (po == null || po.length < 11) {
+                problems.add(poNumber + ": no such purchase order");
+            } else if (!po[10].trim().equalsIgnoreCase("approved")) {
+                problems.add(poNumber + ": status is " + po[10].trim() + ", only approved orders can be received");
+            } else {
+                orders.add(po);
+                numbers.add(poNumber);
+            }
+        }
+        HashMap<String, Integer> received = Stock_Ledger.totalsFor(Stock_Ledger.Kind.DELIVERY, numbers);   // Catches up outside the locks
+        List<Line> lines = new ArrayList<>();
+        for (String[] po : orders) {
+            int ordered;
+            try {
+                ordered = Integer.parseInt(po[4].trim());
+            } catch (NumberFormatException e) {
+                problems.add(po[0] + ": ordered quantity " + po[4] + " is not a number");
+                continue;
+            }
+            lines.add(new Line(po[0], po[2], po[3], ordered, received.getOrDefault(po[0], 0), seenVersion));
+        }
+        return lines;
+    }
+
+    /**
+     * Books the units of every session line as delivered, in one write per file
+     * @param lines The session, with the units received per PO
+     * @return One result per line, in the same order
+     */
+    public static List<Result> commit(List<Line> lines) {
+        Result[] results = new Result[lines.size()];
+        long ticket = 0;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, Stock_Ledger.LEDGER_FILE, PO_FILE)) {
+            // Earlier receipts again, now that no other session can add to them (reads only the movements since open)
+            HashSet<String> numbers = new HashSet<>();
+            for (Line line : lines) numbers.add(line.poNumber);
+            HashMap<String, Integer> received = Stock_Ledger.totalsFor(Stock_Ledger.Kind.DELIVERY, numbers);
+
+            List<Integer> booked = new ArrayList<>();       // Indexes of the lines that move stock
+            List<String> itemCodes = new ArrayList<>();
+            List<String> references = new ArrayList<>();
+            List<String> delivered = new ArrayList<>();     // POs now fully received
+            HashSet<String> seen = new HashSet<>();
+            for (int i = 0; i < lines.size(); i++) {
+                Line line = lines.get(i);
+                String[] po = Record_Store.get(PO_FILE, line.poNumber);
+                int before = received.getOrDefault(line.poNumber, 0);
+                String reason = null;
+                if (!seen.add(line.poNumber)) {
+                    reason = "Listed twice in this session";
+                } else if (po == null || po.length < 11) {
+                    reason = "No such purchase order";
+                } else if (Record_Store.recordVersion(PO_FILE, line.poNumber) > line.seenVersion) {
+                    reason = "Changed by someone else since it was listed";
+                } else if (!po[10].trim().equalsIgnoreCase("approved")) {
+                    reason = "Status is " + po[10].trim();
+                } else if (!Record_Store.contains(ITEMS_FILE, line.itemCode)) {
+                    reason = "Unknown item " + line.itemCode;
+                } else if (line.receiving == 0 && before >= line.ordered) {
+                    // Everything arrived earlier but the PO was never closed: close it now
+                    delivered.add(line.poNumber);
+                    results[i] = new Result(line.poNumber, Outcome.DELIVERED, "Already fully received, order closed");
+                    continue;
+                } else if (line.receiving <= 0) {
+                    reason = "No units received";
+                } else if (before + line.receiving > line.ordered) {
+                    reason = "Only " + Math.max(0, line.ordered - before) + " of " + line.ordered + " units are outstanding";
+                }
+                if (reason != null) {
+                    results[i] = new Result(line.poNumber, Outcome.SKIPPED, reason);
+                    continue;
+                }
+                booked.add(i);
+                itemCodes.add(line.itemCode);
+                references.add(line.poNumber);
+                boolean complete = before + line.receiving == line.ordered;
+                if (complete) delivered.add(line.poNumber);
+                results[i] = new Result(line.poNumber, complete ? Outcome.DELIVERED : Outcome.PARTIAL,
+                        complete ? line.receiving + " units, order complete"
+                                 : line.receiving + " units, " + (line.ordered - before - line.receiving) + " still outstanding");
+            }
+
+            int[] deltas = new int[booked.size()];
+            for (int k = 0; k < deltas.length; k++) deltas[k] = lines.get(booked.get(k)).receiving;
+            try {
+                // Movements and stock first: a PO is never delivered without its stock
+                ticket = Stock_Ledger.moveAll(Stock_Ledger.Kind.DELIVERY, itemCodes, deltas, references);
+            } catch (IOException e) {
+                System.out.println("⚠️ Error booking goods receipt: " + e.getMessage());  // Log error
+                for (int i : booked) results[i] = new Result(lines.get(i).poNumber, Outcome.FAILED, "Could not write the receipt");
+                return List.of(results);
+            }
+            List<String[]> statuses = new ArrayList<>();
+            for (int k = 0; k < delivered.size(); k++) statuses.add(new String[]{"delivered"});
+            try {
+                ticket = Math.max(ticket, Change_Log.append(PO_FILE, delivered, new int[]{10}, statuses));
+                for (String poNumber : delivered) Record_Store.applied(PO_FILE, poNumber, new int[]{10}, new String[]{"delivered"});
+            } catch (IOException e) {
+                // The stock is booked; the PO stays approved with nothing outstanding and can be closed later
+                System.out.println("⚠️ Error marking purchase orders delivered: " + e.getMessage());  // Log error
+            }
+        }
+        if (ticket > 0) {
+            try {
+                Durable_Writer.awaitDurable(ticket);        // One sync for the whole session
+            } catch (IOException e) {
+                System.out.println("⚠️ Error syncing goods receipt");  // Log error
+            }
+        }
+        return List.of(results);
+    }
+}
@@ -56,6 +56,10 @@ public class InventoryManagerDashboard {
         contentLabel.setFont(new Font("Times New Roman", Font.PLAIN, 22));
         contentPanel.add(contentLabel, BorderLayout.CENTER);
 
+        // Builds each panel on first use and keeps it for later visits
+
+        Panel_Registry panels = new Panel_Registry(contentPanel);
+
         for (String item : menuItems) {
             JButton button = new JButton(item);
             button.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -71,34 +75,19 @@ public class InventoryManagerDashboard {
                         Main.createLoginUI(); // return to login
                     }
                     case "View Items" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewItemsPanel_IM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewItemsPanel_IM.class, ViewItemsPanel_IM::new);
                     }
                     case "Update Stock" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new UpdateStock_IM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(UpdateStock_IM.class, UpdateStock_IM::new);
                     }
                     case "Manage Stock" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ManageStock_IM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ManageStock_IM.class, ManageStock_IM::new);
                     }
                     case "Generate stock Report" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new StockReports_IM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(StockReports_IM.class, StockReports_IM::new);
                     }
                     case "View PO" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseOrderPanel_IM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseOrderPanel_IM.class, ViewPurchaseOrderPanel_IM::new);
                     }
                     default -> {
                         contentLabel.setText(item + " selected. (Functionality to be implemented)");
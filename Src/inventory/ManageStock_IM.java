@@ -1,18 +1,18 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.util.List;
 import java.util.Objects;
 
 // Panel for Inventory Manager to view and filter stock items
 public class ManageStock_IM extends JPanel {
     // Table model for managing stock data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     // Search field for filtering items
     private final JTextField searchField;
     // Dropdown for stock level filtering
     private final JComboBox<String> stockFilter;
+    // Debounced search over the items
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public ManageStock_IM() {
@@ -68,11 +68,7 @@ public class ManageStock_IM extends JPanel {
 
         // --- TABLE ---
         String[] columnNames = {"ItemCode", "ItemName", "SupplierID", "Stock", "ExpiryDate"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new Record_Table_Model(columnNames, new int[]{0, 1, 2, 3, 7});
 
         // Custom renderer for striped rows (yellow theme)
         class YellowStripedRowRenderer extends DefaultTableCellRenderer {
@@ -114,59 +110,25 @@ public class ManageStock_IM extends JPanel {
         add(scroll, BorderLayout.CENTER);
 
         // Listeners for search and stock filter
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/items_data.txt", 8);
+        search.attach(searchField);
         stockFilter.addActionListener(_ -> filterTable());
 
         // Initial load of table data
         filterTable();
     }
 
-    // Filters and loads items from data/items_data.txt based on search and stock filter
+    // Applies the stock filter (items below the selected threshold, or all)
     private void filterTable() {
-        String searchText = searchField.getText().trim().toLowerCase();
         String selectedStock = Objects.requireNonNull(stockFilter.getSelectedItem()).toString();
-        int stockThreshold = -1;
-        if (!selectedStock.equals("All")) {
-            stockThreshold = Integer.parseInt(selectedStock.replaceAll("[^0-9]", ""));
-        }
-
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/items_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 8) {
-                String itemCode = parts[0];
-                String itemName = parts[1];
-                String supplierId = parts[2];
-                String stockStr = parts[3];
-                String expiryDate = parts[7];
-                int stock = 0;
-                try { stock = Integer.parseInt(stockStr); } catch (Exception ignored) {}
-
-                // Stock filter
-                if (stockThreshold != -1 && stock >= stockThreshold) {
-                    continue;
-                }
-
-                // Search filter
-                boolean match = searchText.isEmpty();
-                if (!match) {
-                    if (itemCode.toLowerCase().contains(searchText) ||
-                        itemName.toLowerCase().contains(searchText) ||
-                        supplierId.toLowerCase().contains(searchText) ||
-                        stockStr.toLowerCase().contains(searchText) ||
-                        expiryDate.toLowerCase().contains(searchText)) {
-                        match = true;
-                    }
-                }
-                if (match) {
-                    tableModel.addRow(new Object[]{itemCode, itemName, supplierId, stockStr, expiryDate});
-                }
-            }
-        }
+        int stockThreshold = selectedStock.equals("All") ? -1
+                : Integer.parseInt(selectedStock.replaceAll("[^0-9]", ""));
+        search.setScope(row -> {
+            if (stockThreshold == -1) return true;
+            int stock = 0;
+            try { stock = row.parseInt(3); } catch (Exception ignored) {}
+            return stock < stockThreshold;
+        });
     }
 } 
\ No newline at end of file
@@ -5,14 +5,16 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 // Panel for Inventory Manager to browse, search, and export stock reports
-public class StockReports_IM extends JPanel {
+public class StockReports_IM extends JPanel implements Panel_Registry.Refreshable {
     // Table displaying the list of stock reports
     private final JTable reportTable;
     // Table model for managing report data
@@ -23,10 +25,13 @@ public class StockReports_IM extends JPanel {
     private final TableRowSorter<DefaultTableModel> sorter;
     // Label for displaying summary statistics
     private final JLabel summaryLabel;
+    // Re-lists the reports when another instance adds or removes one (held here, Data_Watcher keeps it weakly)
+    private final Runnable onReportsChanged = () -> { if (isShowing()) reload(); };
 
     // Constructor: sets up the UI and event handlers
     public StockReports_IM() {
         setLayout(new BorderLayout());
+        Data_Watcher.observe("stock_reports", onReportsChanged);
 
         // --- TOP PANEL: Title + Export + Search ---
         JPanel topPanel = new JPanel();
@@ -44,7 +49,16 @@ public class StockReports_IM extends JPanel {
         exportBtn.setBackground(new Color(255, 245, 220));
         exportBtn.setFocusPainted(false);
         exportBtn.setPreferredSize(new Dimension(160, 35));
-        titleExportPanel.add(exportBtn, BorderLayout.EAST);
+        JButton onDateBtn = new JButton("\uD83D\uDCC5 Stock On Date");
+        onDateBtn.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        onDateBtn.setBackground(new Color(255, 245, 220));
+        onDateBtn.setFocusPainted(false);
+        onDateBtn.setPreferredSize(new Dimension(160, 35));
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        buttonPanel.setOpaque(false);
+        buttonPanel.add(onDateBtn);
+        buttonPanel.add(exportBtn);
+        titleExportPanel.add(buttonPanel, BorderLayout.EAST);
         topPanel.add(titleExportPanel);
 
         JPanel searchPanel = new JPanel(new BorderLayout());
@@ -129,49 +143,55 @@ public class StockReports_IM extends JPanel {
             loadReports();
             updateSummary();
         });
+
+        // --- Stock On Date Action: stock of every item at the end of a past day ---
+        onDateBtn.addActionListener(_ -> showStockOnDate());
     }
 
     // Loads report files from the stock_reports directory and populates the table
     private void loadReports() {
-        tableModel.setRowCount(0);
-        File reportsDir = new File("stock_reports");
-        if (!reportsDir.exists() || !reportsDir.isDirectory()) return;
-        File[] files = reportsDir.listFiles((_, name) -> name.endsWith(".txt"));
-        if (files == null) return;
-        SimpleDateFormat df = new SimpleDateFormat("yyyyMMdd_HHmmss");
-        for (File file : files) {
-            String fileName = file.getName();
-            String createdBy = "";
-            String dateStr = "";
-            String dateTimeDisplay = "";
-            // Try to parse metadata from file
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.startsWith("Generated by:")) {
-                        createdBy = line.replace("Generated by:", "").trim();
-                    }
-                    if (line.startsWith("Generated:")) {
-                        dateStr = line.replace("Generated:", "").trim();
+        Data_Worker.fill(this, tableModel, () -> {   // Read off the EDT
+            List<Object[]> rows = new ArrayList<>();
+            File reportsDir = new File("stock_reports");
+            if (!reportsDir.exists() || !reportsDir.isDirectory()) return rows;
+            File[] files = reportsDir.listFiles((_, name) -> name.endsWith(".txt"));
+            if (files == null) return rows;
+            SimpleDateFormat df = new SimpleDateFormat("yyyyMMdd_HHmmss");
+            for (File file : files) {
+                String fileName = file.getName();
+                String createdBy = "";
+                String dateStr = "";
+                String dateTimeDisplay = "";
+                // Try to parse metadata from file
+                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("Generated by:")) {
+                            createdBy = line.replace("Generated by:", "").trim();
+                        }
+                        if (line.startsWith("Generated:")) {
+                            dateStr = line.replace("Generated:", "").trim();
+                        }
+                        if (!createdBy.isEmpty() && !dateStr.isEmpty()) break;
                     }
-                    if (!createdBy.isEmpty() && !dateStr.isEmpty()) break;
+                } catch (Exception ignored) {}
+                // Fallback: parse date from filename
+                if (dateStr.isEmpty()) {
+                    try {
+                        String[] parts = fileName.split("_");
+                        if (parts.length >= 3) {
+                            String datePart = parts[1] + "_" + parts[2].replace(".txt", "");
+                            Date d = df.parse(datePart);
+                            dateTimeDisplay = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(d);
+                        }
+                    } catch (ParseException ignored) {}
+                } else {
+                    dateTimeDisplay = dateStr;
                 }
-            } catch (Exception ignored) {}
-            // Fallback: parse date from filename
-            if (dateStr.isEmpty()) {
-                try {
-                    String[] parts = fileName.split("_");
-                    if (parts.length >= 3) {
-                        String datePart = parts[1] + "_" + parts[2].replace(".txt", "");
-                        Date d = df.parse(datePart);
-                        dateTimeDisplay = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(d);
-                    }
-                } catch (ParseException ignored) {}
-            } else {
-                dateTimeDisplay = dateStr;
+                rows.add(new Object[]{fileName, createdBy, dateTimeDisplay});
             }
-            tableModel.addRow(new Object[]{fileName, createdBy, dateTimeDisplay});
-        }
+            return rows;
+        });
     }
 
     // Filters the table based on the search field input
@@ -208,21 +228,23 @@ public class StockReports_IM extends JPanel {
         JOptionPane.showMessageDialog(this, scrollPane, fileName, JOptionPane.PLAIN_MESSAGE);
     }
 
-    // Updates the summary label with total items and stock
+    // The report folder and the table behind the summary (see Panel_Registry)
+    @Override
+    public String[] sources() {
+        return new String[]{"stock_reports", "data/items_data.txt"};
+    }
+
+    // Re-lists the reports and updates the summary after something changed while the panel was hidden
+    @Override
+    public void reload() {
+        loadReports();
+        updateSummary();
+    }
+
+    // Updates the summary label with total items and stock (maintained incrementally)
     private void updateSummary() {
-        java.util.List<String> lines = File_Utils.readLines("data/items_data.txt");
-        int totalItems = 0;
-        int totalStock = 0;
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 9) {
-                totalItems++;
-                try {
-                    int stock = Integer.parseInt(parts[3]);
-                    totalStock += stock;
-                } catch (Exception ignored) {}
-            }
-        }
+        int totalItems = Running_Totals.items();
+        long totalStock = Running_Totals.stock();
         String summary = "<html><div style='text-align:center;'>"
             + "<span style='font-size:18px;font-weight:bold;'>Total Items: " + totalItems + "</span>"
             + " &nbsp; &nbsp; "
@@ -231,6 +253,39 @@ public class StockReports_IM extends JPanel {
         summaryLabel.setText(summary);
     }
 
+    // Asks for a date and shows each item's stock at the end of that day next to its stock now
+    private void showStockOnDate() {
+        JSpinner dateSpinner = new JSpinner(new SpinnerDateModel());
+        dateSpinner.setEditor(new JSpinner.DateEditor(dateSpinner, "yyyy-MM-dd"));
+        int pick = JOptionPane.showConfirmDialog(this, dateSpinner, "Stock On Date", JOptionPane.OK_CANCEL_OPTION);
+        if (pick != JOptionPane.OK_OPTION) return;
+        String day = new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue());
+        LocalDateTime endOfDay = LocalDate.parse(day).atTime(23, 59, 59);
+
+        // Rebuilt from the nearest stock snapshot and the movements after it (off the EDT)
+        Data_Worker.submit(this, () -> Stock_Ledger.stockAt(endOfDay), stock -> {
+            if (stock == null) {
+                JOptionPane.showMessageDialog(this, "No stock history is recorded for " + day + " or earlier.",
+                        "Stock On Date", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            DefaultTableModel model = new DefaultTableModel(
+                    new String[]{"ItemCode", "ItemName", "Stock on " + day, "Stock Now"}, 0);
+            Record_Store.forEach("data/items_data.txt", item -> {
+                if (item.size() <= 3) return;
+                Integer then = stock.get(item.get(0));
+                model.addRow(new Object[]{item.get(0), item.get(1), then == null ? "-" : then, item.get(3)});
+            });
+            JTable table = new JTable(model);
+            table.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+            table.setRowHeight(22);
+            JScrollPane scrollPane = new JScrollPane(table);
+            scrollPane.setPreferredSize(new Dimension(600, 400));
+            JOptionPane.showMessageDialog(this, scrollPane, "Stock On " + day, JOptionPane.PLAIN_MESSAGE);
+        }, error -> JOptionPane.showMessageDialog(this, "Failed to read stock history: " + error.getMessage(),
+                "Stock On Date", JOptionPane.ERROR_MESSAGE));
+    }
+
     // --- Export Report Logic ---
     private void exportReport() {
         try {
@@ -246,16 +301,8 @@ public class StockReports_IM extends JPanel {
             // Get user ID and name
             String userId = Session.getLoggedInUserId();
             String userName = "";
-            try {
-                java.util.List<String> userLines = Files.readAllLines(Path.of("data/users_data.txt"));
-                for (String line : userLines) {
-                    String[] parts = line.split(",", -1);
-                    if (parts.length >= 2 && parts[0].equals(userId)) {
-                        userName = parts[1];
-                        break;
-                    }
-                }
-            } catch (Exception ex) { userName = ""; }
+            String[] user = userId == null ? null : Record_Store.get("data/users_data.txt", userId);
+            if (user != null && user.length >= 2) userName = user[1];
 
             // Prepare data for ranges
             java.util.List<String[]> range0_9 = new java.util.ArrayList<>();
@@ -266,7 +313,7 @@ public class StockReports_IM extends JPanel {
             int totalItems = 0, totalStock = 0;
             java.util.List<String> lines = File_Utils.readLines("data/items_data.txt");
             for (String line : lines) {
-                String[] item = line.split(",", -1);
+                String[] item = Csv_Codec.split(line);
                 if (item.length >= 9) {
                     int stock = 0;
                     try { stock = Integer.parseInt(item[3]); } catch (Exception ignored) {}
@@ -1,7 +1,8 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -10,11 +11,13 @@ public class UpdateStock_IM extends JPanel {
     // Table displaying purchase orders
     private final JTable poTable;
     // Table model for managing purchase order data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     // Search field for filtering purchase orders
     private final JTextField searchField;
     // Combo box for filtering by status (Approved/Delivered)
     private final JComboBox<String> statusFilter;
+    // Debounced search over the approved and delivered purchase orders
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public UpdateStock_IM() {
@@ -67,11 +70,7 @@ public class UpdateStock_IM extends JPanel {
 
         // --- TABLE: Shows purchase order data ---
         String[] columnNames = {"PONumber", "PRNumber", "ItemCode", "ItemName", "Quantity", "TotalPrice", "OrderDate1", "SupplierID", "OWNUM", "OrderDate2", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new Record_Table_Model(columnNames);
 
         // Custom renderer for striped rows (yellow theme)
         class YellowStripedRowRenderer extends DefaultTableCellRenderer {
@@ -115,6 +114,7 @@ public class UpdateStock_IM extends JPanel {
         poTable.getTableHeader().setBackground(new Color(255, 245, 200));
         poTable.getTableHeader().setForeground(new Color(120, 100, 30));
         poTable.setFillsViewportHeight(true);
+        poTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);   // Several POs for a receiving session
 
         // Set column widths for better readability
         int[] colWidths = {80, 80, 80, 120, 60, 80, 100, 90, 80, 100, 80};
@@ -136,14 +136,18 @@ public class UpdateStock_IM extends JPanel {
         btnPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
         btnPanel.setBackground(new Color(255, 250, 240));
         btnPanel.add(updateBtn);
+        JButton receiveBtn = new JButton("\uD83D\uDE9A Receive Batch");
+        receiveBtn.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        receiveBtn.setBackground(new Color(255, 245, 220));
+        receiveBtn.setFocusPainted(false);
+        receiveBtn.setPreferredSize(new Dimension(220, 35));
+        btnPanel.add(receiveBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
         // --- Search and status filter listeners ---
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // Searches an in-memory copy of the approved and delivered POs, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/purchase_orders_data.txt", record -> record.equalsIgnoreCase(10, "approved") || record.equalsIgnoreCase(10, "delivered"));
+        search.attach(searchField);
 
         statusFilter.addActionListener(_ -> filterTable());
 
@@ -169,67 +173,148 @@ public class UpdateStock_IM extends JPanel {
             if (confirm == JOptionPane.YES_OPTION) {
                 // Update the status in the file
                 String poNumber = poTable.getValueAt(row, 0).toString();
-                String itemCode = poTable.getValueAt(row, 2).toString();
-                String quantity = poTable.getValueAt(row, 4).toString();
-                
-                // Update purchase order status
-                File_Utils.updateLine("data/purchase_orders_data.txt", poNumber, "delivered");
-                
-                // Update item stock
-                File_Utils.updateItemStock(itemCode, Integer.parseInt(quantity));
+                long seenVersion = tableModel.version();   // The PO must still be as shown (approved)
                 
-                // Refresh the table
-                filterTable();
-                
-                JOptionPane.showMessageDialog(null, "Stock updated successfully!");
+                updateBtn.setEnabled(false);
+                Data_Worker.submit(this, () -> {   // Write off the EDT
+                    // Receive whatever is still outstanding (all of it unless part arrived earlier),
+                    // unless someone changed the PO since it was shown
+                    List<String> problems = new ArrayList<>();
+                    List<GoodsReceiptEngine_IM.Line> lines = GoodsReceiptEngine_IM.open(List.of(poNumber), seenVersion, problems);
+                    if (lines.isEmpty()) return problems.isEmpty() ? "No such purchase order" : problems.get(0);
+                    GoodsReceiptEngine_IM.Result result = GoodsReceiptEngine_IM.commit(lines).get(0);
+                    return result.outcome == GoodsReceiptEngine_IM.Outcome.SKIPPED
+                            || result.outcome == GoodsReceiptEngine_IM.Outcome.FAILED ? result.detail : null;
+                }, problem -> {
+                    updateBtn.setEnabled(true);
+                    // Refresh the table
+                    filterTable();
+
+                    if (problem == null) {
+                        JOptionPane.showMessageDialog(null, "Stock updated successfully!");
+                    } else {
+                        JOptionPane.showMessageDialog(null, "❌ Stock not updated for " + poNumber + ": " + problem
+                                + "\nThe list has been refreshed; please check it and try again.",
+                                "Update Stock", JOptionPane.WARNING_MESSAGE);
+                    }
+                }, error -> {
+                    updateBtn.setEnabled(true);
+                    JOptionPane.showMessageDialog(null, "❌ Failed to update stock: " + error.getMessage());
+                });
             }
         });
 
+        // --- Receive Batch button handler ---
+        // Opens a receiving session with the selected POs; more can be scanned in the dialog
+        receiveBtn.addActionListener(_ -> {
+            List<String> poNumbers = new ArrayList<>();
+            for (int row : poTable.getSelectedRows()) poNumbers.add(poTable.getValueAt(row, 0).toString());
+            long seenVersion = tableModel.version();
+            List<String> problems = new ArrayList<>();
+            Data_Worker.submit(this, () -> GoodsReceiptEngine_IM.open(poNumbers, seenVersion, problems),
+                    lines -> receiveSession(lines, problems));
+        });
+
         // Initial load of the table
         filterTable();
     }
 
-    // Filters and displays purchase orders based on search and status filters
-    private void filterTable() {
-        String searchText = searchField.getText().trim().toLowerCase();
-        String selectedStatus = Objects.requireNonNull(statusFilter.getSelectedItem()).toString();
-        
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-        
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 11) {
-                String status = parts[10].toLowerCase();
-                
-                // Only show approved and delivered POs
-                if (!status.equals("approved") && !status.equals("delivered")) {
-                    continue;
-                }
-                
-                // Apply status filter
-                if (selectedStatus.equals("Approved") && !status.equals("approved")) {
-                    continue;
-                }
-                if (selectedStatus.equals("Delivered") && !status.equals("delivered")) {
-                    continue;
-                }
-                
-                // Apply search filter
-                boolean match = searchText.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(searchText)) {
-                            match = true;
-                            break;
-                        }
-                    }
+    // Lets the user scan more POs and adjust the units received, then commits the session
+    private void receiveSession(List<GoodsReceiptEngine_IM.Line> lines, List<String> problems) {
+        String[] columns = {"PONumber", "ItemCode", "ItemName", "Ordered", "Received Before", "Outstanding", "Receiving Now"};
+        DefaultTableModel sessionModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column == 6;                         // Only the units arriving now
+            }
+        };
+        for (GoodsReceiptEngine_IM.Line line : lines) addSessionRow(sessionModel, line);
+        JTable sessionTable = new JTable(sessionModel);
+        sessionTable.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        sessionTable.setRowHeight(22);
+        JScrollPane scrollPane = new JScrollPane(sessionTable);
+        scrollPane.setPreferredSize(new Dimension(720, 360));
+
+        // Scanner input: a PO number followed by Enter adds that order
+        JTextField scanField = new JTextField();
+        scanField.setToolTipText("Scan or type a PO number and press Enter");
+        JLabel messageLabel = new JLabel(problems.isEmpty() ? " " : "⚠ " + String.join("; ", problems));
+        messageLabel.setForeground(new Color(180, 0, 0));
+        scanField.addActionListener(_ -> {
+            String poNumber = scanField.getText().trim();
+            scanField.setText("");
+            if (poNumber.isEmpty()) return;
+            for (GoodsReceiptEngine_IM.Line line : lines) {
+                if (line.poNumber.equalsIgnoreCase(poNumber)) {
+                    messageLabel.setText("⚠ " + poNumber + " is already in this session");
+                    return;
                 }
-                
-                if (match) {
-                    tableModel.addRow(parts);
+            }
+            List<String> scanProblems = new ArrayList<>();
+            long scanVersion = Record_Store.version("data/purchase_orders_data.txt");
+            Data_Worker.submit(this, () -> GoodsReceiptEngine_IM.open(List.of(poNumber), scanVersion, scanProblems), added -> {
+                for (GoodsReceiptEngine_IM.Line line : added) {
+                    lines.add(line);
+                    addSessionRow(sessionModel, line);
                 }
+                messageLabel.setText(scanProblems.isEmpty() ? " " : "⚠ " + String.join("; ", scanProblems));
+            });
+        });
+        JPanel scanPanel = new JPanel(new BorderLayout(8, 0));
+        scanPanel.add(new JLabel("Scan PO:"), BorderLayout.WEST);
+        scanPanel.add(scanField, BorderLayout.CENTER);
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(scanPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(messageLabel, BorderLayout.SOUTH);
+
+        int result = JOptionPane.showConfirmDialog(null, panel, "Receiving Session", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) return;
+        if (sessionTable.isEditing()) sessionTable.getCellEditor().stopCellEditing();
+        if (lines.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "No purchase orders to receive.");
+            return;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            int receiving;
+            try {
+                receiving = Integer.parseInt(sessionModel.getValueAt(i, 6).toString().trim());
+            } catch (NumberFormatException e) {
+                receiving = -1;                             // Reported as nothing received
             }
+            lines.get(i).receiving = receiving;
         }
+
+        Data_Worker.submit(this, () -> GoodsReceiptEngine_IM.commit(lines), results -> {
+            filterTable();
+            DefaultTableModel model = new DefaultTableModel(new String[]{"PONumber", "Outcome", "Details"}, 0);
+            int booked = 0;
+            for (GoodsReceiptEngine_IM.Result r : results) {
+                if (r.outcome == GoodsReceiptEngine_IM.Outcome.DELIVERED || r.outcome == GoodsReceiptEngine_IM.Outcome.PARTIAL) booked++;
+                model.addRow(new Object[]{r.poNumber, r.outcome, r.detail});
+            }
+            JTable table = new JTable(model);
+            table.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+            table.setRowHeight(22);
+            table.getColumnModel().getColumn(2).setPreferredWidth(340);
+            JScrollPane resultScroll = new JScrollPane(table);
+            resultScroll.setPreferredSize(new Dimension(600, 360));
+            JPanel resultPanel = new JPanel(new BorderLayout(0, 8));
+            resultPanel.add(new JLabel(booked + " of " + results.size() + " purchase order(s) received."), BorderLayout.NORTH);
+            resultPanel.add(resultScroll, BorderLayout.CENTER);
+            JOptionPane.showMessageDialog(null, resultPanel, "Receiving Session Results", JOptionPane.PLAIN_MESSAGE);
+        }, error -> JOptionPane.showMessageDialog(null, "❌ Failed to receive the session: " + error.getMessage()));
+    }
+
+    // Adds one session line to the dialog's table
+    private static void addSessionRow(DefaultTableModel model, GoodsReceiptEngine_IM.Line line) {
+        model.addRow(new Object[]{line.poNumber, line.itemCode, line.itemName, line.ordered,
+                line.receivedBefore, line.outstanding(), String.valueOf(line.receiving)});
+    }
+
+    // Applies the status filter ("All", "Approved" or "Delivered")
+    private void filterTable() {
+        String selectedStatus = Objects.requireNonNull(statusFilter.getSelectedItem()).toString();
+        search.setScope(row -> selectedStatus.equals("All") || row.equalsIgnoreCase(10, selectedStatus));
     }
 } 
\ No newline at end of file
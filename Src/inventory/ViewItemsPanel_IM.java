@@ -1,18 +1,16 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.util.List;
 
 // Panel for Inventory Manager to view and search items, and see item details
 public class ViewItemsPanel_IM extends JPanel {
     // Table displaying item records
     private final JTable itemTable;
     // Table model for managing item data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     // Search field for filtering items
     private final JTextField searchField;
 
@@ -48,11 +46,7 @@ public class ViewItemsPanel_IM extends JPanel {
 
         // --- TABLE: Shows item records ---
         String[] columnNames = {"ItemCode", "ItemName", "SupplierID", "Stock", "UnitPrice", "PurchasePrice", "Category", "ExpiryDate", "Remarks"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new Record_Table_Model(columnNames);
 
         // Custom renderer for striped rows (yellow theme)
         class YellowStripedRowRenderer extends DefaultTableCellRenderer {
@@ -105,19 +99,12 @@ public class ViewItemsPanel_IM extends JPanel {
         btnPanel.add(viewBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
-        // Load initial items into the table
-        loadItems("");
+        // Search an in-memory copy of the file, debounced while the user types
+        Search_Controller search = new Search_Controller(this, tableModel, "data/items_data.txt", 9);
+        search.attach(searchField);
 
-        // Search listener to filter items as user types
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) {
-                loadItems(searchField.getText().trim().toLowerCase());
-            }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) {
-                loadItems(searchField.getText().trim().toLowerCase());
-            }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // Load initial items into the table
+        search.refresh();
 
         // --- View Selected Item button handler ---
         viewBtn.addActionListener(_ -> {
@@ -172,25 +159,4 @@ public class ViewItemsPanel_IM extends JPanel {
             JOptionPane.showMessageDialog(null, cardPanel, "\uD83D\uDCE6  Item Details", JOptionPane.PLAIN_MESSAGE);
         });
     }
-
-    // Loads and displays items from data/items_data.txt, applying search filter if provided
-    private void loadItems(String filter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/items_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 9) {
-                boolean match = filter.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                if (match) tableModel.addRow(parts);
-            }
-        }
-    }
 }
\ No newline at end of file
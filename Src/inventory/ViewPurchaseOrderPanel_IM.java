@@ -1,8 +1,6 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.util.List;
 
 /**
  * Panel for Inventory Manager to view and search purchase orders, and see order details.
@@ -12,9 +10,11 @@ public class ViewPurchaseOrderPanel_IM extends JPanel {
     /** Table displaying purchase order records */
     private final JTable ordersTable;
     /** Table model for managing order data */
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     /** Search field for filtering orders */
     private final JTextField searchField;
+    /** Debounced search over the loaded orders */
+    private final Search_Controller search;
 
     /**
      * Constructor: sets up the UI and event handlers for viewing purchase orders.
@@ -60,10 +60,7 @@ public class ViewPurchaseOrderPanel_IM extends JPanel {
 
         // --- TABLE: Shows purchase order records ---
         String[] columnNames = {"POID", "RequisitionID", "ItemCode", "ItemName", "Quantity", "Purchase Price", "RequiredBy", "SupplierID", "ManagerID", "Date", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            // Make all cells non-editable
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        tableModel = new Record_Table_Model(columnNames);
 
         /**
          * Custom renderer for striped rows (blue theme) and status coloring.
@@ -136,18 +133,15 @@ public class ViewPurchaseOrderPanel_IM extends JPanel {
         btnPanel.add(viewBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
-        // Load initial orders into the table (no filter)
-        loadOrders("", null);
-
-        // --- Search and status filter listeners ---
-        // Update table as user types in the search field
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { loadOrders(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { loadOrders(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // --- Search and status filter ---
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/purchase_orders_data.txt", 11);
+        search.attach(searchField);
         // Update table when status filter changes
-        statusFilter.addActionListener(_ -> loadOrders(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem()));
+        statusFilter.addActionListener(_ -> loadOrders((String) statusFilter.getSelectedItem()));
+
+        // Load initial orders into the table (no filter)
+        loadOrders(null);
 
         // --- View Selected Order button handler ---
         viewBtn.addActionListener(_ -> {
@@ -220,32 +214,10 @@ public class ViewPurchaseOrderPanel_IM extends JPanel {
     }
 
     /**
-     * Loads purchase orders from file, applies search and status filters, and populates the table.
-     * @param filter Text filter for searching orders (case-insensitive, matches any field)
-     * @param statusFilter Status filter ("All" or specific status)
+     * Applies the status filter and refreshes the table through the search controller.
+     * @param statusFilter Status filter ("All" or specific status, null for all)
      */
-    private void loadOrders(String filter, String statusFilter) {
-        // Clear the table
-        tableModel.setRowCount(0);
-        // Read all lines from the data file
-        List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 11) {
-                boolean match = filter.isEmpty();
-                // Check if any field matches the filter
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                // Check if status matches the selected filter
-                boolean statusMatch = statusFilter == null || statusFilter.equals("All") || parts[10].equalsIgnoreCase(statusFilter);
-                if (match && statusMatch) tableModel.addRow(parts);
-            }
-        }
+    private void loadOrders(String statusFilter) {
+        search.setScope(row -> statusFilter == null || statusFilter.equals("All") || row.equalsIgnoreCase(10, statusFilter));
     }
 }
\ No newline at end of file
@@ -63,6 +63,8 @@ public class PurchaseManagerDashboard {
         JLabel contentLabel = new JLabel("Welcome back, " + displayName + "!", SwingConstants.CENTER);
         contentLabel.setFont(new Font("Times New Roman", Font.PLAIN, 22));
         contentPanel.add(contentLabel, BorderLayout.CENTER);
+        // Builds each panel on first use and keeps it for later visits
+        Panel_Registry panels = new Panel_Registry(contentPanel);
 
         // Create each menu button and assign actions
         for (String item : menuItems) {
@@ -81,34 +83,19 @@ public class PurchaseManagerDashboard {
                         Main.createLoginUI(); // return to login
                     }
                     case "View Items" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewItemsPanel_PM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewItemsPanel_PM.class, ViewItemsPanel_PM::new);
                     }
                     case "View Suppliers" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewSuppliersPanel_PM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewSuppliersPanel_PM.class, ViewSuppliersPanel_PM::new);
                     }
                     case "View Purchase Requisition" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseRequisitionPanel_PM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseRequisitionPanel_PM.class, ViewPurchaseRequisitionPanel_PM::new);
                     }
                     case "Create Purchase Orders" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new PurchaseOrderPanel_PM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(PurchaseOrderPanel_PM.class, PurchaseOrderPanel_PM::new);
                     }
                     case "View Purchase Orders" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseOrderPanel_PM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseOrderPanel_PM.class, ViewPurchaseOrderPanel_PM::new);
                     }
                     default -> {
                         contentLabel.setText(item + " selected. (Functionality to be implemented)");
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;                          // Requisitions, items and prices looked up by ID
+import java.util.HashSet;
+import java.util.LinkedHashMap;                    // Results in the order they were asked for
+import java.util.List;
+
+/**
+ * PurchaseOrderEngine_PM - Turns many purchase requisitions into purchase orders at once
+ * A batch is validated, priced and written in one pass: the requisitions,
+ * items, suppliers and purchase orders are each scanned once, the PO IDs
+ * come from one Id_Allocator block, all new POs are appended in one write
+ * and all requisition approvals go to the Change_Log in one write. The two
+ * tables are locked together for the whole batch, so no other window can
+ * order the same requisition in between.
+ *
+ * Only pending requisitions are converted. Every requisition gets a result
+ * saying whether a PO was created for it and, if not, why.
+ */
+public class PurchaseOrderEngine_PM {
+
+    private static final String PR_FILE = "data/purchase_requisitions_data.txt";
+    private static final String PO_FILE = "data/purchase_orders_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+    private static final String SUPPLIERS_FILE = "data/suppliers_data.txt";
+
+    /**
+     * What happened to one requisition
+     */
+    public enum Outcome {
+        CREATED,        // A PO was written and the requisition approved
+        SKIPPED,        // The requisition cannot be ordered (see detail); nothing was written
+        FAILED          // The batch could not be written
+    }
+
+    /**
+     * The result for one requisition of a batch
+     */
+    public static final class Result {
+        public final String requisitionId;
+        public final Outcome outcome;
+        public final String poId;       // The new PO, or "" if none was created
+        public final String detail;     // Total price, or the reason nothing was created
+
+        Result(String requisitionId, Outcome outcome, String poId, String detail) {
+            this.requisitionId = requisitionId;
+            this.outcome = outcome;
+            this.poId = poId;
+            this.detail = detail;
+        }
+    }
+
+    /**
+     * Creates a purchase order for every pending requisition of a batch and approves it
+     * @param requisitionIds The requisitions to convert (duplicates are ignored)
+     * @return One result per requisition, in the order given
+     */
+    public static List<Result> convert(List<String> requisitionIds) {
+        LinkedHashMap<String, Result> results = new LinkedHashMap<>();
+        for (String id : requisitionIds) results.put(id, null);
+        String today = new SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
+        long ticket = 0;
+
+        try (Lock_Manager.Held _ = Lock_Manager.lock(PR_FILE, PO_FILE)) {
+            Record_Store.refresh(PO_FILE);              // Pick up outside edits before the appends are stamped
+
+            // One scan per input table, keeping only what the batch needs
+            HashMap<String, String[]> requisitions = new HashMap<>();
+            Record_Store.forEach(PR_FILE, pr -> {
+                if (pr.size() > 0 && results.containsKey(pr.get(0))) requisitions.putIfAbsent(pr.get(0), pr.toArray());
+            });
+            HashSet<String> itemCodes = new HashSet<>();
+            for (String[] pr : requisitions.values()) if (pr.length > 1) itemCodes.add(pr[1]);
+            HashMap<String, String[]> items = new HashMap<>();
+            Record_Store.forEach(ITEMS_FILE, item -> {
+                if (item.size() > 0 && itemCodes.contains(item.get(0))) items.putIfAbsent(item.get(0), item.toArray());
+            });
+            HashSet<String> suppliers = new HashSet<>();
+            Record_Store.forEach(SUPPLIERS_FILE, supplier -> {
+                if (supplier.size() > 0) suppliers.add(supplier.get(0));
+            });
+            HashSet<String> ordered = new HashSet<>();   // Requisitions that already have a PO
+            Record_Store.forEach(PO_FILE, po -> {
+                if (po.size() > 1) ordered.add(po.get(1));
+            });
+
+            // Validate and price every requisition
+            List<String> accepted = new ArrayList<>();
+            List<String[]> orders = new ArrayList<>();   // {item name, total price} per accepted requisition
+            for (String id : results.keySet()) {
+                String[] pr = requisitions.get(id);
+                String reason = null;
+                String[] order = null;
+                if (pr == null || pr.length < 10) {
+                    reason = "No such requisition";
+                } else if (!pr[9].trim().equalsIgnoreCase("pending")) {
+                    reason = "Status is " + pr[9].trim() + ", only pending requisitions are ordered";
+                } else if (ordered.contains(id)) {
+                    reason = "Already has a purchase order";
+                } else if (!suppliers.contains(pr[5])) {
+                    reason = "Unknown supplier " + pr[5];
+                } else {
+                    String[] item = items.get(pr[1]);
+                    int qty = -1;
+                    try { qty = Integer.parseInt(pr[3].trim()); } catch (NumberFormatException ignored) {}
+                    double price = -1;
+                    if (item != null && item.length > 5) {
+                        try { price = Double.parseDouble(item[5].trim()); } catch (NumberFormatException ignored) {}
+                    }
+                    if (qty <= 0) {
+                        reason = "Quantity " + pr[3] + " is not a positive number";
+                    } else if (item == null) {
+                        reason = "Unknown item " + pr[1];
+                    } else if (price < 0) {
+                        reason = "Item " + pr[1] + " has no purchase price";
+                    } else {
+                        order = new String[]{item[1], String.format("%.2f", price * qty)};
+                    }
+                }
+                if (reason != null) {
+                    results.put(id, new Result(id, Outcome.SKIPPED, "", reason));
+                } else {
+                    accepted.add(id);
+                    orders.add(order);
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                String[] poIds = Id_Allocator.reserve(PO_FILE, "PO", accepted.size());   // One sequence update
+                List<String> poLines = new ArrayList<>();
+                List<String[]> approvals = new ArrayList<>();
+                for (int i = 0; i < accepted.size(); i++) {
+                    String[] pr = requisitions.get(accepted.get(i));
+                    String managerId = !pr[6].isEmpty() ? pr[6]
+                            : Session.getLoggedInUserId() != null ? Session.getLoggedInUserId() : "";
+                    poLines.add(Csv_Codec.join(poIds[i], pr[0], pr[1], orders.get(i)[0], pr[3].trim(),
+                            orders.get(i)[1], pr[4], pr[5], managerId, today, "Issued"));
+                    approvals.add(new String[]{"Approved"});
+                }
+                try {
+                    // POs first: a requisition is never approved without its PO, and one left
+                    // pending by a crash is skipped next time because its PO exists
+                    ticket = Durable_Writer.append(PO_FILE, poLines);
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error writing purchase orders: " + e.getMessage());  // Log error
+                    for (String id : accepted) results.put(id, new Result(id, Outcome.FAILED, "", "Could not write the batch"));
+                    return new ArrayList<>(results.values());
+                }
+                for (String line : poLines) Record_Store.appended(PO_FILE, line);
+                String approved = "";
+                try {
+                    ticket = Math.max(ticket, Change_Log.append(PR_FILE, accepted, new int[]{9}, approvals));
+                    for (String id : accepted) Record_Store.applied(PR_FILE, id, new int[]{9}, new String[]{"Approved"});
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error approving requisitions: " + e.getMessage());  // Log error
+                    approved = " (requisition not marked approved)";
+                }
+                for (int i = 0; i < accepted.size(); i++) {
+                    results.put(accepted.get(i), new Result(accepted.get(i), Outcome.CREATED, poIds[i], orders.get(i)[1] + approved));
+                }
+            }
+        }
+        if (ticket > 0) {                               // Nothing to wait for if the whole batch was skipped
+            try {
+                Durable_Writer.awaitDurable(ticket);    // One sync for the POs and the approvals
+            } catch (IOException e) {
+                System.out.println("⚠️ Error syncing purchase orders");  // Log error
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+}
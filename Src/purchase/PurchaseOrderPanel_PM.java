@@ -1,5 +1,4 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.text.SimpleDateFormat;
@@ -8,8 +7,10 @@ import java.util.List;
 import java.util.Objects;
 
 public class PurchaseOrderPanel_PM extends JPanel {
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     private final JTextField searchField;
+    // Debounced search over the requisitions
+    private final Search_Controller search;
 
     public PurchaseOrderPanel_PM() {
         setLayout(new BorderLayout());
@@ -48,9 +49,7 @@ public class PurchaseOrderPanel_PM extends JPanel {
 
         // --- TABLE: Show purchase requisition data ---
         String[] columnNames = {"RequisitionID", "ItemCode", "Quantity", "RequiredBy", "SupplierID", "Priority", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        tableModel = new Record_Table_Model(columnNames, new int[]{0, 1, 3, 4, 5, 7, 9});
 
         // Custom renderer for status coloring and blue striped rows
         class StatusColorRenderer extends DefaultTableCellRenderer {
@@ -126,8 +125,22 @@ public class PurchaseOrderPanel_PM extends JPanel {
         editBtn.setPreferredSize(new Dimension(180, 35));
         btnPanel.add(editBtn);
 
+        // --- BULK CREATE BUTTON ---
+        JButton bulkBtn = new JButton("Bulk Create");
+        bulkBtn.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        bulkBtn.setBackground(new Color(220, 235, 255));
+        bulkBtn.setFocusPainted(false);
+        bulkBtn.setPreferredSize(new Dimension(180, 35));
+        btnPanel.add(bulkBtn);
+
         add(btnPanel, BorderLayout.SOUTH);
 
+        // Searches an in-memory copy of the requisitions, debounced while the user types,
+        // pending ones first and then by priority
+        search = new Search_Controller(this, tableModel, "data/purchase_requisitions_data.txt", 10);
+        search.orderBy(record -> statusOrder(record.get(9)) * 4 + priorityOrder(record.get(7)));
+        search.attach(searchField);
+
         addBtn.addActionListener(_ -> {
             int row = requisitionTable.getSelectedRow();
             if (row == -1) {
@@ -150,7 +163,7 @@ public class PurchaseOrderPanel_PM extends JPanel {
             List<String> supplierLines = File_Utils.readLines("data/suppliers_data.txt");
             List<String> supplierIds = new ArrayList<>();
             for (String line : supplierLines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length > 0) supplierIds.add(parts[0]);
             }
             JComboBox<String> supplierIdBox = new JComboBox<>(supplierIds.toArray(new String[0]));
@@ -182,48 +195,36 @@ public class PurchaseOrderPanel_PM extends JPanel {
                 String newStatus = ((String) Objects.requireNonNull(statusBox.getSelectedItem())).trim();
                 String newSupplierId = (String) supplierIdBox.getSelectedItem();
 
-                // 1. Update data/purchase_requisitions_data.txt
-                List<String> lines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-                List<String> updated = new ArrayList<>();
-                String[] updatedPR = null;
-                for (String line : lines) {
-                    String[] parts = line.split(",", -1);
-                    if (parts.length >= 10 && parts[0].equals(requisitionId)) {
-                        parts[3] = newQuantity;
-                        parts[4] = newRequiredBy;
-                        parts[5] = newSupplierId; // Update supplier ID
-                        parts[9] = newStatus;
-                        updatedPR = parts;
-                        updated.add(String.join(",", parts));
-                    } else {
-                        updated.add(line);
+                Data_Worker.submit(this, () -> {   // Write off the EDT
+                    // 1. Update data/purchase_requisitions_data.txt (looked up by ID, logged, no full rewrite)
+                    File_Utils.updateFields("data/purchase_requisitions_data.txt", requisitionId,
+                            new int[]{3, 4, 5, 9}, new String[]{newQuantity, newRequiredBy, newSupplierId, newStatus});
+                    String[] updatedPR = Record_Store.get("data/purchase_requisitions_data.txt", requisitionId);
+
+                    // 2. If status is Approved, create PO in data/purchase_orders_data.txt with status 'Issued'
+                    if (newStatus.equalsIgnoreCase("Approved")) {
+                        String poid = generateNextPOId();
+                        String managerId = "PM001"; // TODO: Replace with actual session or selection
+                        String date = new SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
+                        if (updatedPR != null) managerId = updatedPR[6];
+                        String itemName = getItemName(itemCode);
+                        // --- Fetch purchase price from data/items_data.txt and calculate total ---
+                        double purchasePrice = getItemPurchasePrice(itemCode);
+                        int qty = 1;
+                        try { qty = Integer.parseInt(newQuantity); } catch (Exception ignored) {}
+                        double totalPrice = purchasePrice * qty;
+                        String totalPriceStr = String.format("%.2f", totalPrice);
+                        // RequiredBy is newRequiredBy
+                        String newLine = Csv_Codec.join(
+                            poid, requisitionId, itemCode, itemName, newQuantity, totalPriceStr, newRequiredBy, newSupplierId, managerId, date, "Issued"
+                        );
+                        File_Utils.appendLine("data/purchase_orders_data.txt", newLine);
                     }
-                }
-                File_Utils.writeLines("data/purchase_requisitions_data.txt", new ArrayList<>(updated));
-
-                // 2. If status is Approved, create PO in data/purchase_orders_data.txt with status 'Issued'
-                if (newStatus.equalsIgnoreCase("Approved")) {
-                    String poid = generateNextPOId();
-                    String managerId = "PM001"; // TODO: Replace with actual session or selection
-                    String date = new SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
-                    if (updatedPR != null) managerId = updatedPR[6];
-                    String itemName = getItemName(itemCode);
-                    // --- Fetch purchase price from data/items_data.txt and calculate total ---
-                    double purchasePrice = getItemPurchasePrice(itemCode);
-                    int qty = 1;
-                    try { qty = Integer.parseInt(newQuantity); } catch (Exception ignored) {}
-                    double totalPrice = purchasePrice * qty;
-                    String totalPriceStr = String.format("%.2f", totalPrice);
-                    // RequiredBy is newRequiredBy
-                    String newLine = String.join(",",
-                        poid, requisitionId, itemCode, itemName, newQuantity, totalPriceStr, newRequiredBy, newSupplierId, managerId, date, "Issued"
-                    );
-                    File_Utils.appendLine("data/purchase_orders_data.txt", newLine);
-                }
-
-                JOptionPane.showMessageDialog(null, "Status updated and PO created (if approved).", "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadPurchaseRequisitions("", null);
-                filterTable((String) statusFilter.getSelectedItem());
+                    return null;
+                }, _ -> {
+                    JOptionPane.showMessageDialog(null, "Status updated and PO created (if approved).", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    search.refresh();
+                });
             }
         });
 
@@ -268,99 +269,74 @@ public class PurchaseOrderPanel_PM extends JPanel {
                 String newRequiredBy = new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue());
                 String newStatus = ((String) Objects.requireNonNull(statusBox.getSelectedItem())).trim();
 
-                // 1. Update data/purchase_requisitions_data.txt
-                List<String> lines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-                List<String> updated = new ArrayList<>();
-                String[] updatedPR = null;
-                for (String line : lines) {
-                    String[] parts = line.split(",", -1);
-                    if (parts.length >= 10 && parts[0].equals(requisitionId)) {
-                        parts[3] = newQuantity;
-                        parts[4] = newRequiredBy;
-                        parts[9] = newStatus;
-                        updatedPR = parts;
-                        updated.add(String.join(",", parts));
-                    } else {
-                        updated.add(line);
+                Data_Worker.submit(this, () -> {   // Reads and writes off the EDT
+                    // 1. Update data/purchase_requisitions_data.txt (looked up by ID, logged, no full rewrite)
+                    File_Utils.updateFields("data/purchase_requisitions_data.txt", requisitionId,
+                            new int[]{3, 4, 9}, new String[]{newQuantity, newRequiredBy, newStatus});
+                    String[] updatedPR = Record_Store.get("data/purchase_requisitions_data.txt", requisitionId);
+
+                    // 2. PO logic
+                    boolean nowApproved = newStatus.equalsIgnoreCase("Approved");
+                    // Find POs for this requisition through the index on the PR ID column
+                    boolean poExists = !Record_Store.findBy("data/purchase_orders_data.txt", 1, requisitionId).isEmpty();
+                    if (poExists && !nowApproved) {
+                        // Status is not approved anymore, delete its POs
+                        List<String> updatedPOs = new ArrayList<>();
+                        for (String poLine : File_Utils.readLines("data/purchase_orders_data.txt")) {
+                            String[] poParts = Csv_Codec.split(poLine);
+                            if (poParts.length >= 2 && poParts[1].equals(requisitionId)) continue;
+                            updatedPOs.add(poLine);
+                        }
+                        File_Utils.writeLines("data/purchase_orders_data.txt", new ArrayList<>(updatedPOs));
                     }
-                }
-                File_Utils.writeLines("data/purchase_requisitions_data.txt", new ArrayList<>(updated));
-
-                // 2. PO logic
-                boolean nowApproved = newStatus.equalsIgnoreCase("Approved");
-                // Find PO for this requisition
-                List<String> poLines = File_Utils.readLines("data/purchase_orders_data.txt");
-                List<String> updatedPOs = new ArrayList<>();
-                boolean poExists = false;
-                for (String poLine : poLines) {
-                    String[] poParts = poLine.split(",", -1);
-                    if (poParts.length >= 2 && poParts[1].equals(requisitionId)) {
-                        poExists = true;
-                        // If status is not approved anymore, skip (delete) this PO
-                        if (!nowApproved) continue;
+                    // If status is now approved and PO does not exist, create it
+                    if (nowApproved && !poExists) {
+                        String newPoid = generateNextPOId();
+                        String managerId = "PM001";
+                        String date = new SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
+                        if (updatedPR != null) managerId = updatedPR[6];
+                        String itemName = getItemName(itemCode);
+                        String newLine = Csv_Codec.join(
+                            newPoid, requisitionId, itemCode, itemName, newQuantity, newRequiredBy, supplierId, managerId, date, "Issued"
+                        );
+                        File_Utils.appendLine("data/purchase_orders_data.txt", newLine);
                     }
-                    updatedPOs.add(poLine);
-                }
-                // If status is now approved and PO does not exist, create it
-                if (nowApproved && !poExists) {
-                    String newPoid = generateNextPOId();
-                    String managerId = "PM001";
-                    String date = new SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
-                    if (updatedPR != null) managerId = updatedPR[6];
-                    String itemName = getItemName(itemCode);
-                    String newLine = String.join(",",
-                        newPoid, requisitionId, itemCode, itemName, newQuantity, newRequiredBy, supplierId, managerId, date, "Issued"
-                    );
-                    updatedPOs.add(newLine);
-                }
-                File_Utils.writeLines("data/purchase_orders_data.txt", new ArrayList<>(updatedPOs));
-
-                JOptionPane.showMessageDialog(null, "Requisition updated and PO created/deleted as needed.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadPurchaseRequisitions("", null);
-                filterTable((String) statusFilter.getSelectedItem());
+                    return requisitionId;
+                }, _ -> {
+                    JOptionPane.showMessageDialog(null, "Requisition updated and PO created/deleted as needed.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    search.refresh();
+                });
             }
         });
 
-        loadPurchaseRequisitions("", null);
+        // Converts the selected requisitions, or every one the search and filter show, in one batch
+        bulkBtn.addActionListener(_ -> {
+            int[] rows = requisitionTable.getSelectedRows();
+            if (rows.length == 0) {
+                rows = new int[tableModel.getRowCount()];
+                for (int i = 0; i < rows.length; i++) rows[i] = i;
+            }
+            if (rows.length == 0) {
+                JOptionPane.showMessageDialog(null, "There are no requisitions to convert.");
+                return;
+            }
+            List<String> requisitionIds = new ArrayList<>();
+            for (int r : rows) requisitionIds.add((String) tableModel.getValueAt(r, 0));
+            int confirm = JOptionPane.showConfirmDialog(null,
+                    "Create purchase orders for the pending requisitions among these " + requisitionIds.size() + "?",
+                    "Bulk Create", JOptionPane.OK_CANCEL_OPTION);
+            if (confirm != JOptionPane.OK_OPTION) return;
+
+            Data_Worker.submit(this, () -> PurchaseOrderEngine_PM.convert(requisitionIds), results -> {
+                showBulkResults(results);
+                search.refresh();
+            });
+        });
 
         // Search and status filter listeners
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable((String) statusFilter.getSelectedItem()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable((String) statusFilter.getSelectedItem()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
         statusFilter.addActionListener(_ -> filterTable((String) statusFilter.getSelectedItem()));
-    }
 
-    private void loadPurchaseRequisitions(String filter, String statusFilter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-        List<String[]> rows = new ArrayList<>();
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 10) {
-                String[] row = new String[] {
-                    parts[0], parts[1], parts[3], parts[4], parts[5], parts[7], parts[9]
-                };
-                boolean match = filter == null || filter.isEmpty();
-                if (!match) {
-                    for (String part : row) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                boolean statusMatch = statusFilter == null || statusFilter.equals("All") || row[6].equalsIgnoreCase(statusFilter);
-                if (match && statusMatch) rows.add(row);
-            }
-        }
-        rows.sort((a, b) -> {
-            int statusCmp = statusOrder(a[6]) - statusOrder(b[6]);
-            if (statusCmp != 0) return statusCmp;
-            return priorityOrder(a[5]) - priorityOrder(b[5]);
-        });
-        for (String[] row : rows) tableModel.addRow(row);
+        filterTable(null);
     }
 
     private int statusOrder(String status) {
@@ -375,24 +351,34 @@ public class PurchaseOrderPanel_PM extends JPanel {
         };
     }
 
-    private String generateNextPOId() {
-        List<String> lines = File_Utils.readLines("data/purchase_orders_data.txt");
-        int max = 0;
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts[0].startsWith("PO")) {
-                try {
-                    int num = Integer.parseInt(parts[0].substring(2));
-                    if (num > max) max = num;
-                } catch (NumberFormatException ignored) {}
-            }
+    // Shows what happened to each requisition of a bulk run
+    private void showBulkResults(List<PurchaseOrderEngine_PM.Result> results) {
+        javax.swing.table.DefaultTableModel model = new javax.swing.table.DefaultTableModel(
+                new String[]{"RequisitionID", "Outcome", "PO ID", "Total / Reason"}, 0);
+        int created = 0;
+        for (PurchaseOrderEngine_PM.Result r : results) {
+            if (r.outcome == PurchaseOrderEngine_PM.Outcome.CREATED) created++;
+            model.addRow(new Object[]{r.requisitionId, r.outcome, r.poId, r.detail});
         }
-        return String.format("PO%03d", max + 1);
+        JTable table = new JTable(model);
+        table.setFont(new Font("Times New Roman", Font.PLAIN, 13));
+        table.setRowHeight(22);
+        table.getColumnModel().getColumn(3).setPreferredWidth(320);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(650, 400));
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(new JLabel(created + " purchase order(s) created, " + (results.size() - created) + " requisition(s) not converted."),
+                BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(null, panel, "Bulk Create Results", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private String generateNextPOId() {
+        return Id_Allocator.next("data/purchase_orders_data.txt", "PO");   // Persisted sequence, no table scan
     }
 
     private void filterTable(String statusFilter) {
-        String filter = searchField.getText().trim().toLowerCase();
-        loadPurchaseRequisitions(filter, statusFilter);
+        search.setScope(row -> statusFilter == null || statusFilter.equals("All") || row.equalsIgnoreCase(9, statusFilter));
     }
 
     private int priorityOrder(String priority) {
@@ -408,25 +394,16 @@ public class PurchaseOrderPanel_PM extends JPanel {
 
     // Helper: get item name from data/items_data.txt
     private String getItemName(String itemCode) {
-        List<String> itemLines = File_Utils.readLines("data/items_data.txt");
-        for (String itemLine : itemLines) {
-            String[] itemParts = itemLine.split(",", -1);
-            if (itemParts.length >= 2 && itemParts[0].equals(itemCode)) {
-                return itemParts[1];
-            }
-        }
-        return "";
+        String[] itemParts = Record_Store.get("data/items_data.txt", itemCode);
+        return itemParts != null && itemParts.length >= 2 ? itemParts[1] : "";
     }
 
     private double getItemPurchasePrice(String itemCode) {
-        List<String> itemLines = File_Utils.readLines("data/items_data.txt");
-        for (String itemLine : itemLines) {
-            String[] itemParts = itemLine.split(",", -1);
-            if (itemParts.length >= 6 && itemParts[0].equals(itemCode)) {
-                try {
-                    return Double.parseDouble(itemParts[5]); // Purchase Price is the 6th column (index 5)
-                } catch (Exception ignored) {}
-            }
+        String[] itemParts = Record_Store.get("data/items_data.txt", itemCode);
+        if (itemParts != null && itemParts.length >= 6) {
+            try {
+                return Double.parseDouble(itemParts[5]); // Purchase Price is the 6th column (index 5)
+            } catch (Exception ignored) {}
         }
         return 0.0;
     }
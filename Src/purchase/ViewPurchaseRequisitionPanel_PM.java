@@ -1,8 +1,6 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.util.List;
 
 /**
  * Panel for Purchase Manager to view and search purchase requisitions, and see requisition details.
@@ -13,9 +11,11 @@ public class ViewPurchaseRequisitionPanel_PM extends JPanel {
     /** Table displaying purchase requisition records */
     private final JTable requisitionTable;
     /** Table model for managing requisition data */
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     /** Search field for filtering requisitions */
     private final JTextField searchField;
+    /** Debounced search over the loaded requisitions */
+    private final Search_Controller search;
 
     /**
      * Constructor: sets up the UI and event handlers for viewing purchase requisitions.
@@ -61,12 +61,7 @@ public class ViewPurchaseRequisitionPanel_PM extends JPanel {
 
         // --- TABLE: Shows purchase requisition records ---
         String[] columnNames = {"RequisitionID", "ItemCode", "ItemName", "Quantity", "RequiredBy", "SupplierID", "SalesManagerID", "Priority", "Remarks", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            // Make all cells non-editable for read-only view
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new Record_Table_Model(columnNames);
 
         /**
          * Custom renderer for status coloring and striped rows (blue theme).
@@ -142,18 +137,15 @@ public class ViewPurchaseRequisitionPanel_PM extends JPanel {
         btnPanel.add(viewBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
-        // Load initial requisitions into the table (no filter)
-        loadRequisitions("", null);
-
-        // --- Search and status filter listeners ---
-        // Update table as user types in the search field
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { loadRequisitions(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { loadRequisitions(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // --- Search and status filter ---
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/purchase_requisitions_data.txt", 10);
+        search.attach(searchField);
         // Update table when status filter changes
-        statusFilter.addActionListener(_ -> loadRequisitions(searchField.getText().trim().toLowerCase(), (String) statusFilter.getSelectedItem()));
+        statusFilter.addActionListener(_ -> loadRequisitions((String) statusFilter.getSelectedItem()));
+
+        // Load initial requisitions into the table (no filter)
+        loadRequisitions(null);
 
         // --- View Selected Requisition button handler ---
         viewBtn.addActionListener(_ -> {
@@ -227,32 +219,10 @@ public class ViewPurchaseRequisitionPanel_PM extends JPanel {
     }
 
     /**
-     * Loads purchase requisitions from file, applies search and status filters, and populates the table.
-     * @param filter Text filter for searching requisitions (case-insensitive, matches any field)
-     * @param statusFilter Status filter ("All" or specific status)
+     * Applies the status filter and refreshes the table through the search controller.
+     * @param statusFilter Status filter ("All" or specific status, null for all)
      */
-    private void loadRequisitions(String filter, String statusFilter) {
-        // Clear the table
-        tableModel.setRowCount(0);
-        // Read all lines from the data file
-        List<String> lines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 10) {
-                boolean match = filter.isEmpty();
-                // Check if any field matches the filter
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                // Check if status matches the selected filter
-                boolean statusMatch = statusFilter == null || statusFilter.equals("All") || parts[9].equalsIgnoreCase(statusFilter);
-                if (match && statusMatch) tableModel.addRow(parts);
-            }
-        }
+    private void loadRequisitions(String statusFilter) {
+        search.setScope(row -> statusFilter == null || statusFilter.equals("All") || row.equalsIgnoreCase(9, statusFilter));
     }
 }
@@ -1,8 +1,6 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
-import java.util.List;
 
 /**
  * Panel for Purchase Manager to view and search suppliers, and see supplier details.
@@ -13,7 +11,7 @@ public class ViewSuppliersPanel_PM extends JPanel {
     /** Table displaying supplier records */
     private final JTable supplierTable;
     /** Table model for managing supplier data */
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
     /** Search field for filtering suppliers */
     private final JTextField searchField;
 
@@ -59,12 +57,7 @@ public class ViewSuppliersPanel_PM extends JPanel {
             "Email", "Bank Account", "Lead Time", "Contract Expiry", "Active", "Total Transactions", "Remarks"
         };
 
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            // Make all cells non-editable for read-only view
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new Record_Table_Model(columnNames);
 
         /**
          * Custom renderer for striped rows (blue theme).
@@ -122,19 +115,12 @@ public class ViewSuppliersPanel_PM extends JPanel {
         btnPanel.add(viewBtn);
         add(btnPanel, BorderLayout.SOUTH);
 
-        // Load initial suppliers into the table (no filter)
-        loadSuppliers("");
+        // Search an in-memory copy of the file, debounced while the user types
+        Search_Controller search = new Search_Controller(this, tableModel, "data/suppliers_data.txt", 14);
+        search.attach(searchField);
 
-        // --- Search listener ---
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) {
-                loadSuppliers(searchField.getText().trim().toLowerCase());
-            }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) {
-                loadSuppliers(searchField.getText().trim().toLowerCase());
-            }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
+        // Load initial suppliers into the table (no filter)
+        search.refresh();
 
         // --- View supplier details button handler ---
         viewBtn.addActionListener(_ -> {
@@ -198,31 +184,4 @@ public class ViewSuppliersPanel_PM extends JPanel {
             JOptionPane.showMessageDialog(null, cardPanel, "🏷️  Supplier Details", JOptionPane.PLAIN_MESSAGE);
         });
     }
-
-    /**
-     * Loads suppliers from file, applies search filter, and populates the table.
-     * @param filter Text filter for searching suppliers (case-insensitive, matches any field)
-     */
-    private void loadSuppliers(String filter) {
-        // Clear the table
-        tableModel.setRowCount(0);
-        // Read all lines from the data file
-        List<String> lines = File_Utils.readLines("data/suppliers_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 14) {
-                boolean match = filter.isEmpty();
-                // Check if any field matches the filter
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                if (match) tableModel.addRow(parts);
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;  // Cancel request seen by the import thread
+
+/**
+ * BulkImportDialog_SM - The "Import CSV" flow shared by the item, supplier and sales panels
+ * Asks for the file, runs BulkImportEngine_SM in the background with a
+ * progress bar and a Cancel button, and shows what was imported.
+ */
+public class BulkImportDialog_SM {
+
+    /**
+     * Lets the user pick a CSV file and imports it into a table
+     * @param owner The panel the dialogs belong to
+     * @param table The table to import into
+     * @param onImported Called on the EDT after an import that wrote any rows (e.g. to reload the list)
+     */
+    public static void open(Component owner, BulkImportEngine_SM.Table table, Runnable onImported) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import " + title(table) + " from CSV");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv", "txt"));
+        JCheckBox headerBox = new JCheckBox("First row holds column names", true);
+        JPanel accessory = new JPanel(new BorderLayout());
+        accessory.add(headerBox, BorderLayout.NORTH);
+        JTextArea columns = new JTextArea("Columns:\n" + table.columns.replace(", ", "\n"));
+        columns.setEditable(false);
+        columns.setOpaque(false);
+        accessory.add(columns, BorderLayout.CENTER);
+        chooser.setAccessory(accessory);
+        if (chooser.showOpenDialog(owner) != JFileChooser.APPROVE_OPTION) return;
+        File csv = chooser.getSelectedFile();
+        boolean header = headerBox.isSelected();
+
+        // Progress dialog: closing it or pressing Cancel stops the import after the current row
+        JProgressBar bar = new JProgressBar(0, 100);
+        bar.setStringPainted(true);
+        bar.setPreferredSize(new Dimension(360, 24));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        JOptionPane pane = new JOptionPane(new Object[]{"Importing " + csv.getName() + "...", bar},
+                JOptionPane.INFORMATION_MESSAGE, JOptionPane.DEFAULT_OPTION, null, new Object[]{"Cancel"});
+        JDialog progress = pane.createDialog(owner, "Import " + title(table));
+        progress.setModal(false);
+        pane.addPropertyChangeListener(JOptionPane.VALUE_PROPERTY, _ -> cancelled.set(true));
+
+        Data_Worker.submit(owner, () -> BulkImportEngine_SM.importFile(table, csv, header,
+                percent -> SwingUtilities.invokeLater(() -> bar.setValue(percent)), cancelled::get), summary -> {
+            progress.dispose();
+            if (summary.imported > 0) onImported.run();
+            String message = (summary.cancelled ? "Import cancelled.\n\n" : "✅ Import finished.\n\n")
+                    + "Rows read: " + summary.rows + "\n"
+                    + "Imported: " + summary.imported + "\n"
+                    + "Duplicate IDs skipped: " + summary.duplicates + "\n"
+                    + "Invalid rows skipped: " + summary.rejected
+                    + (summary.errorReport != null ? "\n\nSkipped rows are listed in:\n" + summary.errorReport.getPath() : "");
+            JOptionPane.showMessageDialog(owner, message, "Import " + title(table),
+                    summary.duplicates + summary.rejected > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+        }, error -> {
+            progress.dispose();
+            onImported.run();                               // Batches written before the error stay imported
+            JOptionPane.showMessageDialog(owner, "❌ Import stopped: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
+        progress.setVisible(true);
+    }
+
+    private static String title(BulkImportEngine_SM.Table table) {
+        return switch (table) {
+            case ITEMS -> "Items";
+            case SUPPLIERS -> "Suppliers";
+            case SALES -> "Sales";
+        };
+    }
+}
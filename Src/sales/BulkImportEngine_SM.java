@@ -0,0 +1,346 @@
+import java.io.*;                                  // Input streaming and the error report
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;                        // Default and checked dates
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;                          // IDs of the batch being collected
+import java.util.List;
+import java.util.function.BooleanSupplier;         // Asked between rows whether to stop
+import java.util.function.IntConsumer;             // Progress in percent
+
+/**
+ * BulkImportEngine_SM - Imports items, suppliers or sales from an external CSV file
+ * The file is streamed row by row through Csv_Codec (quoted fields may hold
+ * commas, quotes and line breaks), so memory stays bounded however many
+ * rows it has: only the batch being collected is kept. Every row is
+ * checked and normalised the way the entry forms do it; rows whose ID is
+ * already on file (or earlier in the same file) are counted as duplicates
+ * and rows that fail a check go to an error report next to the input file
+ * with their row number, the reason and the row as it was read.
+ *
+ * Accepted rows are written in batches of BATCH_ROWS: one Durable_Writer
+ * append per batch under the table lock, with the IDs for rows that came
+ * without one taken from one Id_Allocator block (numbered after the highest
+ * ID the file itself brings, found in a first streamed pass, so they never
+ * take one a later row needs). Imported items also get
+ * their opening stock recorded in the Stock_Ledger, in one append per batch.
+ * Imported sales are sales history only and do not take stock out.
+ */
+public class BulkImportEngine_SM {
+
+    private static final String ITEMS_FILE = "data/items_data.txt";
+    private static final String SUPPLIERS_FILE = "data/suppliers_data.txt";
+    private static final String SALES_FILE = "data/sales_data.txt";
+
+    // Rows written per append
+    private static final int BATCH_ROWS = 1000;
+
+    /**
+     * The tables that can be imported, with the fields of one record
+     */
+    public enum Table {
+        ITEMS(ITEMS_FILE, "ITM", 9,
+                "Item Code, Item Name, Supplier ID, Quantity, Price, Purchase Price, Category, Date Added, Notes"),
+        SUPPLIERS(SUPPLIERS_FILE, "SUP", 14,
+                "Supplier ID, Name, Contact, Region, Rating (1-5), Specialty 1, Specialty 2, Email, Bank Account, "
+                + "Lead Time (days), Last Supplied, Active, Max Capacity, Notes"),
+        SALES(SALES_FILE, "SD", 7,
+                "Sale ID, Item Code, Item Name, Quantity, Date, Manager ID, Remarks");
+
+        public final String file;
+        public final String prefix;         // Prefix of the IDs given to rows without one
+        public final int fields;
+        public final String columns;        // The expected columns, for the import dialog
+
+        Table(String file, String prefix, int fields, String columns) {
+            this.file = file;
+            this.prefix = prefix;
+            this.fields = fields;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * What an import did
+     */
+    public static final class Summary {
+        public int rows;                    // Data rows read (without the header)
+        public int imported;                // Rows written
+        public int duplicates;              // Rows skipped because their ID is already taken
+        public int rejected;                // Rows skipped because a check failed
+        public boolean cancelled;           // Stopped before the end of the file
+        public File errorReport;            // Report of the skipped rows, null if none were skipped
+    }
+
+    // Stops the stream when the import is cancelled or a batch cannot be written
+    private static final class Stop extends RuntimeException {
+        Stop(Throwable cause) {
+            super(null, cause, false, false);
+        }
+    }
+
+    /**
+     * Imports every row of a CSV file into a table
+     * Batches written before a cancel or a write error stay imported.
+     * @param table The table to import into
+     * @param csv The file to read
+     * @param header true if the first row holds column names and is skipped
+     * @param progress Receives the share of the file read so far, in percent (called from this thread)
+     * @param cancelled Asked between rows whether to stop
+     * @return What was imported and skipped
+     * @throws IOException If the file cannot be read or a batch cannot be written
+     */
+    public static Summary importFile(Table table, File csv, boolean header,
+                                     IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        Summary summary = new Summary();
+        File reportFile = new File(csv.getParentFile(), stripExtension(csv.getName()) + "_import_errors.txt");
+        long length = Math.max(1, csv.length());
+        long[] read = {0};
+        int[] shown = {-1};
+        List<String[]> batch = new ArrayList<>();
+        List<Integer> batchRows = new ArrayList<>();    // Row number of each record in the batch
+        HashSet<String> batchIds = new HashSet<>();
+        HashSet<String> referenced = new HashSet<>();   // Suppliers or items checked to exist
+        Writer[] report = {null};
+
+        // Rows without an ID get theirs after the highest ID in the file, so they cannot take one a later row brings
+        long highest = highestId(table, csv);
+        if (highest > 0) Id_Allocator.advance(table.prefix, highest);
+
+        try (InputStream counted = new FilterInputStream(new FileInputStream(csv)) {
+                 @Override
+                 public int read(byte[] b, int off, int len) throws IOException {
+                     int n = super.read(b, off, len);
+                     if (n > 0) read[0] += n;
+                     return n;
+                 }
+             };
+             Reader in = new InputStreamReader(counted, StandardCharsets.UTF_8)) {
+            int[] rowNumber = {0};
+            Csv_Codec.stream(in, row -> {
+                rowNumber[0]++;
+                if (header && rowNumber[0] == 1) return;
+                if (cancelled.getAsBoolean()) {
+                    summary.cancelled = true;
+                    throw new Stop(null);
+                }
+                summary.rows++;
+                String[] fields = row.toArray();
+                if (rowNumber[0] == 1 && fields.length > 0 && fields[0].startsWith("\uFEFF")) {
+                    fields[0] = fields[0].substring(1);    // Byte order mark written by spreadsheet programs
+                }
+                try {
+                    String[] record = check(table, fields, referenced);
+                    String id = record[0];
+                    if (!id.isEmpty() && (batchIds.contains(id) || Record_Store.contains(table.file, id))) {
+                        summary.duplicates++;
+                        reject(report, reportFile, rowNumber[0], "Duplicate ID " + id, fields);
+                        return;
+                    }
+                    if (!id.isEmpty()) batchIds.add(id);
+                    batch.add(record);
+                    batchRows.add(rowNumber[0]);
+                    if (batch.size() >= BATCH_ROWS) {
+                        write(table, batch, batchRows, summary, report, reportFile);
+                        batch.clear();
+                        batchRows.clear();
+                        batchIds.clear();
+                    }
+                } catch (IllegalArgumentException e) {
+                    summary.rejected++;
+                    reject(report, reportFile, rowNumber[0], e.getMessage(), fields);
+                } catch (IOException e) {
+                    throw new Stop(e);
+                }
+                int percent = (int) Math.min(100, read[0] * 100 / length);
+                if (percent != shown[0]) {
+                    shown[0] = percent;
+                    progress.accept(percent);
+                }
+            });
+            if (!batch.isEmpty()) write(table, batch, batchRows, summary, report, reportFile);
+        } catch (Stop stop) {
+            if (stop.getCause() instanceof IOException e) throw e;
+            if (!batch.isEmpty()) write(table, batch, batchRows, summary, report, reportFile);   // Keep what was checked before the cancel
+        } finally {
+            if (report[0] != null) report[0].close();
+        }
+        if (report[0] != null) summary.errorReport = reportFile;
+        progress.accept(100);
+        return summary;
+    }
+
+    // Writes one batch: recheck the IDs under the lock, give IDs to rows without one, one append
+    private static void write(Table table, List<String[]> batch, List<Integer> batchRows, Summary summary,
+                              Writer[] report, File reportFile) throws IOException {
+        long ticket;
+        // IDs for the rows without one, taken before the table locks so the sequences lock is never
+        // taken inside them (Lock_Manager's name order); they are only lost if the batch fails
+        int unnumbered = 0;
+        for (String[] record : batch) if (record[0].isEmpty()) unnumbered++;
+        String[] ids = Id_Allocator.reserve(table.file, table.prefix, unnumbered);   // One sequence update
+        String[] locks = table == Table.ITEMS ? new String[]{table.file, Stock_Ledger.LEDGER_FILE} : new String[]{table.file};
+        try (Lock_Manager.Held _ = Lock_Manager.lock(locks)) {
+            Record_Store.refresh(table.file);           // Pick up outside edits before the append is stamped
+            List<String[]> accepted = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                String[] record = batch.get(i);
+                if (!record[0].isEmpty() && Record_Store.contains(table.file, record[0])) {
+                    summary.duplicates++;           // Added by someone else since the row was checked
+                    reject(report, reportFile, batchRows.get(i), "Duplicate ID " + record[0], record);
+                    continue;
+                }
+                accepted.add(record);
+            }
+            if (accepted.isEmpty()) return;
+            List<String> lines = new ArrayList<>();
+            List<String> itemCodes = new ArrayList<>();
+            int[] stock = new int[accepted.size()];
+            int next = 0;
+            for (String[] record : accepted) {
+                if (record[0].isEmpty()) record[0] = ids[next++];
+                if (table == Table.ITEMS) {
+                    stock[itemCodes.size()] = Integer.parseInt(record[3]);
+                    itemCodes.add(record[0]);
+                }
+                lines.add(Csv_Codec.join(record));
+            }
+            // Opening stock first, like a single new item: stock on file is never missing from the ledger
+            ticket = Stock_Ledger.noteAll(Stock_Ledger.Kind.ADJUSTMENT, itemCodes, stock, "opening stock (import)");
+            ticket = Math.max(ticket, Durable_Writer.append(table.file, lines));
+            for (String line : lines) Record_Store.appended(table.file, line);
+            summary.imported += lines.size();
+        }
+        if (ticket > 0) Durable_Writer.awaitDurable(ticket);   // One sync per batch
+    }
+
+    // Highest number among the IDs in the file that look like the table's own (0 if none), in one streamed pass
+    private static long highestId(Table table, File csv) throws IOException {
+        long[] highest = {0};
+        try (Reader in = new InputStreamReader(new FileInputStream(csv), StandardCharsets.UTF_8)) {
+            Csv_Codec.stream(in, row -> {
+                if (row.size() == 0 || !row.startsWith(0, table.prefix)) return;
+                String id = row.get(0).trim();
+                if (!id.matches(table.prefix + "\\d{1,18}")) return;
+                highest[0] = Math.max(highest[0], Long.parseLong(id.substring(table.prefix.length())));
+            });
+        }
+        return highest[0];
+    }
+
+    // Checks one row and returns it normalised to the table's layout (ID "" if a new one is to be given)
+    private static String[] check(Table table, String[] fields, HashSet<String> referenced) {
+        if (fields.length > table.fields) {
+            throw new IllegalArgumentException("Expected " + table.fields + " columns but found " + fields.length);
+        }
+        String[] r = new String[table.fields];
+        for (int i = 0; i < r.length; i++) r[i] = i < fields.length ? fields[i].trim() : "";
+        if (!r[0].isEmpty() && !r[0].matches(table.prefix + "\\d{1,18}")) {
+            throw new IllegalArgumentException("ID " + r[0] + " is not like " + Id_Allocator.format(table.prefix, 1)
+                    + " (leave it empty to have one given)");
+        }
+        switch (table) {
+            case ITEMS -> {
+                required(r[1], "Item name");
+                if (!exists(SUPPLIERS_FILE, r[2], referenced)) {
+                    throw new IllegalArgumentException("Unknown supplier " + r[2]);
+                }
+                r[3] = String.valueOf(wholeNumber(r[3], "Quantity", 0));
+                r[4] = String.format("%.2f", amount(r[4], "Price"));
+                r[5] = String.format("%.2f", amount(r[5], "Purchase price"));
+                required(r[6], "Category");
+                r[7] = date(r[7], "Date added", true);
+            }
+            case SUPPLIERS -> {
+                required(r[1], "Supplier name");
+                r[4] = stars(r[4]);
+                String days = r[9].toLowerCase().replace("days", "").replace("day", "").trim();
+                r[9] = wholeNumber(days, "Lead time", 0) + "days";
+                r[10] = date(r[10], "Last supplied", true);
+                if (r[11].isEmpty()) r[11] = "true";
+                else if (r[11].equalsIgnoreCase("true") || r[11].equalsIgnoreCase("false")) r[11] = r[11].toLowerCase();
+                else throw new IllegalArgumentException("Active must be true or false, not " + r[11]);
+                r[12] = String.valueOf(wholeNumber(r[12], "Max capacity", 0));
+            }
+            case SALES -> {
+                String[] item = Record_Store.get(ITEMS_FILE, r[1]);
+                if (item == null) throw new IllegalArgumentException("Unknown item " + r[1]);
+                if (r[2].isEmpty() && item.length > 1) r[2] = item[1];
+                r[3] = String.valueOf(wholeNumber(r[3], "Quantity", 1));
+                r[4] = date(r[4], "Date", false);
+                if (r[5].isEmpty() && Session.getLoggedInUserId() != null) r[5] = Session.getLoggedInUserId();
+            }
+        }
+        return r;
+    }
+
+    // True if a record exists, remembering the IDs already found
+    private static boolean exists(String filename, String id, HashSet<String> found) {
+        if (found.contains(id)) return true;
+        if (!Record_Store.contains(filename, id)) return false;
+        if (found.size() < 100_000) found.add(id);       // Bounded: further lookups go to the store
+        return true;
+    }
+
+    private static void required(String value, String name) {
+        if (value.isEmpty()) throw new IllegalArgumentException(name + " is empty");
+    }
+
+    private static int wholeNumber(String value, String name, int min) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n >= min) return n;
+        } catch (NumberFormatException ignored) {}
+        throw new IllegalArgumentException(name + " must be a whole number of at least " + min + ", not \"" + value + "\"");
+    }
+
+    private static double amount(String value, String name) {
+        try {
+            double n = Double.parseDouble(value);
+            if (n >= 0 && !Double.isInfinite(n)) return n;
+        } catch (NumberFormatException ignored) {}
+        throw new IllegalArgumentException(name + " must be an amount of at least 0, not \"" + value + "\"");
+    }
+
+    // A yyyy-MM-dd date; an empty one becomes today if allowed
+    private static String date(String value, String name, boolean todayIfEmpty) {
+        if (value.isEmpty() && todayIfEmpty) return LocalDate.now().toString();
+        try {
+            return LocalDate.parse(value).toString();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date like 2025-01-31, not \"" + value + "\"");
+        }
+    }
+
+    // A rating as stars: 1-5 as a number or already as stars; empty means 3
+    private static String stars(String value) {
+        if (value.isEmpty()) return "★★★";
+        if (value.chars().allMatch(c -> c == '★') && value.length() <= 5) return value;
+        return "★".repeat(wholeNumberUpTo(value, "Rating", 5));
+    }
+
+    private static int wholeNumberUpTo(String value, String name, int max) {
+        int n = wholeNumber(value, name, 1);
+        if (n > max) throw new IllegalArgumentException(name + " must be at most " + max + ", not " + n);
+        return n;
+    }
+
+    // Adds a skipped row to the error report, creating it on the first one
+    private static void reject(Writer[] report, File reportFile, int rowNumber, String reason, String[] fields) {
+        try {
+            if (report[0] == null) {
+                report[0] = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8));
+                report[0].write("Row,Reason,Data\n");
+            }
+            report[0].write(rowNumber + ","
+                    + Csv_Codec.quoteIfNeeded(reason) + "," + Csv_Codec.quoteIfNeeded(Csv_Codec.join(fields)) + "\n");
+        } catch (IOException e) {
+            System.out.println("⚠️ Error writing import error report: " + e.getMessage());  // Log error
+        }
+    }
+
+    private static String stripExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -3,12 +3,13 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.SimpleDateFormat;
 import java.util.List;
-import java.util.ArrayList;
 
 // Panel for Sales Manager to view, add, edit, and delete items
 public class ItemEntryPanel_SM extends JPanel {
     // Table model for managing item data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
+    // Debounced search over the items
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public ItemEntryPanel_SM() {
@@ -39,7 +40,7 @@ public class ItemEntryPanel_SM extends JPanel {
 
         // --- TABLE SETUP: Shows all items ---
         String[] columnNames = {"Code", "Name", "Supplier ID", "Qty", "Unit Price", "Purchase Price", "Category", "Date", "Notes"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new Record_Table_Model(columnNames);
         JTable itemTable = new JTable(tableModel) {
             // Custom row coloring for better readability
             @Override
@@ -76,21 +77,21 @@ public class ItemEntryPanel_SM extends JPanel {
         JButton addBtn = new JButton("Add");
         JButton editBtn = new JButton("Edit");
         JButton deleteBtn = new JButton("Delete");
+        JButton importBtn = new JButton("📥 Import CSV");
         buttonPanel.add(addBtn);
         buttonPanel.add(editBtn);
         buttonPanel.add(deleteBtn);
+        buttonPanel.add(importBtn);
         add(buttonPanel, BorderLayout.SOUTH);
 
+        // --- SEARCH ---
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/items_data.txt", 9);
+        search.attach(searchField);
+
         // Load items from file into the table
         loadItems();
 
-        // --- SEARCH FILTER LISTENER ---
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(searchField.getText().trim().toLowerCase()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(searchField.getText().trim().toLowerCase()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
-
         // --- ADD BUTTON HANDLER ---
         addBtn.addActionListener(_ -> {
             // Create input fields for new item
@@ -125,32 +126,28 @@ public class ItemEntryPanel_SM extends JPanel {
             int result = JOptionPane.showConfirmDialog(null, panel, "Add New Item", JOptionPane.OK_CANCEL_OPTION);
 
             if (result == JOptionPane.OK_OPTION) {
-                try {
-                    String supplierId = supplierField.getText().trim();
+                String supplierId = supplierField.getText().trim();
+                String name = nameField.getText().trim();
+                String qty = qtyField.getText().trim();
+                String price = priceField.getText().trim();
+                String purchasePrice = purchasePriceField.getText().trim();
+                String category = categoryField.getText().trim();
+                String date = new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue());
+                String notes = noteField.getText().trim();
+
+                Data_Worker.submit(this, () -> {   // Reads and writes off the EDT
                     if (!supplierExists(supplierId)) {
-                        JOptionPane.showMessageDialog(null, "❌ Supplier ID not found in data/suppliers_data.txt", "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
+                        throw new IllegalArgumentException("Supplier ID not found in data/suppliers_data.txt");
                     }
-
                     String nextCode = generateNextItemCode();
-                    String newLine = String.join(",",
-                            nextCode,
-                            nameField.getText().trim(),
-                            supplierId,
-                            qtyField.getText().trim(),
-                            priceField.getText().trim(),
-                            purchasePriceField.getText().trim(),
-                            categoryField.getText().trim(),
-                            new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue()),
-                            noteField.getText().trim()
-                    );
-
+                    String newLine = Csv_Codec.join(nextCode, name, supplierId, qty, price, purchasePrice, category, date, notes);
+                    stockMoved(nextCode, qty, "0", "opening stock");
                     File_Utils.appendLine("data/items_data.txt", newLine);
-                    tableModel.addRow(newLine.split(","));
+                    return nextCode;
+                }, _ -> {
+                    search.refresh();
                     JOptionPane.showMessageDialog(null, "✅ Item added successfully!");
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(null, "❌ Failed to add item: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                }, error -> JOptionPane.showMessageDialog(null, "❌ Failed to add item: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
             }
         });
 
@@ -161,13 +158,14 @@ public class ItemEntryPanel_SM extends JPanel {
             if (keyword == null || keyword.isBlank()) return;
             String searchKey = keyword.trim().toLowerCase();
 
+            long seenVersion = Record_Store.version("data/items_data.txt");   // Before the read: later edits show up as conflicts
             List<String> lines = File_Utils.readLines("data/items_data.txt");
             DefaultTableModel searchModel = new DefaultTableModel(new String[]{"Code", "Name", "Supplier ID", "Qty", "Unit Price", "Purchase Price", "Category", "Date", "Notes"}, 0);
             JTable resultTable = new JTable(searchModel);
 
             // Search for matching items
             for (String line : lines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length >= 9) {
                     boolean match = false;
                     for (int i = 0; i < parts.length; i++) {
@@ -229,34 +227,50 @@ public class ItemEntryPanel_SM extends JPanel {
 
             int update = JOptionPane.showConfirmDialog(null, panel, "Edit Item", JOptionPane.OK_CANCEL_OPTION);
             if (update == JOptionPane.OK_OPTION) {
-                try {
-                    String newLine = String.join(",",
-                            selected[0], selected[1], selected[2],
-                            qtyField.getText().trim(),
-                            priceField.getText().trim(),
-                            purchasePriceField.getText().trim(),
-                            categoryField.getText().trim(),
-                            new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue()),
-                            noteField.getText().trim()
-                    );
-
-                    List<String> updated = new ArrayList<>();
-                    for (String line : lines) {
-                        if (line.startsWith(selected[0] + ",")) {
-                            updated.add(newLine);
-                        } else {
-                            updated.add(line);
+                String newQty = qtyField.getText().trim();
+                String[] values = {
+                        priceField.getText().trim(),
+                        purchasePriceField.getText().trim(),
+                        categoryField.getText().trim(),
+                        new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue()),
+                        noteField.getText().trim()
+                };
+
+                Data_Worker.submit(this, () -> {   // Write off the EDT
+                    boolean qtyChanged = !newQty.equals(selected[3].trim());
+                    int qty = 0;
+                    if (qtyChanged) {
+                        try {
+                            qty = Integer.parseInt(newQty);
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Quantity must be a whole number.");
                         }
                     }
-                    File_Utils.writeLines("data/items_data.txt", new ArrayList<>(updated));
+                    // Only this item's other fields, unless someone changed it while the dialog was open
+                    File_Utils.Update written = File_Utils.compareAndSet("data/items_data.txt", selected[0], seenVersion,
+                            new int[]{4, 5, 6, 7, 8}, values);
+                    if (written == File_Utils.Update.APPLIED && qtyChanged) {
+                        // The stock is set through the ledger, which books the difference to the current figure
+                        written = Stock_Ledger.adjustTo(selected[0], qty, "quantity edited");
+                    }
+                    if (written != File_Utils.Update.APPLIED) {
+                        throw new IllegalStateException(switch (written) {
+                            case CONFLICT -> "This item was changed by someone else in the meantime. Please open it again and retry.";
+                            case MISSING -> "Item " + selected[0] + " no longer exists.";
+                            default -> "The item could not be written.";
+                        });
+                    }
+                    return selected[0];
+                }, _ -> {
                     loadItems();
                     JOptionPane.showMessageDialog(null, "✅ Item updated.");
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(null, "❌ Update failed: " + ex.getMessage());
-                }
+                }, error -> JOptionPane.showMessageDialog(null, "❌ Update failed: " + error.getMessage()));
             }
         });
 
+        // --- IMPORT CSV BUTTON HANDLER: many items from an external file ---
+        importBtn.addActionListener(_ -> BulkImportDialog_SM.open(this, BulkImportEngine_SM.Table.ITEMS, this::loadItems));
+
         // --- DELETE BUTTON HANDLER ---
         deleteBtn.addActionListener(_ -> {
             // Prompt for a keyword to search for the item to delete
@@ -270,7 +284,7 @@ public class ItemEntryPanel_SM extends JPanel {
 
             // Search for matching items
             for (String line : lines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length >= 9) {
                     boolean match = false;
                     for (int i = 0; i < parts.length; i++) {
@@ -304,74 +318,41 @@ public class ItemEntryPanel_SM extends JPanel {
             if (pick != JOptionPane.OK_OPTION || resultTable.getSelectedRow() == -1) return;
 
             String itemCodeToDelete = (String) searchModel.getValueAt(resultTable.getSelectedRow(), 0);
-            List<String> updatedLines = new ArrayList<>();
-            for (String line : lines) {
-                if (!line.startsWith(itemCodeToDelete + ",")) {
-                    updatedLines.add(line);
+            Data_Worker.submit(this, () -> {   // Write off the EDT
+                // Only this record goes; its remaining stock is booked out at the figure it has now
+                File_Utils.Update removed = Stock_Ledger.removeItem(itemCodeToDelete, "item deleted");
+                if (removed != File_Utils.Update.APPLIED) {
+                    throw new IllegalStateException(removed == File_Utils.Update.MISSING
+                            ? "Item " + itemCodeToDelete + " no longer exists." : "The item could not be deleted.");
                 }
-            }
-            File_Utils.writeLines("data/items_data.txt", new ArrayList<>(updatedLines));
-            loadItems();
-            JOptionPane.showMessageDialog(null, "✅ Item deleted successfully.");
+                return itemCodeToDelete;
+            }, _ -> {
+                loadItems();
+                JOptionPane.showMessageDialog(null, "✅ Item deleted successfully.");
+            });
         });
     }
 
-    // Loads all items from data/items_data.txt into the table
+    // Records a hand-made stock change in the Stock_Ledger (quantities that are not numbers are left out)
+    private void stockMoved(String itemCode, String newQty, String oldQty, String reason) {
+        try {
+            int delta = Integer.parseInt(newQty) - Integer.parseInt(oldQty.trim());
+            if (delta != 0) Stock_Ledger.note(itemCode, Stock_Ledger.Kind.ADJUSTMENT, delta, reason);
+        } catch (NumberFormatException ignored) {}
+    }
+
+    // Reloads the table, keeping the current search (the file is only re-read if it changed)
     private void loadItems() {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/items_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length >= 9) {
-                tableModel.addRow(parts);
-            }
-        }
+        search.refresh();
     }
 
     // Generates the next available item code in the format ITM###
     private String generateNextItemCode() {
-        List<String> lines = File_Utils.readLines("data/items_data.txt");
-        int max = 0;
-        for (String line : lines) {
-            if (line.startsWith("ITM")) {
-                try {
-                    int num = Integer.parseInt(line.substring(3, 6));
-                    if (num > max) max = num;
-                } catch (Exception ignored) {}
-            }
-        }
-        return String.format("ITM%03d", max + 1);
+        return Id_Allocator.next("data/items_data.txt", "ITM");   // Persisted sequence, no table scan
     }
 
     // Checks if a supplier ID exists in data/suppliers_data.txt
     private boolean supplierExists(String supplierId) {
-        List<String> lines = File_Utils.readLines("data/suppliers_data.txt");
-        for (String line : lines) {
-            if (line.startsWith(supplierId + ",")) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    // Filters the table based on the search filter string
-    private void filterTable(String filter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/items_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length >= 9) {
-                boolean match = filter.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                if (match) tableModel.addRow(parts);
-            }
-        }
+        return Record_Store.contains("data/suppliers_data.txt", supplierId);
     }
 }
\ No newline at end of file
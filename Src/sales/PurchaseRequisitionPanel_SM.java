@@ -5,13 +5,18 @@ import java.awt.*;
 import java.util.List;
 
 // Panel for Sales Manager to view low stock items and manage purchase requisitions
-public class PurchaseRequisitionPanel_SM extends JPanel {
+public class PurchaseRequisitionPanel_SM extends JPanel implements Panel_Registry.Refreshable {
     // Table model for displaying low stock items and PRs
     private final DefaultTableModel tableModel;
+    // Status filter of the last load (null shows all)
+    private String currentFilter;
+    // Rebuilds the list when items or PRs change while it is showing (held here, Live_Table keeps it weakly)
+    private final Runnable onTablesChanged = () -> { if (isShowing()) reload(); };
 
     // Constructor: sets up the UI and event handlers
     public PurchaseRequisitionPanel_SM() {
         setLayout(new BorderLayout());
+        for (String source : sources()) Live_Table.of(source).observe(onTablesChanged);
 
         // --- TOP PANEL: Title and Status Filter ---
         JPanel topPanel = new JPanel(new BorderLayout());
@@ -127,16 +132,17 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
             java.util.List<String> supplierLines = File_Utils.readLines("data/suppliers_data.txt");
             java.util.List<String> supplierIds = new java.util.ArrayList<>();
             for (String line : supplierLines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length > 0) supplierIds.add(parts[0]);
             }
             JComboBox<String> supplierIdBox = new JComboBox<>(supplierIds.toArray(new String[0]));
 
-            JTextField requiredQtyField = new JTextField("50");
+            // Default quantity and date from the item's reorder suggestion
+            ReorderEngine_SM.Suggestion suggestion = ReorderEngine_SM.suggest(itemCode);
+            java.time.LocalDate suggestedBy = suggestion != null ? suggestion.requiredBy : java.time.LocalDate.now().plusDays(3);
+            JTextField requiredQtyField = new JTextField(suggestion != null ? String.valueOf(suggestion.reorderQty) : "50");
             JSpinner requiredBySpinner = new JSpinner(new javax.swing.SpinnerDateModel());
-            java.util.Calendar cal = java.util.Calendar.getInstance();
-            cal.add(java.util.Calendar.DATE, 3);
-            requiredBySpinner.setValue(cal.getTime());
+            requiredBySpinner.setValue(java.util.Date.from(suggestedBy.atStartOfDay(java.time.ZoneId.systemDefault()).toInstant()));
             requiredBySpinner.setEditor(new JSpinner.DateEditor(requiredBySpinner, "yyyy-MM-dd"));
             JComboBox<String> priorityBox = new JComboBox<>(new String[]{"High", "Medium", "Low"});
             JTextArea remarksArea = new JTextArea(3, 18);
@@ -176,15 +182,19 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
                     String priority = (String) priorityBox.getSelectedItem();
                     String remarks = remarksArea.getText().trim();
                     String supplierId = (String) supplierIdBox.getSelectedItem();
-                    // Generate PR ID
-                    String prId = generateNextRequisitionId();
-                    // Compose line: PRID,ItemCode,ItemName,RequiredQty,RequiredBy,SupplierID,SalesManagerID,Priority,Remarks,Status
-                    String line = String.join(",", prId, itemCode, itemName, requiredQty, reqByStr, supplierId, (salesManagerId != null ? salesManagerId : ""), priority, remarks, "Pending");
-                    File_Utils.appendLine("data/purchase_requisitions_data.txt", line);
-                    JOptionPane.showMessageDialog(null, "✅ Purchase Requisition created!");
-                    // Update desired qty and status in the table
-                    tableModel.setValueAt(requiredQty, selectedRow, 8);
-                    tableModel.setValueAt("Pending", selectedRow, 9);
+                    Data_Worker.submit(this, () -> {   // Write off the EDT
+                        // Generate PR ID
+                        String prId = generateNextRequisitionId();
+                        // Compose line: PRID,ItemCode,ItemName,RequiredQty,RequiredBy,SupplierID,SalesManagerID,Priority,Remarks,Status
+                        String line = Csv_Codec.join(prId, itemCode, itemName, requiredQty, reqByStr, supplierId, (salesManagerId != null ? salesManagerId : ""), priority, remarks, "Pending");
+                        File_Utils.appendLine("data/purchase_requisitions_data.txt", line);
+                        return prId;
+                    }, _ -> {
+                        JOptionPane.showMessageDialog(null, "✅ Purchase Requisition created!");
+                        // Update desired qty and status in the table
+                        tableModel.setValueAt(requiredQty, selectedRow, 8);
+                        tableModel.setValueAt("Pending", selectedRow, 9);
+                    });
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Invalid input: " + ex.getMessage());
                 }
@@ -216,7 +226,9 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
             String requiredByDate = (String) tableModel.getValueAt(selectedRow, 7);
             String desiredQty = (String) tableModel.getValueAt(selectedRow, 8);
 
-            JTextField desiredQtyField = new JTextField(desiredQty.isEmpty() ? "50" : desiredQty);
+            ReorderEngine_SM.Suggestion suggestion = desiredQty.isEmpty() ? ReorderEngine_SM.suggest(itemCode) : null;
+            JTextField desiredQtyField = new JTextField(!desiredQty.isEmpty() ? desiredQty
+                    : suggestion != null ? String.valueOf(suggestion.reorderQty) : "50");
             JSpinner requiredBySpinner = new JSpinner(new javax.swing.SpinnerDateModel());
             try {
                 java.util.Date date = new java.text.SimpleDateFormat("yyyy-MM-dd").parse(requiredByDate);
@@ -241,27 +253,26 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
                     if (qty <= 0) throw new NumberFormatException();
                     java.util.Date reqByDate = (java.util.Date) requiredBySpinner.getValue();
                     String reqByStr = new java.text.SimpleDateFormat("yyyy-MM-dd").format(reqByDate);
-                    // Update the file
-                    List<String> prLines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-                    boolean updated = false;
-                    for (int i = 0; i < prLines.size(); i++) {
-                        String[] prParts = prLines.get(i).split(",");
-                        if (prParts.length >= 10 && prParts[1].equals(itemCode)) {
-                            prParts[3] = newQty; // Desired Qty
-                            prParts[4] = reqByStr; // Required By
-                            prLines.set(i, String.join(",", prParts));
-                            updated = true;
-                            break;
+                    String shownStatus = status;
+                    Data_Worker.submit(this, () -> {   // Reads and writes off the EDT
+                        // Update the first PR for this item, found through the index on the item column
+                        for (String[] prParts : Record_Store.findBy("data/purchase_requisitions_data.txt", 1, itemCode)) {
+                            if (prParts.length >= 10) {
+                                // Desired Qty and Required By
+                                return File_Utils.updateFields("data/purchase_requisitions_data.txt", prParts[0],
+                                        new int[]{3, 4}, new String[]{newQty, reqByStr});
+                            }
                         }
-                    }
-                    if (updated) {
-                        File_Utils.writeLines("data/purchase_requisitions_data.txt", new java.util.ArrayList<>(prLines));
-                        tableModel.setValueAt(newQty, selectedRow, 8);
-                        tableModel.setValueAt(status, selectedRow, 9);
-                        JOptionPane.showMessageDialog(null, "✅ PR updated successfully!");
-                    } else {
-                        JOptionPane.showMessageDialog(null, "❌ Could not find PR to update.");
-                    }
+                        return false;
+                    }, updated -> {
+                        if (updated) {
+                            tableModel.setValueAt(newQty, selectedRow, 8);
+                            tableModel.setValueAt(shownStatus, selectedRow, 9);
+                            JOptionPane.showMessageDialog(null, "✅ PR updated successfully!");
+                        } else {
+                            JOptionPane.showMessageDialog(null, "❌ Could not find PR to update.");
+                        }
+                    });
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Invalid input: " + ex.getMessage());
                 }
@@ -284,25 +295,23 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
                 return;
             }
             String itemCode = (String) tableModel.getValueAt(selectedRow, 0);
-            // Remove from data/purchase_requisitions_data.txt
-            List<String> prLines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-            boolean deleted = false;
-            for (int i = 0; i < prLines.size(); i++) {
-                String[] prParts = prLines.get(i).split(",");
-                if (prParts.length >= 2 && prParts[1].equals(itemCode)) {
-                    prLines.remove(i);
-                    deleted = true;
-                    break;
+            Data_Worker.submit(this, () -> {   // Reads and writes off the EDT
+                // Remove the first PR for this item from data/purchase_requisitions_data.txt, found through the item index
+                for (String[] prParts : Record_Store.findBy("data/purchase_requisitions_data.txt", 1, itemCode)) {
+                    File_Utils.Update removed = File_Utils.deleteRecord("data/purchase_requisitions_data.txt", prParts[0]);
+                    if (removed == File_Utils.Update.FAILED) throw new IllegalStateException("The PR could not be deleted.");
+                    return removed == File_Utils.Update.APPLIED;
                 }
-            }
-            if (deleted) {
-                File_Utils.writeLines("data/purchase_requisitions_data.txt", new java.util.ArrayList<>(prLines));
-                tableModel.setValueAt("", selectedRow, 8); // Clear desired qty
-                tableModel.setValueAt("", selectedRow, 9); // Clear status
-                JOptionPane.showMessageDialog(null, "✅ PR deleted successfully!");
-            } else {
-                JOptionPane.showMessageDialog(null, "❌ Could not find PR to delete.");
-            }
+                return false;
+            }, deleted -> {
+                if (deleted) {
+                    tableModel.setValueAt("", selectedRow, 8); // Clear desired qty
+                    tableModel.setValueAt("", selectedRow, 9); // Clear status
+                    JOptionPane.showMessageDialog(null, "✅ PR deleted successfully!");
+                } else {
+                    JOptionPane.showMessageDialog(null, "❌ Could not find PR to delete.");
+                }
+            });
         });
 
         loadLowStockItems(null);
@@ -320,28 +329,34 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
         });
     }
 
+    // The tables the low stock list joins, and the sales and lead times behind the reorder points (see Panel_Registry)
+    @Override
+    public String[] sources() {
+        return new String[]{"data/items_data.txt", "data/purchase_requisitions_data.txt",
+                "data/sales_data.txt", "data/suppliers_data.txt"};
+    }
+
+    // Rebuilds the list with the current filter after a table changed while the panel was hidden
+    @Override
+    public void reload() {
+        loadLowStockItems(currentFilter);
+    }
+
     // Loads and displays low stock items, applying status filter if provided
     private void loadLowStockItems(String statusFilter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/items_data.txt");
-        java.time.LocalDate requiredBy = java.time.LocalDate.now().plusDays(3);
-        // Read all PRs to find which items already have PRs and their status/desired qty
-        java.util.Map<String, String[]> prItemStatusQty = new java.util.HashMap<>();
-        List<String> prLines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-        for (String prLine : prLines) {
-            String[] prParts = prLine.split(",");
-            if (prParts.length >= 10) {
-                prItemStatusQty.put(prParts[1], new String[]{prParts[3], prParts[9]}); // ItemCode: [DesiredQty, Status]
-            }
-        }
-        java.util.List<Object[]> rows = new java.util.ArrayList<>();
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length >= 8) {
-                try {
-                    int qty = Integer.parseInt(parts[3].trim());
-                    if (qty < 20) {
-                        String[] statusQty = prItemStatusQty.getOrDefault(parts[0], new String[]{"", ""});
+        currentFilter = statusFilter;
+        Data_Worker.fill(this, tableModel, () -> {   // Read off the EDT
+            List<String> lines = File_Utils.readLines("data/items_data.txt");
+            // Reorder point and required-by date per item, from its sales velocity and supplier lead time
+            java.util.HashMap<String, ReorderEngine_SM.Suggestion> plan = ReorderEngine_SM.suggestAll();
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            for (String line : lines) {
+                String[] parts = Csv_Codec.split(line);
+                if (parts.length >= 8) {
+                    ReorderEngine_SM.Suggestion suggestion = plan.get(parts[0]);
+                    if (suggestion != null && suggestion.needsReorder()) {
+                        String requiredBy = suggestion.requiredBy.toString();
+                        String[] statusQty = latestRequisition(parts[0]);   // [DesiredQty, Status]
                         String itemStatus = statusQty[1] == null ? "" : statusQty[1];
                         boolean match = true;
                         if (statusFilter != null) {
@@ -354,21 +369,31 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
                         if (match) {
                             Object[] row = new Object[] {
                                 parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6],
-                                requiredBy.toString(), statusQty[0], itemStatus
+                                requiredBy, statusQty[0], itemStatus
                             };
                             rows.add(row);
                         }
                     }
-                } catch (NumberFormatException ignored) {}
+                }
             }
-        }
-        // Sort rows by status: Pending first, then empty, then Approved, then others
-        rows.sort((a, b) -> {
-            int orderA = statusOrder((String)a[9]);
-            int orderB = statusOrder((String)b[9]);
-            return Integer.compare(orderA, orderB);
+            // Sort rows by status: Pending first, then empty, then Approved, then others
+            rows.sort((a, b) -> {
+                int orderA = statusOrder((String)a[9]);
+                int orderB = statusOrder((String)b[9]);
+                return Integer.compare(orderA, orderB);
+            });
+            return rows;
         });
-        for (Object[] row : rows) tableModel.addRow(row);
+    }
+
+    // Finds the desired qty and status of the latest PR for an item through the index on the item column
+    private String[] latestRequisition(String itemCode) {
+        List<String[]> prs = Record_Store.findBy("data/purchase_requisitions_data.txt", 1, itemCode);
+        for (int i = prs.size() - 1; i >= 0; i--) {
+            String[] prParts = prs.get(i);
+            if (prParts.length >= 10) return new String[]{prParts[3], prParts[9]};
+        }
+        return new String[]{"", ""};
     }
 
     // Helper for status order
@@ -382,17 +407,6 @@ public class PurchaseRequisitionPanel_SM extends JPanel {
 
     // Generates the next PR ID in the format PR###
     private String generateNextRequisitionId() {
-        List<String> lines = File_Utils.readLines("data/purchase_requisitions_data.txt");
-        int max = 0;
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length > 0 && parts[0].startsWith("PR")) {
-                try {
-                    int num = Integer.parseInt(parts[0].substring(2)); // Extract the numeric part after "PR"
-                    if (num > max) max = num;
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("PR%03d", max + 1);
+        return Id_Allocator.next("data/purchase_requisitions_data.txt", "PR");   // Persisted sequence, no table scan
     }
 }
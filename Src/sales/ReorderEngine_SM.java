@@ -0,0 +1,208 @@
+import java.time.LocalDate;                        // Sale dates and required-by dates
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;                          // Supplier lead times
+import java.util.concurrent.ConcurrentHashMap;     // Daily sales per item, filled in parallel
+
+/**
+ * ReorderEngine_SM - Suggests when and how much of each item to reorder
+ * An item's demand is its daily sales velocity: the units sold over the
+ * last WINDOW_DAYS days (up to the newest sale on file) divided by that
+ * window. With its supplier's lead time (suppliers_data.txt, e.g. "5days")
+ * this gives:
+ *   reorder point = velocity x lead time + safety stock
+ *   reorder qty   = velocity x (lead time + review period) + safety stock - stock
+ *   required by   = the day the stock would fall to the safety stock
+ * Items without recent sales keep the old rule (reorder below 20 units,
+ * needed in 3 days), so new items still show up.
+ *
+ * Units sold per item and day are counted once from sales_data.txt (in
+ * parallel) and then kept current by a Record_Store listener as sales are
+ * added, edited or deleted. Suggestions for all items are computed in
+ * parallel as well.
+ */
+public class ReorderEngine_SM {
+
+    private static final String SALES_FILE = "data/sales_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+    private static final String SUPPLIERS_FILE = "data/suppliers_data.txt";
+
+    // Days of sales that make up an item's velocity
+    private static final int WINDOW_DAYS = 30;
+    // Days of demand kept as safety stock
+    private static final int SAFETY_DAYS = 3;
+    // Days of demand an order covers beyond the lead time
+    private static final int REVIEW_DAYS = 14;
+    // Lead time of suppliers without a readable one
+    private static final int DEFAULT_LEAD_DAYS = 3;
+    // Rule for items without recent sales (the old fixed threshold, quantity and required-by);
+    // the old rule reordered below 20 units, i.e. at or below 19
+    private static final int FALLBACK_POINT = 19;
+    private static final int FALLBACK_QTY = 50;
+    private static final int FALLBACK_DAYS = 3;
+
+    /**
+     * The reorder suggestion for one item
+     */
+    public static final class Suggestion {
+        public final String itemCode;
+        public final int onHand;
+        public final double dailyVelocity;  // Units sold per day (0 without recent sales)
+        public final int leadTimeDays;
+        public final int reorderPoint;      // Reorder once the stock is at or below this
+        public final int reorderQty;        // Units to order
+        public final LocalDate requiredBy;  // When the order should arrive
+
+        Suggestion(String itemCode, int onHand, double dailyVelocity, int leadTimeDays,
+                   int reorderPoint, int reorderQty, LocalDate requiredBy) {
+            this.itemCode = itemCode;
+            this.onHand = onHand;
+            this.dailyVelocity = dailyVelocity;
+            this.leadTimeDays = leadTimeDays;
+            this.reorderPoint = reorderPoint;
+            this.reorderQty = reorderQty;
+            this.requiredBy = requiredBy;
+        }
+
+        // True if the item should be reordered now
+        public boolean needsReorder() {
+            return onHand <= reorderPoint;
+        }
+    }
+
+    // Units sold per item code and epoch day; null while a recount is due (set under Record_Store.class)
+    private static ConcurrentHashMap<String, ConcurrentHashMap<Long, Long>> sold;
+    private static volatile long newestDay = Long.MIN_VALUE;   // Day of the newest sale
+    private static boolean following;                           // Listener registered (under Record_Store.class)
+
+    // Reused cursor for changed sales (only touched under the lock)
+    private static final Csv_Codec.Row row = new Csv_Codec.Row();
+
+    /**
+     * Computes the suggestion for every item, in parallel
+     * @return Suggestion per item code
+     */
+    public static HashMap<String, Suggestion> suggestAll() {
+        ConcurrentHashMap<String, ConcurrentHashMap<Long, Long>> counts = counts();
+        HashMap<String, Integer> leadTimes = leadTimes();
+        LocalDate today = LocalDate.now();
+        ConcurrentHashMap<String, Suggestion> all = new ConcurrentHashMap<>();
+        Live_Table.of(ITEMS_FILE).snapshot().lines.parallelStream().forEach(line -> {
+            String[] item = Csv_Codec.split(line);
+            Suggestion s = suggest(item, counts, leadTimes, today);
+            if (s != null) all.put(s.itemCode, s);
+        });
+        return new HashMap<>(all);
+    }
+
+    /**
+     * Computes the suggestion for one item
+     * @param itemCode The item code
+     * @return The suggestion, or null if there is no such item or its stock is not a number
+     */
+    public static Suggestion suggest(String itemCode) {
+        String[] item = Record_Store.get(ITEMS_FILE, itemCode);
+        if (item == null) return null;
+        return suggest(item, counts(), leadTimes(), LocalDate.now());
+    }
+
+    // Applies the reorder rule to one item record
+    private static Suggestion suggest(String[] item, ConcurrentHashMap<String, ConcurrentHashMap<Long, Long>> counts,
+                                      HashMap<String, Integer> leadTimes, LocalDate today) {
+        if (item.length < 4) return null;
+        int onHand;
+        try {
+            onHand = Integer.parseInt(item[3].trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int lead = leadTimes.getOrDefault(item[2], DEFAULT_LEAD_DAYS);
+        double velocity = velocity(counts.get(item[0]));
+        if (velocity <= 0) {
+            return new Suggestion(item[0], onHand, 0, lead, FALLBACK_POINT, FALLBACK_QTY, today.plusDays(FALLBACK_DAYS));
+        }
+        int safety = (int) Math.ceil(velocity * SAFETY_DAYS);
+        int point = (int) Math.ceil(velocity * lead) + safety;
+        int orderUpTo = (int) Math.ceil(velocity * (lead + REVIEW_DAYS)) + safety;
+        long daysLeft = (long) Math.floor(Math.max(0, onHand - safety) / velocity);
+        return new Suggestion(item[0], onHand, velocity, lead, point,
+                Math.max(1, orderUpTo - onHand), today.plusDays(daysLeft));
+    }
+
+    // Units per day sold over the window ending at the newest sale
+    private static double velocity(ConcurrentHashMap<Long, Long> days) {
+        if (days == null) return 0;
+        long end = newestDay;
+        long units = 0;
+        for (var day : days.entrySet()) {
+            if (day.getKey() > end - WINDOW_DAYS && day.getKey() <= end) units += day.getValue();
+        }
+        return Math.max(0, units) / (double) WINDOW_DAYS;
+    }
+
+    // Lead time in days per supplier ID ("5days" -> 5)
+    private static HashMap<String, Integer> leadTimes() {
+        HashMap<String, Integer> leadTimes = new HashMap<>();
+        Record_Store.forEach(SUPPLIERS_FILE, supplier -> {
+            if (supplier.size() <= 9) return;
+            String digits = supplier.get(9).replaceAll("[^0-9]", "");
+            if (digits.isEmpty()) return;
+            try { leadTimes.put(supplier.get(0), Integer.parseInt(digits)); } catch (NumberFormatException ignored) {}
+        });
+        return leadTimes;
+    }
+
+    // Returns the daily counts, counting them from the sales table first if needed
+    private static ConcurrentHashMap<String, ConcurrentHashMap<Long, Long>> counts() {
+        follow();
+        while (true) {
+            synchronized (Record_Store.class) {
+                if (sold != null) return sold;
+            }
+            // Count outside the lock, then keep the result only if no sale arrived meanwhile
+            Live_Table.Snapshot snapshot = Live_Table.of(SALES_FILE).snapshot();
+            ConcurrentHashMap<String, ConcurrentHashMap<Long, Long>> counts = new ConcurrentHashMap<>();
+            long newest = snapshot.lines.parallelStream().mapToLong(line -> {
+                Csv_Codec.Row sale = new Csv_Codec.Row().reset(line);
+                return add(counts, sale, +1);
+            }).max().orElse(Long.MIN_VALUE);
+            synchronized (Record_Store.class) {
+                if (Record_Store.version(SALES_FILE) == snapshot.version) {
+                    sold = counts;
+                    newestDay = newest;
+                    return counts;
+                }
+            }
+        }
+    }
+
+    // Follows the sales table from the first use on
+    private static void follow() {
+        synchronized (Record_Store.class) {
+            if (following) return;
+            following = true;
+            Record_Store.addListener(SALES_FILE, new Record_Store.Listener() {
+                public void recordChanged(String filename, String oldLine, String newLine) {
+                    if (sold == null) return;                      // A recount is due anyway
+                    if (oldLine != null) add(sold, row.reset(oldLine), -1);
+                    if (newLine != null) newestDay = Math.max(newestDay, add(sold, row.reset(newLine), +1));
+                }
+                public void tableReloaded(String filename) {
+                    sold = null;                                   // Recounted on the next query
+                }
+            });
+        }
+    }
+
+    // Adds (sign = +1) or removes (sign = -1) one sale; returns its epoch day (MIN_VALUE if unreadable)
+    private static long add(ConcurrentHashMap<String, ConcurrentHashMap<Long, Long>> counts, Csv_Codec.Row sale, int sign) {
+        if (sale.size() < 5) return Long.MIN_VALUE;
+        try {
+            long day = LocalDate.parse(sale.get(4).trim()).toEpochDay();
+            long qty = sign * (long) sale.parseInt(3);
+            counts.computeIfAbsent(sale.get(1), _ -> new ConcurrentHashMap<>()).merge(day, qty, Long::sum);
+            return day;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
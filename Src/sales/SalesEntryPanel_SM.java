@@ -3,12 +3,13 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.SimpleDateFormat;
 import java.util.List;
-import java.util.ArrayList;
 
 // Panel for Sales Manager to record, edit, and delete sales entries
 public class SalesEntryPanel_SM extends JPanel {
     // Table model for displaying sales records
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
+    // Lists the sales straight from the data file's lines
+    private final Search_Controller search;
 
     // Constructor: sets up the UI and event handlers
     public SalesEntryPanel_SM() {
@@ -22,7 +23,8 @@ public class SalesEntryPanel_SM extends JPanel {
 
         // --- TABLE: Shows sales records ---
         String[] columnNames = {"SaleID", "ItemCode", "ItemName", "Quantity", "Date", "SalesManagerID", "Remarks"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new Record_Table_Model(columnNames);
+        search = new Search_Controller(this, tableModel, "data/sales_data.txt", 7);
         JTable salesTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(javax.swing.table.TableCellRenderer renderer, int row, int column) {
@@ -58,9 +60,11 @@ public class SalesEntryPanel_SM extends JPanel {
         JButton addBtn = new JButton("Add");
         JButton editBtn = new JButton("Edit");
         JButton deleteBtn = new JButton("Delete");
+        JButton importBtn = new JButton("📥 Import CSV");
         buttonPanel.add(addBtn);
         buttonPanel.add(editBtn);
         buttonPanel.add(deleteBtn);
+        buttonPanel.add(importBtn);
         add(buttonPanel, BorderLayout.SOUTH);
 
         // Load initial sales records
@@ -98,53 +102,53 @@ public class SalesEntryPanel_SM extends JPanel {
                     String inputItemCode = itemInfo[0];
                     String itemName = itemInfo[1];
 
-                    // Look up current quantity from data/items_data.txt
-                    List<String> itemLines = File_Utils.readLines("data/data/items_data.txt");
-                    int itemIndex = -1;
-                    int currentQty = -1;
-                    for (int i = 0; i < itemLines.size(); i++) {
-                        String[] parts = itemLines.get(i).split(",");
-                        if (parts.length >= 4 && parts[0].equalsIgnoreCase(inputItemCode)) {
-                            try {
-                                currentQty = Integer.parseInt(parts[3].trim());
-                            } catch (Exception _) {
-                            }
-                            itemIndex = i;
-                            break;
-                        }
-                    }
-
                     String quantityStr = qtyField.getText().trim();
                     int saleQty;
                     try {
                         saleQty = Integer.parseInt(quantityStr);
                     } catch (Exception e) {
-                        JOptionPane.showMessageDialog(null, "❌ Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
+                        saleQty = 0;
                     }
-
-                    if (saleQty > currentQty) {
-                        JOptionPane.showMessageDialog(null, "❌ Not enough stock. Available: " + currentQty, "Error", JOptionPane.ERROR_MESSAGE);
+                    if (saleQty <= 0) {
+                        JOptionPane.showMessageDialog(null, "❌ Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
                         return;
                     }
 
-                    // Deduct quantity and update data/items_data.txt
-                    int newQty = currentQty - saleQty;
-                    String[] itemParts = itemLines.get(itemIndex).split(",");
-                    itemParts[3] = String.valueOf(newQty);
-                    itemLines.set(itemIndex, String.join(",", itemParts));
-                    File_Utils.writeLines("data/items_data.txt", new ArrayList<>(itemLines));
-
                     String date = new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue());
                     String remarks = remarksField.getText().trim();
-                    String saleId = generateNextSaleId();
                     String managerId = Session.getLoggedInUserId();
+                    int qty = saleQty;
+                    Data_Worker.submit(this, () -> {   // Reservation and writes off the EDT
+                        // Set the units aside first, so another terminal cannot sell them meanwhile
+                        Stock_Reservations.Reservation reservation = Stock_Reservations.reserve(inputItemCode, qty);
+                        if (reservation == null) {
+                            throw new IllegalStateException("Not enough stock. Available: " + Stock_Reservations.available(inputItemCode));
+                        }
 
-                    String newLine = String.join(",", saleId, inputItemCode, itemName, String.valueOf(saleQty), date, managerId, remarks);
+                        String newLine;
+                        String saleId;
+                        try {
+                            saleId = generateNextSaleId();
+                            newLine = Csv_Codec.join(saleId, inputItemCode, itemName, String.valueOf(qty), date, managerId, remarks);
+                        } catch (RuntimeException e) {
+                            reservation.release();              // Nothing was sold
+                            throw e;
+                        }
 
-                    File_Utils.appendLine("data/sales_data.txt", newLine);
-                    tableModel.addRow(newLine.split(","));
-                    JOptionPane.showMessageDialog(null, "✅ Sale recorded successfully!");
+                        // Stock movement, new stock and sale record are written together
+                        File_Utils.Update written = reservation.commit("data/sales_data.txt", newLine, saleId);
+                        if (written != File_Utils.Update.APPLIED) {
+                            throw new IllegalStateException(switch (written) {
+                                case CONFLICT -> "Not enough stock. Available: " + Stock_Reservations.available(inputItemCode);
+                                case MISSING -> "Item " + inputItemCode + " no longer exists.";
+                                default -> "The sale could not be written.";
+                            });
+                        }
+                        return saleId;
+                    }, _ -> {
+                        loadsales();
+                        JOptionPane.showMessageDialog(null, "✅ Sale recorded successfully!");
+                    }, error -> JOptionPane.showMessageDialog(null, "❌ " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Failed to add sale: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -157,13 +161,14 @@ public class SalesEntryPanel_SM extends JPanel {
             if (keyword == null || keyword.isBlank()) return;
             keyword = keyword.trim().toLowerCase();
 
+            long seenVersion = Record_Store.version("data/sales_data.txt");   // Before the read: later edits show up as conflicts
             List<String> lines = File_Utils.readLines("data/sales_data.txt");
             DefaultTableModel searchModel = new DefaultTableModel(
                     new String[]{"SaleID", "ItemCode", "ItemName", "Quantity", "Date", "SalesManagerID", "Remarks"}, 0);
             JTable resultTable = new JTable(searchModel);
 
             for (String line : lines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length >= 7 &&
                         (parts[0].toLowerCase().contains(keyword) ||
                                 parts[1].toLowerCase().contains(keyword) ||
@@ -203,32 +208,66 @@ public class SalesEntryPanel_SM extends JPanel {
             int update = JOptionPane.showConfirmDialog(null, panel, "Edit Sale", JOptionPane.OK_CANCEL_OPTION);
             if (update == JOptionPane.OK_OPTION) {
                 try {
-                    String managerId = Session.getLoggedInUserId();
-                    String newLine = String.join(",",
-                            selected[0], selected[1], selected[2],
-                            qtyField.getText().trim(),
+                    int newQty;
+                    try {
+                        newQty = Integer.parseInt(qtyField.getText().trim());
+                    } catch (Exception e) {
+                        newQty = 0;
+                    }
+                    if (newQty <= 0) {
+                        JOptionPane.showMessageDialog(null, "❌ Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    int qty = newQty;
+                    int[] columns = {3, 4, 5, 6};
+                    String[] values = {
+                            String.valueOf(qty),
                             new SimpleDateFormat("yyyy-MM-dd").format(dateSpinner.getValue()),
-                            managerId,
-                            remarksField.getText().trim());
-
-                    List<String> updated = new ArrayList<>();
-                    for (String line : lines) {
-                        if (line.startsWith(selected[0] + ",")) {
-                            updated.add(newLine);
+                            Session.getLoggedInUserId(),
+                            remarksField.getText().trim()
+                    };
+
+                    // A changed quantity moves the stock by the difference
+                    int returned = Integer.parseInt(selected[3].trim()) - qty;
+                    Data_Worker.submit(this, () -> {   // Writes off the EDT
+                        File_Utils.Update written;
+                        if (returned < 0) {
+                            // More units sold: the extra units are reserved and checked like a new sale
+                            Stock_Reservations.Reservation reservation = Stock_Reservations.reserve(selected[1], -returned);
+                            if (reservation == null) {
+                                throw new IllegalStateException("Not enough stock for " + (-returned) + " more units. Available: "
+                                        + Stock_Reservations.available(selected[1]));
+                            }
+                            written = reservation.commitEdit("data/sales_data.txt", selected[0], columns, values);
+                            if (written == File_Utils.Update.CONFLICT) {
+                                throw new IllegalStateException("Not enough stock. Available: " + Stock_Reservations.available(selected[1]));
+                            }
                         } else {
-                            updated.add(line);
+                            // Same or fewer units sold: only this sale's fields, and the difference goes back into stock
+                            written = Stock_Reservations.reduceSale("data/sales_data.txt", selected[0], seenVersion, qty, columns, values);
+                            if (written == File_Utils.Update.CONFLICT) {
+                                throw new IllegalStateException("This sale was changed by someone else in the meantime. Please open it again and retry.");
+                            }
                         }
-                    }
-
-                    File_Utils.writeLines("data/sales_data.txt", new ArrayList<>(updated));
-                    loadsales();
-                    JOptionPane.showMessageDialog(null, "✅ Sale updated.");
+                        if (written != File_Utils.Update.APPLIED) {
+                            throw new IllegalStateException(written == File_Utils.Update.MISSING
+                                    ? "Item " + selected[1] + " or sale " + selected[0] + " no longer exists."
+                                    : "The sale could not be written.");
+                        }
+                        return selected[0];
+                    }, _ -> {
+                        loadsales();
+                        JOptionPane.showMessageDialog(null, "✅ Sale updated.");
+                    }, error -> JOptionPane.showMessageDialog(null, "❌ Update failed: " + error.getMessage()));
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Update failed: " + ex.getMessage());
                 }
             }
         });
 
+        // --- Import CSV button handler: many records from an external file ---
+        importBtn.addActionListener(_ -> BulkImportDialog_SM.open(this, BulkImportEngine_SM.Table.SALES, this::loadsales));
+
         // --- Delete Sale button handler ---
         deleteBtn.addActionListener(_ -> {
             String keyword = JOptionPane.showInputDialog("Enter Sale ID, Item Code, Item Name, or Sales Manager ID to delete:");
@@ -241,7 +280,7 @@ public class SalesEntryPanel_SM extends JPanel {
             JTable resultTable = new JTable(searchModel);
 
             for (String line : lines) {
-                String[] parts = line.split(",");
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length >= 7 &&
                         (parts[0].toLowerCase().contains(keyword) ||
                                 parts[1].toLowerCase().contains(keyword) ||
@@ -262,46 +301,29 @@ public class SalesEntryPanel_SM extends JPanel {
             if (pick != JOptionPane.OK_OPTION || resultTable.getSelectedRow() == -1) return;
 
             String saleIdToDelete = (String) searchModel.getValueAt(resultTable.getSelectedRow(), 0);
-
-            List<String> updatedLines = new ArrayList<>();
-            for (String line : lines) {
-                if (!line.startsWith(saleIdToDelete + ",")) {
-                    updatedLines.add(line);
+            Data_Worker.submit(this, () -> {   // Writes off the EDT
+                // Only this record goes, and the units it sells now go back into stock
+                File_Utils.Update removed = Stock_Reservations.deleteSale("data/sales_data.txt", saleIdToDelete);
+                if (removed != File_Utils.Update.APPLIED) {
+                    throw new IllegalStateException(removed == File_Utils.Update.MISSING
+                            ? "Sale " + saleIdToDelete + " no longer exists." : "The sale could not be deleted.");
                 }
-            }
-
-            File_Utils.writeLines("data/sales_data.txt", new ArrayList<>(updatedLines));
-            loadsales();
-            JOptionPane.showMessageDialog(null, "✅ Sale record deleted successfully.");
+                return saleIdToDelete;
+            }, _ -> {
+                loadsales();
+                JOptionPane.showMessageDialog(null, "✅ Sale record deleted successfully.");
+            });
         });
     }
 
     // Loads and displays sales records from data/sales_data.txt
     private void loadsales() {
-        tableModel.setRowCount(0); // Clear existing rows
-        List<String> lines = File_Utils.readLines("data/sales_data.txt");
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length >= 7) {
-                tableModel.addRow(parts);
-            }
-        }
+        search.refresh();   // Off the EDT; the lines are only re-read if the file changed
     }
 
     // Generates the next Sale ID in the format SD###
     private String generateNextSaleId() {
-        List<String> lines = File_Utils.readLines("data/sales_data.txt");
-        int max = 0;
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length > 0 && parts[0].startsWith("SD")) {
-                try {
-                    int num = Integer.parseInt(parts[0].substring(2)); // Extract the numeric part after "SD"
-                    if (num > max) max = num;
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("SD%03d", max + 1);
+        return Id_Allocator.next("data/sales_data.txt", "SD");   // Persisted sequence, no table scan
     }
 
     // Creates a combo box (drop-down) for selecting an item (from data/items_data.txt)
@@ -315,7 +337,7 @@ public class SalesEntryPanel_SM extends JPanel {
         // Load items from data/items_data.txt
         List<String> itemLines = File_Utils.readLines("data/items_data.txt");
         for (String line : itemLines) {
-            String[] parts = line.split(",");
+            String[] parts = Csv_Codec.split(line);
             if (parts.length >= 4) {
                 String itemCode = parts[0].trim();
                 String itemName = parts[1].trim();
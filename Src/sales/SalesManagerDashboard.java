@@ -62,6 +62,8 @@ public class SalesManagerDashboard {
         JLabel contentLabel = new JLabel("Welcome back, " + displayName + "!", SwingConstants.CENTER);
         contentLabel.setFont(new Font("Times New Roman", Font.PLAIN, 22));
         contentPanel.add(contentLabel, BorderLayout.CENTER);
+        // Builds each panel on first use and keeps it for later visits
+        Panel_Registry panels = new Panel_Registry(contentPanel);
 
         // Add navigation buttons to the sidebar and set up their event handlers
         for (String item : menuItems) {
@@ -80,40 +82,22 @@ public class SalesManagerDashboard {
                         Main.createLoginUI(); // return to login
                     }
                     case "Manage Items" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ItemEntryPanel_SM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ItemEntryPanel_SM.class, ItemEntryPanel_SM::new);
                     }
                     case "Manage Suppliers" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new SupplierEntryPanel_SM(), BorderLayout.CENTER);
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(SupplierEntryPanel_SM.class, SupplierEntryPanel_SM::new);
                     }
                     case "Record Sales" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new SalesEntryPanel_SM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(SalesEntryPanel_SM.class, SalesEntryPanel_SM::new);
                     }
                     case "Create Requisition" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new PurchaseRequisitionPanel_SM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(PurchaseRequisitionPanel_SM.class, PurchaseRequisitionPanel_SM::new);
                     }
                     case "View Requisitions" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseRequisitionPanel_SM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseRequisitionPanel_SM.class, ViewPurchaseRequisitionPanel_SM::new);
                     }
                     case "View Purchase Orders" -> {
-                        contentPanel.removeAll();
-                        contentPanel.add(new ViewPurchaseOrderPanel_SM());
-                        contentPanel.revalidate();
-                        contentPanel.repaint();
+                        panels.show(ViewPurchaseOrderPanel_SM.class, ViewPurchaseOrderPanel_SM::new);
                     }
                     default -> {
                         contentLabel.setText(item + " selected. (Functionality to be implemented)");
@@ -2,14 +2,15 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
-import java.util.ArrayList;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 // Panel for Sales Manager to manage supplier records (add, edit, delete, search)
 public class SupplierEntryPanel_SM extends JPanel {
     // Table model for displaying supplier data
-    private final DefaultTableModel tableModel;
+    private final Record_Table_Model tableModel;
+    // Debounced search over the suppliers
+    private final Search_Controller search;
     // Formatter for date fields
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
@@ -45,12 +46,7 @@ public class SupplierEntryPanel_SM extends JPanel {
             "ID", "Name", "Phone", "Region", "Rating", "Specialty 1", "Specialty 2",
             "Email", "Bank Info", "Lead Time", "Last Supplied", "Active", "Max Capacity", "Notes"
         };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new Record_Table_Model(columnNames);
         JTable supplierTable = new JTable(tableModel) {
             @Override
             public Component prepareRenderer(javax.swing.table.TableCellRenderer renderer, int row, int column) {
@@ -87,21 +83,21 @@ public class SupplierEntryPanel_SM extends JPanel {
         JButton addBtn = new JButton("Add");
         JButton editBtn = new JButton("Edit");
         JButton deleteBtn = new JButton("Delete");
+        JButton importBtn = new JButton("📥 Import CSV");
         buttonPanel.add(addBtn);
         buttonPanel.add(editBtn);
         buttonPanel.add(deleteBtn);
+        buttonPanel.add(importBtn);
         add(buttonPanel, BorderLayout.SOUTH);
 
+        // --- SEARCH ---
+        // Searches an in-memory copy of the file, debounced while the user types
+        search = new Search_Controller(this, tableModel, "data/suppliers_data.txt", 14);
+        search.attach(searchField);
+
         // Load initial supplier records
         loadSuppliers();
 
-        // --- SEARCH FILTER LISTENER ---
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(searchField.getText().trim().toLowerCase()); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(searchField.getText().trim().toLowerCase()); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {}
-        });
-
         // --- Add Supplier button handler ---
         addBtn.addActionListener(_ -> {
             JTextField nameField = new JTextField();
@@ -155,32 +151,36 @@ public class SupplierEntryPanel_SM extends JPanel {
 
             if (result == JOptionPane.OK_OPTION) {
                 try {
-                    String newId = generateNextSupplierId();
                     String lastSupplied = new java.text.SimpleDateFormat("yyyy-MM-dd").format(lastSuppliedSpinner.getValue());
                     int leadTimeNum = (int) leadTimeSpinner.getValue();
                     String leadTime = leadTimeNum + "days";
                     String maxCapacity = validatePositiveInt(maxCapacityField.getText().trim(), "Max Capacity");
 
-                    String newLine = String.join(",",
-                        quoteIfNeeded(newId),
-                        quoteIfNeeded(nameField.getText().trim()),
-                        quoteIfNeeded(contactField.getText().trim()),
-                        quoteIfNeeded(regionField.getText().trim()),
-                        quoteIfNeeded(convertStars(ratingField.getText().trim())),
-                        quoteIfNeeded(specialty1Field.getText().trim()),
-                        quoteIfNeeded(specialty2Field.getText().trim()),
-                        quoteIfNeeded(emailField.getText().trim()),
-                        quoteIfNeeded(bankInfoField.getText().trim()),
-                        quoteIfNeeded(leadTime),
-                        quoteIfNeeded(lastSupplied),
-                        quoteIfNeeded(String.valueOf(activeCheckBox.isSelected())),
-                        quoteIfNeeded(maxCapacity),
-                        quoteIfNeeded(notesArea.getText().trim())
-                    );
-
-                    File_Utils.appendLine("data/suppliers_data.txt", newLine);
-                    tableModel.addRow(parseCSVLine(newLine));
-                    JOptionPane.showMessageDialog(null, "✅ Supplier added successfully!");
+                    String[] fields = {
+                        "",                                 // ID given when the record is written
+                        nameField.getText().trim(),
+                        contactField.getText().trim(),
+                        regionField.getText().trim(),
+                        convertStars(ratingField.getText().trim()),
+                        specialty1Field.getText().trim(),
+                        specialty2Field.getText().trim(),
+                        emailField.getText().trim(),
+                        bankInfoField.getText().trim(),
+                        leadTime,
+                        lastSupplied,
+                        String.valueOf(activeCheckBox.isSelected()),
+                        maxCapacity,
+                        notesArea.getText().trim()
+                    };
+
+                    Data_Worker.submit(this, () -> {   // Write off the EDT
+                        fields[0] = generateNextSupplierId();
+                        File_Utils.appendLine("data/suppliers_data.txt", Csv_Codec.join(fields));
+                        return fields[0];
+                    }, _ -> {
+                        search.refresh();
+                        JOptionPane.showMessageDialog(null, "✅ Supplier added successfully!");
+                    }, error -> JOptionPane.showMessageDialog(null, "❌ Failed to add supplier: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Failed to add supplier: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -193,12 +193,13 @@ public class SupplierEntryPanel_SM extends JPanel {
             if (keyword == null || keyword.isBlank()) return;
             String searchKey = keyword.trim().toLowerCase();
 
+            long seenVersion = Record_Store.version("data/suppliers_data.txt");   // Before the read: later edits show up as conflicts
             List<String> lines = File_Utils.readLines("data/suppliers_data.txt");
             DefaultTableModel searchModel = new DefaultTableModel(columnNames, 0);
             JTable resultTable = new JTable(searchModel);
 
             for (String line : lines) {
-                String[] parts = parseCSVLine(line);
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length >= 14 &&
                     (parts[0].toLowerCase().contains(searchKey) ||
                      parts[1].toLowerCase().contains(searchKey) ||
@@ -270,41 +271,46 @@ public class SupplierEntryPanel_SM extends JPanel {
                     String leadTime = validatePositiveInt(leadTimeField.getText().trim(), "Lead Time");
                     String maxCapacity = validatePositiveInt(maxCapacityField.getText().trim(), "Max Capacity");
 
-                    String newLine = String.join(",",
-                        quoteIfNeeded(selected[0]),
-                        quoteIfNeeded(selected[1]),
-                        quoteIfNeeded(contactField.getText().trim()),
-                        quoteIfNeeded(regionField.getText().trim()),
-                        quoteIfNeeded(convertStars(ratingField.getText().trim())),
-                        quoteIfNeeded(specialty1Field.getText().trim()),
-                        quoteIfNeeded(specialty2Field.getText().trim()),
-                        quoteIfNeeded(emailField.getText().trim()),
-                        quoteIfNeeded(bankInfoField.getText().trim()),
-                        quoteIfNeeded(leadTime),
-                        quoteIfNeeded(lastSupplied),
-                        quoteIfNeeded(String.valueOf(activeCheckBox.isSelected())),
-                        quoteIfNeeded(maxCapacity),
-                        quoteIfNeeded(notesArea.getText().trim())
-                    );
-
-                    List<String> updated = new ArrayList<>();
-                    for (String line : lines) {
-                        String[] parts = parseCSVLine(line);
-                        if (parts.length > 0 && parts[0].equals(selected[0])) {
-                            updated.add(newLine);
-                        } else {
-                            updated.add(line);
+                    String[] values = {
+                        contactField.getText().trim(),
+                        regionField.getText().trim(),
+                        convertStars(ratingField.getText().trim()),
+                        specialty1Field.getText().trim(),
+                        specialty2Field.getText().trim(),
+                        emailField.getText().trim(),
+                        bankInfoField.getText().trim(),
+                        leadTime,
+                        lastSupplied,
+                        String.valueOf(activeCheckBox.isSelected()),
+                        maxCapacity,
+                        notesArea.getText().trim()
+                    };
+
+                    Data_Worker.submit(this, () -> {   // Write off the EDT
+                        // Only this supplier's fields, unless someone changed it while the dialog was open
+                        File_Utils.Update written = File_Utils.compareAndSet("data/suppliers_data.txt", selected[0], seenVersion,
+                                new int[]{2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13}, values);
+                        if (written != File_Utils.Update.APPLIED) {
+                            throw new IllegalStateException(switch (written) {
+                                case CONFLICT -> "This supplier was changed by someone else in the meantime. Please open it again and retry.";
+                                case MISSING -> "Supplier " + selected[0] + " no longer exists.";
+                                default -> "The supplier could not be written.";
+                            });
                         }
-                    }
-                    File_Utils.writeLines("data/suppliers_data.txt", new ArrayList<>(updated));
-                    loadSuppliers();
-                    JOptionPane.showMessageDialog(null, "✅ Supplier updated successfully.");
+                        return selected[0];
+                    }, _ -> {
+                        loadSuppliers();
+                        JOptionPane.showMessageDialog(null, "✅ Supplier updated successfully.");
+                    }, error -> JOptionPane.showMessageDialog(null, "❌ Update failed: " + error.getMessage()));
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(null, "❌ Update failed: " + ex.getMessage());
                 }
             }
         });
 
+        // --- Import CSV button handler: many records from an external file ---
+        importBtn.addActionListener(_ -> BulkImportDialog_SM.open(this, BulkImportEngine_SM.Table.SUPPLIERS, this::loadSuppliers));
+
         // --- Delete Supplier button handler ---
         deleteBtn.addActionListener(_ -> {
             String keyword = JOptionPane.showInputDialog("Enter Supplier ID, Name, or Region to Delete:");
@@ -316,7 +322,7 @@ public class SupplierEntryPanel_SM extends JPanel {
             JTable resultTable = new JTable(searchModel);
 
             for (String line : lines) {
-                String[] parts = parseCSVLine(line);
+                String[] parts = Csv_Codec.split(line);
                 if (parts.length >= 14 &&
                     (parts[0].toLowerCase().contains(searchKey) ||
                      parts[1].toLowerCase().contains(searchKey) ||
@@ -336,44 +342,29 @@ public class SupplierEntryPanel_SM extends JPanel {
             if (pick != JOptionPane.OK_OPTION || resultTable.getSelectedRow() == -1) return;
 
             String supplierIdToDelete = (String) searchModel.getValueAt(resultTable.getSelectedRow(), 0);
-            List<String> updatedLines = new ArrayList<>();
-            for (String line : lines) {
-                String[] parts = parseCSVLine(line);
-                if (parts.length > 0 && !parts[0].equals(supplierIdToDelete)) {
-                    updatedLines.add(line);
+            Data_Worker.submit(this, () -> {   // Write off the EDT
+                // Only this record goes; the rest of the file is taken as it is now
+                File_Utils.Update removed = File_Utils.deleteRecord("data/suppliers_data.txt", supplierIdToDelete);
+                if (removed != File_Utils.Update.APPLIED) {
+                    throw new IllegalStateException(removed == File_Utils.Update.MISSING
+                            ? "Supplier " + supplierIdToDelete + " no longer exists." : "The supplier could not be deleted.");
                 }
-            }
-            File_Utils.writeLines("data/suppliers_data.txt", new ArrayList<>(updatedLines));
-            loadSuppliers();
-            JOptionPane.showMessageDialog(null, "✅ Supplier deleted successfully.");
+                return supplierIdToDelete;
+            }, _ -> {
+                loadSuppliers();
+                JOptionPane.showMessageDialog(null, "✅ Supplier deleted successfully.");
+            });
         });
     }
 
-    // Loads and displays supplier records from data/suppliers_data.txt
+    // Reloads the table, keeping the current search (the file is only re-read if it changed)
     private void loadSuppliers() {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/suppliers_data.txt");
-        for (String line : lines) {
-            String[] parts = parseCSVLine(line);
-            if (parts.length >= 14) {
-                tableModel.addRow(parts);
-            }
-        }
+        search.refresh();
     }
 
     // Generates the next Supplier ID in the format SUP###
     private String generateNextSupplierId() {
-        List<String> lines = File_Utils.readLines("data/suppliers_data.txt");
-        int max = 0;
-        for (String line : lines) {
-            if (line.startsWith("SUP")) {
-                try {
-                    int num = Integer.parseInt(line.substring(3, 6));
-                    if (num > max) max = num;
-                } catch (Exception ignored) {}
-            }
-        }
-        return String.format("SUP%03d", max + 1);
+        return Id_Allocator.next("data/suppliers_data.txt", "SUP");   // Persisted sequence, no table scan
     }
 
     // Converts a numeric rating to star symbols (★)
@@ -406,53 +397,4 @@ public class SupplierEntryPanel_SM extends JPanel {
             throw new IllegalArgumentException("Invalid " + fieldName + ". Please enter a valid number");
         }
     }
-
-    // Utility to parse a CSV line with quoted fields
-    private static String[] parseCSVLine(String line) {
-        java.util.List<String> result = new java.util.ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                result.add(sb.toString());
-                sb.setLength(0);
-            } else {
-                sb.append(c);
-            }
-        }
-        result.add(sb.toString());
-        return result.toArray(new String[0]);
-    }
-
-    // Utility to quote a field if it contains a comma or quote
-    private static String quoteIfNeeded(String field) {
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            return '"' + field.replace("\"", "\"\"") + '"';
-        }
-        return field;
-    }
-
-    // Filters the table based on the search field input
-    private void filterTable(String filter) {
-        tableModel.setRowCount(0);
-        List<String> lines = File_Utils.readLines("data/suppliers_data.txt");
-        for (String line : lines) {
-            String[] parts = parseCSVLine(line);
-            if (parts.length >= 14) {
-                boolean match = filter.isEmpty();
-                if (!match) {
-                    for (String part : parts) {
-                        if (part.toLowerCase().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                if (match) tableModel.addRow(parts);
-            }
-        }
-    }
 }
\ No newline at end of file
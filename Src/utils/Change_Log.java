@@ -0,0 +1,197 @@
+import java.io.*;                                   // File access for the log files
+import java.nio.file.Files;                        // Retiring a log by rename
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;                        // Entries read back during replay
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;     // Pending counters and queued compactions, shared by all tables' writers
+import java.util.concurrent.Executors;             // Background compactor thread
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change_Log - Append-only log of single-field updates for the data tables
+ * Instead of rewriting a whole file to change one column (PO status, stock,
+ * payment status), the change is appended to a per-table log next to the
+ * data file (e.g. data/purchase_orders_data.log). A background compactor
+ * later folds the log into the base file, and Record_Store replays any
+ * remaining entries when a table is loaded, so nothing is lost on restart.
+ *
+ * Every entry stores the resulting value of the field ("SET,id,column,value",
+ * with the value quoted like any CSV field), never a delta. A full rewrite
+ * retires the log (renames it to e.g. data/items_data.log.folding) once the
+ * new content is staged and before it is renamed over the base file, so old
+ * entries are never replayed over a newer rewrite. After a crash in between,
+ * the staged file is still there and the retired entries are replayed over
+ * the old base file they belong to.
+ */
+public class Change_Log {
+
+    // Fold a table once this many entries are waiting in its log
+    private static final int COMPACT_THRESHOLD = 256;
+    // Otherwise fold it this many seconds after the first pending entry
+    private static final int COMPACT_DELAY_SECONDS = 5;
+
+    // Number of entries appended to each log since it was last folded
+    private static final ConcurrentHashMap<String, Integer> pending = new ConcurrentHashMap<>();
+    // Tables that already have a compaction queued
+    private static final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    // Single daemon thread that folds logs into their base files
+    private static final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "change-log-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Returns the log file that belongs to a data file
+     * @param filename The path to the data file (e.g. data/items_data.txt)
+     * @return The log file (e.g. data/items_data.log)
+     */
+    public static File logFile(String filename) {
+        String base = filename.endsWith(".txt") ? filename.substring(0, filename.length() - 4) : filename;
+        return new File(base + ".log");
+    }
+
+    // The log of a full rewrite that has been staged but maybe not yet renamed into place
+    private static File retiredFile(String filename) {
+        return new File(logFile(filename).getPath() + ".folding");
+    }
+
+    /**
+     * Appends field updates for one record to the table's log
+     * Must be called while holding the table's Lock_Manager lock
+     * @param filename The path to the data file being updated
+     * @param identifier The primary ID of the record
+     * @param columns The column indexes being set
+     * @param values The new values, one per column
+     * @return Group-commit ticket to pass to Durable_Writer.awaitDurable
+     * @throws IOException If the log could not be written
+     */
+    static long append(String filename, String identifier, int[] columns, String[] values) throws IOException {
+        return append(filename, List.of(identifier), columns, List.<String[]>of(values));
+    }
+
+    /**
+     * Appends the same field updates for many records to the table's log in a single write
+     * Must be called while holding the table's Lock_Manager lock
+     * @param filename The path to the data file being updated
+     * @param identifiers The primary IDs of the records
+     * @param columns The column indexes being set
+     * @param values The new values per record (same order as identifiers), one per column
+     * @return Group-commit ticket to pass to Durable_Writer.awaitDurable
+     * @throws IOException If the log could not be written
+     */
+    static long append(String filename, List<String> identifiers, int[] columns, List<String[]> values) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (int r = 0; r < identifiers.size(); r++) {
+            for (int i = 0; i < columns.length; i++) {
+                entries.add("SET," + identifiers.get(r) + "," + columns[i] + "," + Csv_Codec.quoteIfNeeded(values.get(r)[i]));
+            }
+        }
+        if (entries.isEmpty()) return 0;
+        long ticket = Durable_Writer.append(logFile(filename).getPath(), entries);
+        int count = pending.merge(filename, entries.size(), Integer::sum);
+        if (count >= COMPACT_THRESHOLD) {
+            compactor.execute(() -> compact(filename));        // Log is getting long, fold it now
+        } else {
+            schedule(filename);
+        }
+        return ticket;
+    }
+
+    /**
+     * Reads back all entries of a table's log in the order they were written
+     * Each entry is returned as {identifier, column, value}
+     * @param filename The path to the data file
+     * @return List of entries, empty if there is no log
+     */
+    static List<String[]> entries(String filename) {
+        List<String[]> entries = new ArrayList<>();
+        File retired = retiredFile(filename);
+        if (retired.exists() && new File(filename + ".tmp").exists()) {
+            read(retired, entries);                            // Rewrite never reached its rename; the base file is still the old one
+        }
+        read(logFile(filename), entries);
+        if (!entries.isEmpty()) {
+            pending.put(filename, entries.size());           // The log holds them all; appends already counted are among them
+            schedule(filename);                                // Recovered entries get folded soon
+        }
+        return entries;
+    }
+
+    // Adds the entries of one log file to the list; a torn last entry (no line break yet) is skipped
+    private static void read(File log, List<String[]> entries) {
+        if (!log.exists()) return;
+        int before = entries.size();
+        try (BufferedReader reader = new BufferedReader(new FileReader(log))) {
+            Csv_Codec.stream(reader, row -> {
+                if (row.size() >= 4 && row.equals(0, "SET")) {
+                    String value = row.get(3);
+                    for (int i = 4; i < row.size(); i++) value += "," + row.get(i);   // Unquoted value from an older log
+                    entries.add(new String[]{row.get(1), row.get(2), value});
+                }
+            });
+            if (entries.size() > before && !endsWithLineBreak(log)) entries.remove(entries.size() - 1);
+        } catch (IOException e) {
+            System.out.println("⚠️ Error reading change log: " + log.getPath());
+        }
+    }
+
+    // Whether the last byte of a file is a line break, i.e. its last entry was written completely
+    private static boolean endsWithLineBreak(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() == 0) return true;
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            return last == '\n' || last == '\r';
+        }
+    }
+
+    /**
+     * Moves a table's log out of the way once a rewrite containing it is staged
+     * Called by File_Utils.rewrite through Durable_Writer.replace, between
+     * syncing the staged file and renaming it over the base file
+     * Must be called while holding the table's Lock_Manager lock
+     * @param filename The path to the data file
+     * @throws IOException If the log could not be renamed (the rewrite is then abandoned)
+     */
+    static void retire(String filename) throws IOException {
+        File log = logFile(filename);
+        if (log.exists()) {
+            Files.move(log.toPath(), retiredFile(filename).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Drops a table's log after its contents were written to the base file
+     * Must be called while holding the table's Lock_Manager lock
+     * @param filename The path to the data file
+     */
+    static void discard(String filename) {
+        for (File log : new File[]{logFile(filename), retiredFile(filename)}) {
+            if (log.exists() && !log.delete()) {
+                System.out.println("⚠️ Could not clear change log: " + log.getPath());
+            }
+        }
+        pending.remove(filename);
+    }
+
+    // Queues a delayed compaction for a table unless one is already waiting
+    private static void schedule(String filename) {
+        if (scheduled.add(filename)) {
+            compactor.schedule(() -> compact(filename), COMPACT_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // Folds the log into the base file by rewriting it from the resident copy
+    private static void compact(String filename) {
+        try (Lock_Manager.Held _ = Lock_Manager.lock(filename)) {   // Only this table's writers wait
+            scheduled.remove(filename);
+            if (pending.getOrDefault(filename, 0) == 0) return;  // Already folded by a full rewrite
+            File_Utils.writeLines(filename, Record_Store.lines(filename));
+        }
+    }
+}
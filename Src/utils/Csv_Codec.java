@@ -0,0 +1,400 @@
+import java.io.IOException;                         // Errors from streamed input
+import java.io.Reader;                              // Streaming source of rows
+import java.nio.CharBuffer;                         // Char buffer viewed as a CharSequence
+import java.util.Arrays;                            // Growing the offset arrays
+import java.util.function.Consumer;                 // Per-row callback while streaming
+
+/**
+ * Csv_Codec - The single reader and writer for the comma-separated data files
+ * Fields that contain a comma, a quote or a line break are written in double
+ * quotes with embedded quotes doubled (RFC 4180), and every reader in the
+ * application parses them back the same way.
+ *
+ * Row is a reusable cursor: reset() only records where each field starts and
+ * ends in the underlying characters, so comparing or parsing fields does not
+ * allocate. A String is created only when a field is actually asked for.
+ */
+public class Csv_Codec {
+
+    // Size of the read buffer used when streaming rows from a Reader
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A reusable view of one parsed CSV row
+     * The view stays valid until the next reset() or until the streamed buffer
+     * moves on, so copy out any field that has to be kept
+     */
+    public static final class Row {
+        private CharSequence src;                   // Characters of the current row
+        private int[] starts = new int[16];         // First character of each field (after an opening quote)
+        private int[] ends = new int[16];           // End of each field (before a closing quote)
+        private boolean[] escaped = new boolean[16];  // Field contains doubled quotes to undo
+        private int count;                          // Number of fields in the current row
+
+        /**
+         * Points the cursor at a whole line
+         * @param line The line to parse (without its line terminator)
+         * @return This row, for chaining
+         */
+        public Row reset(CharSequence line) {
+            return reset(line, 0, line.length());
+        }
+
+        /**
+         * Points the cursor at part of a character sequence
+         * @param chars The characters holding the row
+         * @param from Index of the row's first character
+         * @param to Index just past the row's last character
+         * @return This row, for chaining
+         */
+        public Row reset(CharSequence chars, int from, int to) {
+            src = chars;
+            count = 0;
+            int i = from;
+            while (true) {
+                if (count == starts.length) grow();
+                if (i < to && chars.charAt(i) == '"') {
+                    // Quoted field: runs to the next quote that is not doubled
+                    int start = ++i;
+                    boolean doubled = false;
+                    while (i < to) {
+                        if (chars.charAt(i) == '"') {
+                            if (i + 1 < to && chars.charAt(i + 1) == '"') {
+                                doubled = true;
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    starts[count] = start;
+                    ends[count] = Math.min(i, to);
+                    escaped[count] = doubled;
+                    while (i < to && chars.charAt(i) != ',') i++;   // Skip anything after the closing quote
+                } else {
+                    int start = i;
+                    while (i < to && chars.charAt(i) != ',') i++;
+                    starts[count] = start;
+                    ends[count] = i;
+                    escaped[count] = false;
+                }
+                count++;
+                if (i >= to) break;
+                i++;                                               // Step over the comma
+            }
+            return this;
+        }
+
+        /**
+         * @return Number of fields in the row (trailing empty fields included)
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Returns one field as a String
+         * @param index The column index
+         * @return The unquoted field value
+         */
+        public String get(int index) {
+            check(index);
+            String raw = src.subSequence(starts[index], ends[index]).toString();
+            return escaped[index] ? raw.replace("\"\"", "\"") : raw;
+        }
+
+        /**
+         * Compares a field with a value without creating a String
+         * @param index The column index
+         * @param value The value to compare with
+         * @return true if the field equals the value
+         */
+        public boolean equals(int index, String value) {
+            if (index >= count) return false;
+            if (escaped[index]) return get(index).equals(value);
+            int start = starts[index];
+            if (ends[index] - start != value.length()) return false;
+            for (int k = 0; k < value.length(); k++) {
+                if (src.charAt(start + k) != value.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Compares a field with a value ignoring case, without creating a String
+         * @param index The column index
+         * @param value The value to compare with
+         * @return true if the field equals the value apart from case
+         */
+        public boolean equalsIgnoreCase(int index, String value) {
+            if (index >= count) return false;
+            if (escaped[index]) return get(index).equalsIgnoreCase(value);
+            int start = starts[index];
+            if (ends[index] - start != value.length()) return false;
+            for (int k = 0; k < value.length(); k++) {
+                char a = src.charAt(start + k), b = value.charAt(k);
+                if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether a field contains some text ignoring case, without
+         * creating a String
+         * @param index The column index
+         * @param lower The text to look for, already in lower case
+         * @return true if the field contains the text
+         */
+        public boolean containsIgnoreCase(int index, String lower) {
+            if (index >= count) return false;
+            if (escaped[index]) return get(index).toLowerCase().contains(lower);
+            int start = starts[index], last = ends[index] - lower.length();
+            outer:
+            for (int i = start; i <= last; i++) {
+                for (int k = 0; k < lower.length(); k++) {
+                    if (Character.toLowerCase(src.charAt(i + k)) != lower.charAt(k)) continue outer;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks whether a field begins with a prefix without creating a String
+         * @param index The column index
+         * @param prefix The prefix to look for
+         * @return true if the field starts with the prefix
+         */
+        public boolean startsWith(int index, String prefix) {
+            if (index >= count) return false;
+            if (escaped[index]) return get(index).startsWith(prefix);
+            int start = starts[index];
+            if (ends[index] - start < prefix.length()) return false;
+            for (int k = 0; k < prefix.length(); k++) {
+                if (src.charAt(start + k) != prefix.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Compares a field with a value in lexicographic order without creating
+         * a String (for ISO dates this is also chronological order)
+         * @param index The column index
+         * @param value The value to compare with
+         * @return Negative, zero or positive as the field sorts before, equal to or after the value
+         */
+        public int compareTo(int index, String value) {
+            check(index);
+            if (escaped[index]) return get(index).compareTo(value);
+            int start = starts[index], length = ends[index] - start;
+            int shared = Math.min(length, value.length());
+            for (int k = 0; k < shared; k++) {
+                int diff = src.charAt(start + k) - value.charAt(k);
+                if (diff != 0) return diff;
+            }
+            return length - value.length();
+        }
+
+        /**
+         * @param index The column index
+         * @return Length of the field in characters (quotes excluded)
+         */
+        public int length(int index) {
+            check(index);
+            return ends[index] - starts[index];
+        }
+
+        /**
+         * Parses a field as an int (surrounding spaces are ignored)
+         * @param index The column index
+         * @return The parsed value
+         * @throws NumberFormatException If the field is not a whole number
+         */
+        public int parseInt(int index) {
+            check(index);
+            int i = starts[index], end = ends[index];
+            while (i < end && src.charAt(i) == ' ') i++;
+            while (end > i && src.charAt(end - 1) == ' ') end--;
+            boolean negative = i < end && src.charAt(i) == '-';
+            if (negative || (i < end && src.charAt(i) == '+')) i++;
+            if (i == end) throw new NumberFormatException("Not a number: \"" + get(index) + "\"");
+            long value = 0;
+            for (; i < end; i++) {
+                char c = src.charAt(i);
+                if (c < '0' || c > '9' || value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Not a number: \"" + get(index) + "\"");
+                }
+                value = value * 10 + (c - '0');
+            }
+            value = negative ? -value : value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Out of range: \"" + get(index) + "\"");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Parses a field as a double (surrounding spaces are ignored)
+         * Plain decimals are parsed in place; anything else (exponents, very
+         * long mantissas) falls back to Double.parseDouble
+         * @param index The column index
+         * @return The parsed value
+         * @throws NumberFormatException If the field is not a number
+         */
+        public double parseDouble(int index) {
+            check(index);
+            int i = starts[index], end = ends[index];
+            while (i < end && src.charAt(i) == ' ') i++;
+            while (end > i && src.charAt(end - 1) == ' ') end--;
+            boolean negative = i < end && src.charAt(i) == '-';
+            if (negative || (i < end && src.charAt(i) == '+')) i++;
+            long mantissa = 0;
+            int digits = 0, scale = 0;
+            boolean dot = false;
+            for (; i < end; i++) {
+                char c = src.charAt(i);
+                if (c == '.' && !dot) {
+                    dot = true;
+                } else if (c >= '0' && c <= '9' && digits < 15) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (dot) scale++;
+                } else {
+                    return Double.parseDouble(get(index).trim());  // Uncommon form, let the JDK handle it
+                }
+            }
+            if (digits == 0) throw new NumberFormatException("Not a number: \"" + get(index) + "\"");
+            double value = mantissa / POWERS_OF_TEN[scale];        // Exact for up to 15 digits
+            return negative ? -value : value;
+        }
+
+        /**
+         * Copies all fields out of the row
+         * @return A new array holding every field
+         */
+        public String[] toArray() {
+            String[] fields = new String[count];
+            for (int k = 0; k < count; k++) fields[k] = get(k);
+            return fields;
+        }
+
+        // Rejects column indexes past the end of the row
+        private void check(int index) {
+            if (index < 0 || index >= count) {
+                throw new ArrayIndexOutOfBoundsException("Column " + index + " of " + count);
+            }
+        }
+
+        // Doubles the capacity of the offset arrays
+        private void grow() {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends = Arrays.copyOf(ends, ends.length * 2);
+            escaped = Arrays.copyOf(escaped, escaped.length * 2);
+        }
+    }
+
+    // Divisors for the in-place decimal parser
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * Splits one line into its fields, honouring quotes
+     * Trailing empty fields are kept, so the result has one entry per column
+     * @param line The line to split
+     * @return The unquoted field values
+     */
+    public static String[] split(String line) {
+        return new Row().reset(line).toArray();
+    }
+
+    /**
+     * Joins fields into one line, quoting the ones that need it
+     * @param fields The field values
+     * @return The encoded line, which split() turns back into the same fields
+     */
+    public static String join(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(quoteIfNeeded(fields[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Quotes a single field if it contains a comma, a quote or a line break
+     * @param field The raw value (null is written as an empty field)
+     * @return The value as it should appear in the file
+     */
+    public static String quoteIfNeeded(String field) {
+        if (field == null) return "";
+        if (field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r")) {
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+
+    /**
+     * Streams rows from a reader through a single reused Row
+     * Input is read in large blocks and rows are parsed in place, so no String
+     * is created unless the callback asks for one. Line breaks inside quoted
+     * fields stay part of the field. Blank lines are skipped.
+     * @param in The source of CSV text
+     * @param action Called once per row; the row is only valid during the call
+     * @throws IOException If reading fails
+     */
+    public static void stream(Reader in, Consumer<Row> action) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        CharBuffer view = CharBuffer.wrap(buf);
+        Row row = new Row();
+        int filled = 0;     // Characters currently in the buffer
+        int scanned = 0;    // Characters already checked for a row end
+        int rowStart = 0;   // Start of the row being collected
+        boolean inQuotes = false;
+        boolean eof = false;
+        while (true) {
+            // Look for the end of the current row in the characters read so far
+            int rowEnd = -1;
+            for (; scanned < filled; scanned++) {
+                char c = buf[scanned];
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if ((c == '\n' || c == '\r') && !inQuotes) {
+                    rowEnd = scanned;
+                    break;
+                }
+            }
+            if (rowEnd < 0 && eof) rowEnd = filled;                // Last row without a terminator
+            if (rowEnd >= 0) {
+                if (!isBlank(buf, rowStart, rowEnd)) action.accept(row.reset(view, rowStart, rowEnd));
+                if (eof && rowEnd == filled) return;
+                rowStart = rowEnd + 1;
+                scanned = rowStart;
+                continue;
+            }
+            // Need more input: move the partial row to the front, growing the buffer if it is full
+            if (rowStart > 0) {
+                System.arraycopy(buf, rowStart, buf, 0, filled - rowStart);
+                filled -= rowStart;
+                scanned -= rowStart;
+                rowStart = 0;
+            } else if (filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                view = CharBuffer.wrap(buf);
+            }
+            int n = in.read(buf, filled, buf.length - filled);
+            if (n < 0) eof = true;
+            else filled += n;
+        }
+    }
+
+    // True if a range of characters holds only whitespace
+    private static boolean isBlank(char[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(buf[i])) return false;
+        }
+        return true;
+    }
+}
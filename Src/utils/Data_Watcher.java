@@ -0,0 +1,145 @@
+import javax.swing.*;                                // Folder notices are delivered on the EDT
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;                 // Observers go away with their panels
+import java.nio.file.*;                              // WatchService over the data and report folders
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;                     // Tables and folders touched by one burst of events
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data_Watcher - Pushes changes made by other processes into the open panels
+ * A daemon thread watches data/, stock_reports/ and financial_reports/. When
+ * another instance or a script writes a data file (or its change log), the
+ * table is handed to Record_Store.sync, which compares it with the resident
+ * copy and reports the appended and changed records to its listeners, so
+ * search indexes, totals and every Live_Table view update from those records
+ * instead of reloading.
+ *
+ * Report folders have no records; their observers are simply told on the
+ * EDT that reports were added or removed.
+ *
+ * Writes made by this process trigger events too, but Record_Store already
+ * holds their result, so syncing them costs a timestamp check. Temporary
+ * files of atomic rewrites (*.tmp) are ignored; the rename that follows is
+ * what counts, and a table is only read while holding its Lock_Manager
+ * lock, so a write still in progress elsewhere is never half seen.
+ */
+public class Data_Watcher {
+
+    // Folders watched (relative to the working directory, like every data path)
+    private static final String DATA_FOLDER = "data";
+    private static final String[] REPORT_FOLDERS = {"stock_reports", "financial_reports"};
+    // Events arriving this soon after one another are handled together
+    private static final int SETTLE_MS = 50;
+
+    // Observers per report folder (EDT only)
+    private static final HashMap<String, List<WeakReference<Runnable>>> observers = new HashMap<>();
+    private static Thread watcher;
+
+    /**
+     * Starts watching on first call (later calls do nothing)
+     * Folders that do not exist at this point are not watched
+     */
+    public static synchronized void start() {
+        if (watcher != null) return;
+        WatchService service;
+        HashMap<WatchKey, String> folders = new HashMap<>();
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            for (String folder : allFolders()) {
+                Path path = Path.of(folder);
+                if (!Files.isDirectory(path)) continue;
+                WatchKey key = path.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                folders.put(key, folder);
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not watch the data folders: " + e.getMessage());
+            return;
+        }
+        watcher = new Thread(() -> watchLoop(service, folders), "data-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Calls back on the EDT after files were added to, changed in or removed from a report folder
+     * Only a weak reference is kept, so the caller must hold on to the
+     * Runnable for as long as it wants notices (e.g. in a field of its panel)
+     * @param folder The report folder, e.g. "stock_reports"
+     * @param onChange Called once per burst of changes
+     */
+    public static void observe(String folder, Runnable onChange) {
+        observers.computeIfAbsent(folder, _ -> new ArrayList<>()).add(new WeakReference<>(onChange));
+    }
+
+    // Waits for events, lets a burst settle, then syncs the touched tables and notifies folder observers
+    private static void watchLoop(WatchService service, HashMap<WatchKey, String> folders) {
+        while (true) {
+            LinkedHashSet<String> tables = new LinkedHashSet<>();
+            LinkedHashSet<String> reports = new LinkedHashSet<>();
+            try {
+                WatchKey key = service.take();
+                while (key != null) {
+                    collect(key, folders.get(key), tables, reports);
+                    key.reset();
+                    key = service.poll(SETTLE_MS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (String table : tables) {
+                // Waits for a writer in another process to finish, so the file is read whole
+                try (Lock_Manager.Held _ = Lock_Manager.lock(table)) {
+                    Record_Store.sync(table);                // Listeners hear the record changes
+                }
+            }
+            if (!reports.isEmpty()) SwingUtilities.invokeLater(() -> notifyObservers(reports));
+        }
+    }
+
+    // Sorts one key's events into tables to sync and report folders to announce
+    private static void collect(WatchKey key, String folder, LinkedHashSet<String> tables, LinkedHashSet<String> reports) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (!folder.equals(DATA_FOLDER)) {
+                reports.add(folder);
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {   // Events were lost, check every table
+                File[] files = new File(DATA_FOLDER).listFiles((_, name) -> name.endsWith(".txt"));
+                if (files != null) for (File file : files) tables.add(DATA_FOLDER + "/" + file.getName());
+                continue;
+            }
+            String name = event.context().toString();
+            if (name.endsWith(".txt")) {
+                tables.add(DATA_FOLDER + "/" + name);
+            } else if (name.endsWith(".log")) {                   // A table's Change_Log
+                tables.add(DATA_FOLDER + "/" + name.substring(0, name.length() - 4) + ".txt");
+            }
+            // Anything else (the *.tmp of an atomic rewrite, a table's *.lock) is not a table
+        }
+    }
+
+    // Tells the observers of the given report folders (on the EDT)
+    private static void notifyObservers(LinkedHashSet<String> folders) {
+        for (String folder : folders) {
+            List<WeakReference<Runnable>> list = observers.get(folder);
+            if (list == null) continue;
+            list.removeIf(ref -> ref.get() == null);           // Panels that were closed
+            for (WeakReference<Runnable> ref : new ArrayList<>(list)) {
+                Runnable onChange = ref.get();
+                if (onChange != null) onChange.run();
+            }
+        }
+    }
+
+    // Every watched folder
+    private static List<String> allFolders() {
+        List<String> all = new ArrayList<>(List.of(REPORT_FOLDERS));
+        all.add(0, DATA_FOLDER);
+        return all;
+    }
+}
@@ -0,0 +1,158 @@
+import javax.swing.*;                                // SwingUtilities and dialogs
+import javax.swing.table.DefaultTableModel;         // Tables filled from background loads
+import java.awt.*;                                  // Component and cursor for the busy indicator
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;                       // Per-component state that must not keep panels alive
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;              // Virtual thread executor
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;   // Decides whether a task runs or is cancelled first
+import java.util.function.Consumer;
+
+/**
+ * Data_Worker - Runs file access off the Swing event dispatch thread
+ * Work is submitted to a virtual-thread executor and its result is handed
+ * back on the EDT, in the spirit of SwingWorker. While a task runs its
+ * owning component shows a wait cursor, and a task can be cancelled, in
+ * which case its callback is never run.
+ *
+ * fill() covers the common case of loading a table: the rows are built in
+ * the background and swapped into the model in one go, and a newer fill of
+ * the same model cancels the one still running.
+ */
+public class Data_Worker {
+
+    // One virtual thread per task; blocking file reads do not tie up platform threads
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Running tasks per component (EDT only), for the busy cursor
+    private static final Map<Component, Integer> busy = new WeakHashMap<>();
+    // Latest fill per table model (EDT only), so a newer load supersedes an older one
+    private static final Map<DefaultTableModel, Task<?>> fills = new WeakHashMap<>();
+
+    /**
+     * Handle to a submitted task
+     * @param <T> Type of the task's result
+     */
+    public static final class Task<T> {
+        private final Component owner;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Future<?> future;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        private Task(Component owner) {
+            this.owner = owner;
+        }
+
+        // Stops the task (interrupting it if it is already running); its callbacks will not run
+        public void cancel() {
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                onEdt(() -> {                                  // Never ran, so nobody else clears the busy state
+                    setBusy(owner, -1);
+                    done = true;
+                });
+                return;
+            }
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+
+        // True once cancel() was called
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // True once the task finished and its callback ran (or was skipped)
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    /**
+     * Runs work in the background and reports failures in an error dialog
+     * @param owner Component that shows the busy cursor (may be null)
+     * @param work The blocking work, e.g. reading or writing data files
+     * @param onSuccess Receives the result on the EDT
+     * @return Handle for cancelling the task
+     */
+    public static <T> Task<T> submit(Component owner, Callable<T> work, Consumer<T> onSuccess) {
+        return submit(owner, work, onSuccess, error ->
+            JOptionPane.showMessageDialog(owner, "❌ " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Runs work in the background
+     * @param owner Component that shows the busy cursor (may be null)
+     * @param work The blocking work, e.g. reading or writing data files
+     * @param onSuccess Receives the result on the EDT
+     * @param onFailure Receives any exception thrown by the work, on the EDT
+     * @return Handle for cancelling the task
+     */
+    public static <T> Task<T> submit(Component owner, Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        Task<T> task = new Task<>(owner);
+        onEdt(() -> setBusy(owner, +1));
+        task.future = executor.submit(() -> {
+            if (!task.started.compareAndSet(false, true)) return;   // Cancelled before it started
+            T result = null;
+            Exception failure = null;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                failure = e;
+            }
+            T value = result;
+            Exception error = failure;
+            SwingUtilities.invokeLater(() -> {
+                setBusy(owner, -1);
+                task.done = true;
+                if (task.cancelled) return;                    // Superseded or abandoned
+                if (error == null) onSuccess.accept(value);
+                else onFailure.accept(error);
+            });
+        });
+        return task;
+    }
+
+    /**
+     * Replaces the rows of a table with rows built in the background
+     * A fill still running for the same model is cancelled first
+     * @param owner Component that shows the busy cursor
+     * @param model The table model to fill
+     * @param rows Builds the new rows (runs off the EDT, must not touch Swing components)
+     * @return Handle for cancelling the load
+     */
+    public static Task<List<Object[]>> fill(Component owner, DefaultTableModel model, Callable<List<Object[]>> rows) {
+        Task<List<Object[]>> task = submit(owner, rows, loaded -> {
+            model.setRowCount(0);
+            for (Object[] row : loaded) model.addRow(row);
+        });
+        onEdt(() -> {
+            Task<?> previous = fills.put(model, task);
+            if (previous != null && !previous.isDone()) previous.cancel();
+        });
+        return task;
+    }
+
+    // Shows the wait cursor while a component has running tasks
+    private static void setBusy(Component owner, int delta) {
+        if (owner == null) return;
+        int running = busy.getOrDefault(owner, 0) + delta;
+        if (running <= 0) {
+            busy.remove(owner);
+            owner.setCursor(Cursor.getDefaultCursor());
+        } else {
+            busy.put(owner, running);
+            owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+
+    // Runs an action on the EDT, right away if already there
+    private static void onEdt(Runnable action) {
+        if (SwingUtilities.isEventDispatchThread()) action.run();
+        else SwingUtilities.invokeLater(action);
+    }
+}
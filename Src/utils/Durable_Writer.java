@@ -0,0 +1,188 @@
+import java.io.*;                                   // Streams and I/O errors
+import java.nio.ByteBuffer;                        // Raw bytes for channel writes
+import java.nio.channels.FileChannel;              // Appending and fsync
+import java.nio.charset.Charset;                   // Same encoding as FileReader/FileWriter
+import java.nio.file.*;                            // Paths, atomic rename
+import java.util.ArrayList;
+import java.util.LinkedHashSet;                    // Files written since the last sync
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;                          // Failed sync ranges by first ticket
+
+/**
+ * Durable_Writer - Crash-safe writes for the data files
+ * Full rewrites are staged in a temporary file, synced and then atomically
+ * renamed over the target, so a crash leaves either the old or the new
+ * content but never a half-written file.
+ *
+ * Appends use group commit: the bytes are written immediately, and a single
+ * background committer syncs every file touched within a short window. Each
+ * writer waits until the sync covering its write has finished, so a burst of
+ * records pays one sync per batch instead of one per record, without
+ * acknowledging anything that is not yet on disk.
+ */
+public class Durable_Writer {
+
+    // How long the committer waits for more writes before syncing a batch
+    private static final long COMMIT_WINDOW_MS = 5;
+
+    private static final Object lock = new Object();
+    // Files appended to since the last sync
+    private static final LinkedHashSet<Path> dirty = new LinkedHashSet<>();
+    // Sequence number of the last append, and of the last one known to be on disk
+    private static long writtenSeq = 0;
+    private static long syncedSeq = 0;
+    // Ranges of appends whose sync failed (first ticket -> last ticket), oldest dropped beyond MAX_FAILED_RANGES
+    private static final TreeMap<Long, Long> failed = new TreeMap<>();
+    // Failed ranges kept for writers that have not asked yet; failures are rare, so this is never reached in practice
+    private static final int MAX_FAILED_RANGES = 1024;
+    private static Thread committer;
+
+    /**
+     * A step run by replace between staging the new content and renaming it
+     */
+    public interface Staged {
+        void run() throws IOException;
+    }
+
+    /**
+     * Atomically replaces a file with the given lines
+     * @param filename The path to the file to replace
+     * @param lines The complete new content, one entry per line
+     * @throws IOException If the new content could not be written; the old file is left untouched
+     */
+    public static void replace(String filename, List<String> lines) throws IOException {
+        replace(filename, lines, () -> {});
+    }
+
+    /**
+     * Atomically replaces a file, running a step once the new content is safely staged
+     * The step runs after the staged copy (filename + ".tmp") is synced and
+     * before it is renamed over the target, e.g. to retire a change log that
+     * the new content already contains. If the step fails, nothing is renamed.
+     * @param filename The path to the file to replace
+     * @param lines The complete new content, one entry per line
+     * @param staged Called between staging and the rename
+     * @throws IOException If the new content could not be written or the step failed; the old file is left untouched
+     */
+    public static void replace(String filename, List<String> lines, Staged staged) throws IOException {
+        Path target = Path.of(filename);
+        Path tmp = Path.of(filename + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile());
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            out.getFD().sync();                                // Content is on disk before it becomes visible
+        }
+        staged.run();
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(target.toAbsolutePath().getParent());    // Make the rename itself durable
+    }
+
+    /**
+     * Appends lines to a file and joins the current commit batch
+     * The bytes are written right away; call awaitDurable with the returned
+     * ticket (ideally after releasing any locks) to wait for the sync
+     * @param filename The path to the file to append to
+     * @param lines The lines to append
+     * @return Ticket identifying this write in the commit sequence
+     * @throws IOException If the bytes could not be written
+     */
+    public static long append(String filename, List<String> lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) sb.append(line).append(System.lineSeparator());
+        ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(Charset.defaultCharset()));
+        Path path = Path.of(filename);
+        synchronized (lock) {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (bytes.hasRemaining()) channel.write(bytes);
+            }
+            dirty.add(path);
+            startCommitter();
+            lock.notifyAll();
+            return ++writtenSeq;
+        }
+    }
+
+    /**
+     * Blocks until the append with the given ticket has been synced to disk
+     * @param ticket The value returned by append
+     * @throws IOException If the sync covering this write failed
+     */
+    public static void awaitDurable(long ticket) throws IOException {
+        synchronized (lock) {
+            while (syncedSeq < ticket) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for sync");
+                }
+            }
+            Map.Entry<Long, Long> range = failed.floorEntry(ticket);
+            if (range != null && ticket <= range.getValue()) {
+                throw new IOException("Sync failed for write " + ticket);
+            }
+        }
+    }
+
+    // Starts the background committer on first use
+    private static void startCommitter() {
+        if (committer != null) return;
+        committer = new Thread(Durable_Writer::commitLoop, "group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // Repeatedly collects a window of appends and syncs each touched file once
+    private static void commitLoop() {
+        while (true) {
+            try {
+                synchronized (lock) {
+                    while (writtenSeq == syncedSeq) lock.wait();
+                }
+                Thread.sleep(COMMIT_WINDOW_MS);                // Let more writers join this batch
+            } catch (InterruptedException e) {
+                return;
+            }
+            long target;
+            List<Path> files;
+            synchronized (lock) {
+                target = writtenSeq;
+                files = new ArrayList<>(dirty);
+                dirty.clear();
+            }
+            IOException failure = null;
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                } catch (NoSuchFileException e) {
+                    // A change log already folded into its table (possibly by another client); the rewrite synced itself
+                } catch (IOException e) {
+                    failure = e;
+                    System.out.println("⚠️ Error syncing file: " + file);
+                }
+            }
+            synchronized (lock) {
+                if (failure != null) {
+                    failed.put(syncedSeq + 1, target);         // Kept even after later batches fail too
+                    if (failed.size() > MAX_FAILED_RANGES) failed.pollFirstEntry();
+                }
+                syncedSeq = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Syncs a directory so a rename inside it survives a crash (not supported on every OS)
+    private static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {}
+    }
+}
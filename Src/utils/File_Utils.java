@@ -1,6 +1,6 @@
 import java.io.*;                    // Imports classes for file reading and writing
 import java.util.ArrayList;         // Allows use of ArrayList for dynamic lists
-import java.util.List;              // More flexible interface for list-based operations
+import java.util.List;              // Lines handed to Durable_Writer
 
 /**
  * File_Utils - A utility class for handling file operations
@@ -9,72 +9,170 @@ import java.util.List;              // More flexible interface for list-based op
  */
 public class File_Utils {
 
+    /**
+     * Outcome of a compare-and-set update
+     */
+    public enum Update {
+        APPLIED,        // The record was unchanged and now holds the new values
+        CONFLICT,       // Someone changed the record since it was read; nothing was written
+        MISSING,        // There is no such record (or a column is out of range)
+        FAILED          // The change could not be written
+    }
+
+    // Expected version that matches any record version (plain, last-writer-wins updates)
+    private static final long ANY_VERSION = Long.MAX_VALUE;
+
     /**
      * Reads all non-empty lines from a specified file
+     * Served from the resident Record_Store, so the file is only parsed from
+     * disk the first time or after it changed outside this process
      * @param filename The path to the file to read
      * @return ArrayList<String> containing all non-empty lines from the file
      */
     public static ArrayList<String> readLines(String filename) {
-        ArrayList<String> lines = new ArrayList<>();          // List to store all non-empty lines
-        File file = new File(filename);                       // Create a File object pointing to the given filename
-
-        // Debugging line to show the absolute path being read
-        System.out.println("📂 File Path: " + file.getAbsolutePath());
-
-        // If the file doesn't exist, log a warning and return an empty list
-        if (!file.exists()) {
-            System.out.println("⚠️ File not found: " + filename);
-            return lines;
-        }
-
-        // Try-with-resources to safely read the file line by line
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {                 // Ignore blank lines
-                    lines.add(line);                          // Add valid line to the list
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("⚠️ Error reading file: " + filename);  // Catch and log any read errors
-        }
-        return lines;  // Return the list of lines read
+        return Record_Store.lines(filename);  // Copy of the cached lines
     }
 
     /**
      * Appends a single line to the end of a file
      * Opens file in append mode, so existing content is preserved
+     * Returns once the line is synced to disk; concurrent appends share one
+     * sync through Durable_Writer's group commit
+     * Holds the table's Lock_Manager lock, so other clients of the data
+     * folder cannot write the file at the same time
      * @param filename The path to the file to append to
      * @param line The line of text to append
      */
     public static void appendLine(String filename, String line) {
-        // Try-with-resources to write to file in append mode
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, true))) {
-            writer.write(line);       // Write the line
-            writer.newLine();         // Move to the next line
-        } catch (IOException e) {
-            System.out.println("⚠️ Error appending to file: " + filename);  // Log error
+        long ticket;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(filename)) {   // Keep file, log and resident copy in step
+            Record_Store.refresh(filename);         // Pick up outside edits before the append is stamped
+            try {
+                ticket = Durable_Writer.append(filename, List.of(line));   // Write the line
+            } catch (IOException e) {
+                System.out.println("⚠️ Error appending to file: " + filename);  // Log error
+                return;
+            }
+            Record_Store.appended(filename, line);  // Keep the resident copy in sync
         }
+        awaitDurable(filename, ticket);             // Wait outside the lock so other writers can join the batch
     }
 
     /**
      * Overwrites a file with a new set of lines
      * Completely replaces existing content with the provided lines
+     * The new content is written to a temporary file and renamed over the
+     * old one, so a crash never leaves a half-written data file behind
+     * Any pending change log for the file is dropped, since the new content
+     * already includes those updates
      * @param filename The path to the file to write to
      * @param lines ArrayList of strings to write to the file
      */
     public static void writeLines(String filename, ArrayList<String> lines) {
-        // FileWriter opened in overwrite mode (false = not appending)
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, false))) {
-            for (String line : lines) {
-                writer.write(line);   // Write each line from the list
-                writer.newLine();     // Separate with a new line
+        rewrite(filename, lines);
+    }
+
+    /**
+     * Overwrites a file like writeLines and reports whether it worked
+     * Either all of the new content is in place or the old file is left
+     * untouched, so a batch of changes applied through one rewrite is all or
+     * nothing
+     * @param filename The path to the file to write to
+     * @param lines ArrayList of strings to write to the file
+     * @return true if the new content was written
+     */
+    public static boolean rewrite(String filename, ArrayList<String> lines) {
+        try (Lock_Manager.Held _ = Lock_Manager.lock(filename)) {   // Keep file, log and resident copy in step
+            try {
+                // Stage and sync, retire the log the new content already holds, then atomically rename
+                Durable_Writer.replace(filename, lines, () -> Change_Log.retire(filename));
+            } catch (IOException e) {
+                System.out.println("⚠️ Error writing to file: " + filename);  // Log error
+                return false;
             }
-        } catch (IOException e) {
-            System.out.println("⚠️ Error writing to file: " + filename);  // Log error
+            Change_Log.discard(filename);            // Retired log is now folded into the file
+            Record_Store.replaced(filename, lines);  // Keep the resident copy in sync
+            return true;
+        }
+    }
+
+    /**
+     * Removes a single record from a file
+     * The remaining records are taken from the resident copy under the table
+     * lock, so changes other writers made since the record was shown are kept
+     * @param filename The path to the file to update
+     * @param identifier The unique identifier (first column) of the record
+     * @return APPLIED, MISSING if there is no such record, or FAILED
+     */
+    public static Update deleteRecord(String filename, String identifier) {
+        try (Lock_Manager.Held _ = Lock_Manager.lock(filename)) {   // Keep file, log and resident copy in step
+            ArrayList<String> lines = Record_Store.lines(filename);   // Current content, picks up outside edits
+            Csv_Codec.Row row = new Csv_Codec.Row();
+            if (!lines.removeIf(line -> row.reset(line).equals(0, identifier))) return Update.MISSING;
+            return rewrite(filename, lines) ? Update.APPLIED : Update.FAILED;
         }
     }
 
+    /**
+     * Sets one or more columns of a single record
+     * The change is appended to the table's Change_Log instead of rewriting
+     * the whole file, so the cost does not grow with the file size
+     * @param filename The path to the file to update
+     * @param identifier The unique identifier (first column) of the record
+     * @param columns The column indexes to set (the ID column 0 cannot be changed)
+     * @param values The new values, one per column
+     * @return true if the record exists and was updated
+     */
+    public static boolean updateFields(String filename, String identifier, int[] columns, String[] values) {
+        return compareAndSet(filename, identifier, ANY_VERSION, columns, values) == Update.APPLIED;
+    }
+
+    /**
+     * Sets columns of a single record only if nobody changed it since it was read
+     * Only that record's fields are written (through the Change_Log), so
+     * writers of other records are never turned away
+     * @param filename The path to the file to update
+     * @param identifier The unique identifier (first column) of the record
+     * @param seenVersion The record's version when it was read (Record_Store.read),
+     *                    or the version of the table copy it was shown from
+     * @param columns The column indexes to set (the ID column 0 cannot be changed)
+     * @param values The new values, one per column
+     * @return APPLIED, or CONFLICT if the record changed after seenVersion
+     *         (re-read it and retry, or tell the user), MISSING or FAILED
+     */
+    public static Update compareAndSet(String filename, String identifier, long seenVersion, int[] columns, String[] values) {
+        long ticket;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(filename)) {   // Other tables can be written meanwhile
+            String[] parts = Record_Store.get(filename, identifier);   // O(1) lookup by ID, picks up outside edits
+            if (parts == null) return Update.MISSING;
+            for (int column : columns) {
+                if (column <= 0 || column >= parts.length) return Update.MISSING;
+            }
+            if (Record_Store.recordVersion(filename, identifier) > seenVersion) return Update.CONFLICT;
+            try {
+                ticket = Change_Log.append(filename, identifier, columns, values);
+            } catch (IOException e) {
+                System.out.println("⚠️ Error appending to change log: " + filename);  // Log error
+                return Update.FAILED;
+            }
+            Record_Store.applied(filename, identifier, columns, values);
+        }
+        awaitDurable(filename, ticket);             // Wait outside the lock so other writers can join the batch
+        return Update.APPLIED;
+    }
+
+    /**
+     * Sets a single column of a single record
+     * @param filename The path to the file to update
+     * @param identifier The unique identifier (first column) of the record
+     * @param column The column index to set
+     * @param newValue The new value for that column
+     * @return true if the record exists and was updated
+     */
+    public static boolean updateField(String filename, String identifier, int column, String newValue) {
+        return updateFields(filename, identifier, new int[]{column}, new String[]{newValue});
+    }
+
     /**
      * Updates a specific line in a file based on an identifier
      * Typically used to update status or other fields in a record
@@ -86,21 +184,7 @@ public class File_Utils {
      * and updates the 11th column (index 10) of the matching line
      */
     public static void updateLine(String filename, String identifier, String newStatus) {
-        List<String> lines = readLines(filename);              // Read all current lines
-        ArrayList<String> updatedLines = new ArrayList<>();    // New list to store modified content
-
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);              // Split line by commas, keeping empty values
-            if (parts.length > 0 && parts[0].equals(identifier)) {
-                // Update the 11th column (index 10) with the new status
-                parts[10] = newStatus;
-                updatedLines.add(String.join(",", parts));     // Rebuild and store the updated line
-            } else {
-                updatedLines.add(line);                        // Keep original line if not matched
-            }
-        }
-
-        writeLines(filename, updatedLines);  // Overwrite file with the new content
+        updateField(filename, identifier, 10, newStatus);  // Status lives in the 11th column
     }
 
     /**
@@ -108,26 +192,23 @@ public class File_Utils {
      * Adds the specified quantity to the existing stock level
      * @param itemCode The unique code of the item to update
      * @param quantityToAdd The quantity to add to the current stock
+     * @param poNumber The purchase order the units were delivered against
      * 
      * Note: This method specifically works with data/items_data.txt
      * and updates the stock quantity in the 4th column (index 3)
+     * The change is recorded in the Stock_Ledger as a delivery against the
+     * PO, so it counts towards what the PO has received
      */
-    public static void updateItemStock(String itemCode, int quantityToAdd) {
-        List<String> lines = readLines("data/items_data.txt");      // Read all current item records
-        ArrayList<String> updatedLines = new ArrayList<>();    // New list to store updated lines
+    public static void updateItemStock(String itemCode, int quantityToAdd, String poNumber) {
+        Stock_Ledger.record(itemCode, Stock_Ledger.Kind.DELIVERY, quantityToAdd, poNumber);
+    }
 
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);              // Split by commas, preserving all values
-            if (parts.length > 0 && parts[0].equals(itemCode)) {
-                // Update stock at 4th column (index 3)
-                int currentStock = Integer.parseInt(parts[3]); // Convert existing stock to int
-                parts[3] = String.valueOf(currentStock + quantityToAdd);  // Add quantity and update
-                updatedLines.add(String.join(",", parts));     // Save updated record
-            } else {
-                updatedLines.add(line);                        // Keep unchanged record
-            }
+    // Waits for a group-commit ticket and reports a failed sync
+    private static void awaitDurable(String filename, long ticket) {
+        try {
+            Durable_Writer.awaitDurable(ticket);
+        } catch (IOException e) {
+            System.out.println("⚠️ Error syncing file: " + filename);  // Log error
         }
-
-        writeLines("data/items_data.txt", updatedLines);  // Save back to file
     }
-}
\ No newline at end of file
+}
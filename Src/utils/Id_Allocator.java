@@ -0,0 +1,112 @@
+import java.util.HashSet;           // Prefixes already reconciled in this run
+
+/**
+ * Id_Allocator - Hands out record IDs such as PO001, PR001, SD001, PAY001,
+ * SUP001, ITM001 and OW001
+ * The highest number issued for each prefix is kept in
+ * data/sequences_data.txt (one "PREFIX,last" line per prefix), so creating a
+ * record no longer scans its whole table for the current maximum. Each
+ * prefix is checked against its table once per run, which covers records
+ * added by older versions or by hand.
+ *
+ * Allocation holds the sequence file's Lock_Manager lock and the new
+ * high-water mark is on disk before an ID is returned, so two windows (or
+ * two clients sharing the data folder) never receive the same ID and an ID
+ * is not reused after a crash.
+ */
+public class Id_Allocator {
+
+    // File holding the last number issued per prefix
+    private static final String SEQUENCES_FILE = "data/sequences_data.txt";
+
+    // Prefixes whose high-water mark was already compared with their table
+    private static final HashSet<String> reconciled = new HashSet<>();
+
+    /**
+     * Allocates the next ID for a table
+     * @param filename The data file the ID is for (e.g. data/purchase_orders_data.txt)
+     * @param prefix The ID prefix used in that file (e.g. "PO")
+     * @return The new ID, e.g. "PO058"
+     */
+    public static String next(String filename, String prefix) {
+        return reserve(filename, prefix, 1)[0];
+    }
+
+    /**
+     * Reserves a block of consecutive IDs for bulk inserts
+     * The whole block costs a single update of the sequence file
+     * @param filename The data file the IDs are for
+     * @param prefix The ID prefix used in that file
+     * @param count How many IDs to reserve
+     * @return The reserved IDs in ascending order
+     */
+    public static String[] reserve(String filename, String prefix, int count) {
+        if (count < 1) return new String[0];
+        try (Lock_Manager.Held _ = Lock_Manager.lock(SEQUENCES_FILE)) {
+            String[] row = Record_Store.get(SEQUENCES_FILE, prefix);
+            long last = 0;
+            if (row != null && row.length > 1) {
+                try { last = Long.parseLong(row[1].trim()); } catch (NumberFormatException ignored) {}
+            }
+            if (reconciled.add(prefix)) {
+                last = Math.max(last, highestInTable(filename, prefix));   // Catch up with records added elsewhere
+            }
+            long first = last + 1;
+            last += count;
+            if (row == null) {
+                File_Utils.appendLine(SEQUENCES_FILE, Csv_Codec.join(prefix, String.valueOf(last)));
+            } else {
+                File_Utils.updateField(SEQUENCES_FILE, prefix, 1, String.valueOf(last));
+            }
+            String[] ids = new String[count];
+            for (int i = 0; i < count; i++) ids[i] = format(prefix, first + i);
+            return ids;
+        }
+    }
+
+    /**
+     * Raises the last number issued for a prefix, for records written with
+     * IDs of their own (e.g. imported from another system), so the IDs
+     * handed out later do not collide with them
+     * @param prefix The ID prefix
+     * @param number The highest number already in use
+     */
+    public static void advance(String prefix, long number) {
+        try (Lock_Manager.Held _ = Lock_Manager.lock(SEQUENCES_FILE)) {
+            String[] row = Record_Store.get(SEQUENCES_FILE, prefix);
+            long last = 0;
+            if (row != null && row.length > 1) {
+                try { last = Long.parseLong(row[1].trim()); } catch (NumberFormatException ignored) {}
+            }
+            if (number <= last) return;
+            if (row == null) {
+                File_Utils.appendLine(SEQUENCES_FILE, Csv_Codec.join(prefix, String.valueOf(number)));
+            } else {
+                File_Utils.updateField(SEQUENCES_FILE, prefix, 1, String.valueOf(number));
+            }
+        }
+    }
+
+    /**
+     * Formats an ID with at least three digits (PO007, PO999, PO1000)
+     * @param prefix The ID prefix
+     * @param number The sequence number
+     * @return The formatted ID
+     */
+    public static String format(String prefix, long number) {
+        return prefix + String.format("%03d", number);
+    }
+
+    // Scans a table for the highest number already used with a prefix
+    private static long highestInTable(String filename, String prefix) {
+        long[] max = {0};
+        Record_Store.forEach(filename, row -> {
+            if (row.size() == 0 || !row.startsWith(0, prefix)) return;
+            String id = row.get(0);
+            try {
+                max[0] = Math.max(max[0], Long.parseLong(id.substring(prefix.length())));
+            } catch (NumberFormatException ignored) {}
+        });
+        return max[0];
+    }
+}
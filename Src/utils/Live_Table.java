@@ -0,0 +1,116 @@
+import javax.swing.*;                                // Change notices are delivered on the EDT
+import java.lang.ref.WeakReference;                 // Observers go away with their panels
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;                           // One live table per file
+import java.util.List;
+
+/**
+ * Live_Table - One shared, read-only copy of a table's lines per process
+ * Every view of the same file (e.g. the purchase-order panels of the sales,
+ * purchase, finance and inventory dashboards) reads this one copy instead of
+ * copying and parsing the file on its own, so opening another panel or
+ * switching dashboards only costs the work of filtering the shared lines.
+ *
+ * The copy is taken from Record_Store again only after the table changed.
+ * A Record_Store listener tells the observers of a table about every change
+ * (coalesced into one notice per burst of writes), so all views of the file
+ * update together when, for example, a PO's status is set.
+ */
+public class Live_Table {
+
+    /**
+     * The table's lines at one Record_Store version
+     * The list never changes; a later version is a new Snapshot
+     */
+    public static final class Snapshot {
+        public final long version;
+        public final List<String> lines;
+
+        Snapshot(long version, List<String> lines) {
+            this.version = version;
+            this.lines = lines;
+        }
+    }
+
+    // Live tables opened so far, keyed by file name (guarded by Record_Store.class)
+    private static final HashMap<String, Live_Table> tables = new HashMap<>();
+
+    private final String filename;
+    private Snapshot snapshot;                                          // Latest copy (under the lock)
+    private final List<WeakReference<Runnable>> observers = new ArrayList<>();   // EDT only
+    private boolean noticePending;                                      // A notice is queued (under the lock)
+
+    private Live_Table(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * Returns the process-wide live table for a file, opening it on first use
+     * @param filename The path to the data file
+     * @return The shared live table
+     */
+    public static Live_Table of(String filename) {
+        synchronized (Record_Store.class) {
+            Live_Table table = tables.get(filename);
+            if (table == null) {
+                table = new Live_Table(filename);
+                tables.put(filename, table);
+                table.follow();
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns the current lines, copying them from Record_Store only if the
+     * table changed since the last copy (files changed by other processes
+     * are picked up too)
+     * @return The shared snapshot; its list must not be modified
+     */
+    public Snapshot snapshot() {
+        synchronized (Record_Store.class) {
+            long version = Record_Store.version(filename);
+            if (snapshot == null || snapshot.version != version) {
+                snapshot = new Snapshot(version, Collections.unmodifiableList(Record_Store.lines(filename)));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Calls back on the EDT after the table changed
+     * Only a weak reference is kept, so the caller must hold on to the
+     * Runnable for as long as it wants notices (e.g. in a field of its panel)
+     * @param onChange Called once per burst of changes
+     */
+    public void observe(Runnable onChange) {
+        observers.add(new WeakReference<>(onChange));
+    }
+
+    // Queues a change notice for the observers (under the lock, from the writing thread)
+    private void changed() {
+        if (noticePending) return;                      // One notice covers the whole burst
+        noticePending = true;
+        SwingUtilities.invokeLater(() -> {
+            synchronized (Record_Store.class) { noticePending = false; }
+            observers.removeIf(ref -> ref.get() == null);   // Panels that were closed
+            for (WeakReference<Runnable> ref : new ArrayList<>(observers)) {
+                Runnable onChange = ref.get();
+                if (onChange != null) onChange.run();
+            }
+        });
+    }
+
+    // Listens to the table's writes and reloads (once, under the lock)
+    private void follow() {
+        Record_Store.addListener(filename, new Record_Store.Listener() {
+            public void recordChanged(String file, String oldLine, String newLine) {
+                changed();
+            }
+            public void tableReloaded(String file) {
+                changed();
+            }
+        });
+    }
+}
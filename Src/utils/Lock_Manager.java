@@ -0,0 +1,231 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;              // Sidecar lock file per table
+import java.nio.channels.FileLock;                 // Exclusion between processes
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;                           // Fixed lock order for several tables
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;                          // Report sorted by table
+import java.util.concurrent.ConcurrentHashMap;     // One stripe per table
+import java.util.concurrent.locks.ReentrantLock;   // Exclusion between threads
+
+/**
+ * Lock_Manager - Per-table write locks, shared with other processes
+ * Every data file has its own stripe, so writes to unrelated tables (e.g.
+ * sales and payments) run in parallel while writes to the same table are
+ * serialised. A stripe is a ReentrantLock for the threads of this process
+ * plus an exclusive FileChannel lock on a sidecar file next to the table
+ * (data/sales_data.lock for data/sales_data.txt), which keeps several
+ * clients sharing one data folder from interleaving their writes.
+ *
+ * The file lock is taken when a thread first enters the stripe and released
+ * when it leaves the outermost hold, so nested writes (e.g. a compaction
+ * inside an ID allocation) stay cheap.
+ *
+ * Lock order: table locks are taken before the Record_Store lock, never
+ * while holding it, and several tables are locked in name order (use
+ * lock(String...)). Each stripe counts its acquisitions and the time spent
+ * waiting for them; long waits are logged and report() lists them all.
+ */
+public class Lock_Manager {
+
+    // Waits longer than this are logged as they happen
+    private static final long SLOW_WAIT_MS = 500;
+    // Longest pause between attempts to lock a sidecar file held by another client
+    private static final int MAX_POLL_MS = 20;
+
+    /**
+     * A held lock; closing it releases the lock (use with try-with-resources)
+     */
+    public static final class Held implements AutoCloseable {
+        private final Stripe[] stripes;
+        private boolean closed;
+
+        private Held(Stripe[] stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            for (int i = stripes.length - 1; i >= 0; i--) stripes[i].release();   // Reverse order
+        }
+    }
+
+    /**
+     * Contention figures for one table since the start of the run
+     */
+    public static final class Stats {
+        public final String filename;
+        public final long acquisitions;     // Outermost holds taken
+        public final long contended;        // Holds that had to wait for another thread or process
+        public final long totalWaitNanos;
+        public final long maxWaitNanos;
+
+        Stats(String filename, long acquisitions, long contended, long totalWaitNanos, long maxWaitNanos) {
+            this.filename = filename;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+    }
+
+    // The locks and counters of one table
+    private static final class Stripe {
+        final String filename;
+        final ReentrantLock lock = new ReentrantLock();
+        FileChannel channel;                // Open sidecar file (under lock)
+        FileLock fileLock;                  // Held while a thread of this process is inside (under lock)
+        boolean fileLocking = true;         // Cleared if the sidecar cannot be opened (under lock)
+        long acquisitions, contended, totalWaitNanos, maxWaitNanos;   // Guarded by the stripe itself
+
+        Stripe(String filename) {
+            this.filename = filename;
+        }
+
+        void acquire() {
+            long start = System.nanoTime();
+            boolean waited = !lock.tryLock();
+            if (waited) lock.lock();                        // Another thread of this process is writing
+            if (lock.getHoldCount() > 1) return;           // Nested hold, the file is already locked
+            waited |= !lockSidecar();
+            long wait = System.nanoTime() - start;
+            synchronized (this) {
+                acquisitions++;
+                if (waited) contended++;
+                totalWaitNanos += wait;
+                maxWaitNanos = Math.max(maxWaitNanos, wait);
+            }
+            if (wait >= SLOW_WAIT_MS * 1_000_000) {
+                System.out.println("⏳ Waited " + wait / 1_000_000 + " ms for the write lock on " + filename);
+            }
+        }
+
+        void release() {
+            if (lock.getHoldCount() == 1 && fileLock != null) {
+                try {
+                    fileLock.release();
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error releasing lock file for: " + filename);
+                }
+                fileLock = null;
+            }
+            lock.unlock();
+        }
+
+        // Takes the sidecar file lock; returns false if another process had to be waited for
+        // Polls with tryLock instead of blocking: the OS tracks file locks per process, so a blocking
+        // lock would report a false deadlock when two of our threads hold and wait for different tables
+        private boolean lockSidecar() {
+            if (!fileLocking) return true;
+            boolean interrupted = Thread.interrupted();     // An interrupt would close the channel
+            try {
+                for (int pause = 1; ; pause = Math.min(pause * 2, MAX_POLL_MS)) {
+                    if (channel == null || !channel.isOpen()) {
+                        channel = FileChannel.open(lockFile(filename).toPath(),
+                                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    }
+                    fileLock = channel.tryLock();
+                    if (fileLock != null) return pause == 1;
+                    try {
+                        Thread.sleep(pause);                // Another client is writing the table
+                    } catch (InterruptedException e) {
+                        interrupted = true;                 // A write is never abandoned half-way, keep waiting
+                    }
+                }
+            } catch (IOException e) {
+                // e.g. a read-only folder: keep working with the in-process lock alone
+                System.out.println("⚠️ Could not lock " + lockFile(filename).getPath() + ", other clients are not excluded");
+                fileLocking = false;
+                return true;
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();   // Leave the flag for the caller
+            }
+        }
+    }
+
+    // Stripes created so far, keyed by file name
+    private static final ConcurrentHashMap<String, Stripe> stripes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the sidecar lock file that belongs to a data file
+     * @param filename The path to the data file (e.g. data/items_data.txt)
+     * @return The lock file (e.g. data/items_data.lock)
+     */
+    public static File lockFile(String filename) {
+        String base = filename.endsWith(".txt") ? filename.substring(0, filename.length() - 4) : filename;
+        return new File(base + ".lock");
+    }
+
+    /**
+     * Locks one or more tables for writing, waiting for other threads and
+     * processes that hold them
+     * Several tables are always locked in name order, so two writers that
+     * need the same tables cannot deadlock
+     * @param filenames The data files to lock
+     * @return The held locks; close it to release them
+     */
+    public static Held lock(String... filenames) {
+        String[] names = filenames.clone();
+        Arrays.sort(names);
+        List<Stripe> taken = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0 && names[i].equals(names[i - 1])) continue;   // Same table listed twice
+            Stripe stripe = stripe(names[i]);
+            stripe.acquire();
+            taken.add(stripe);
+        }
+        return new Held(taken.toArray(new Stripe[0]));
+    }
+
+    /**
+     * Checks whether another thread of this process is writing a table right now
+     * Record_Store uses this to leave the file alone while its write is in flight
+     * @param filename The path to the data file
+     * @return true if the table's lock is held by a different thread
+     */
+    static boolean isLockedElsewhere(String filename) {
+        Stripe stripe = stripes.get(filename);
+        return stripe != null && stripe.lock.isLocked() && !stripe.lock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Returns the contention figures of one table
+     * @param filename The path to the data file
+     * @return Its counters (all zero if it was never locked)
+     */
+    public static Stats stats(String filename) {
+        Stripe stripe = stripes.get(filename);
+        if (stripe == null) return new Stats(filename, 0, 0, 0, 0);
+        synchronized (stripe) {                             // Readable while a writer holds the table
+            return new Stats(filename, stripe.acquisitions, stripe.contended,
+                    stripe.totalWaitNanos, stripe.maxWaitNanos);
+        }
+    }
+
+    /**
+     * Describes the lock contention of every table written so far, one line per table
+     * @return The report, e.g. "data/sales_data.txt: 120 locks, 3 waited, 4.2 ms total, 2.9 ms max"
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Stripe> entry : new TreeMap<>(stripes).entrySet()) {
+            Stats s = stats(entry.getKey());
+            sb.append(s.filename).append(": ")
+              .append(s.acquisitions).append(" locks, ")
+              .append(s.contended).append(" waited, ")
+              .append(String.format("%.1f ms total, %.1f ms max", s.totalWaitNanos / 1e6, s.maxWaitNanos / 1e6))
+              .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    // Returns the stripe of a table, creating it on first use
+    private static Stripe stripe(String filename) {
+        return stripes.computeIfAbsent(filename, Stripe::new);
+    }
+}
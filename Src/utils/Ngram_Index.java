@@ -0,0 +1,242 @@
+import java.util.Arrays;            // Growing and searching posting lists
+import java.util.HashMap;           // Table -> index, primary ID -> line
+import java.util.HashSet;           // Distinct trigrams of a query, followed tables
+import java.util.List;              // Lines of a table when the index is rebuilt
+import java.util.function.LongConsumer;   // Trigram callback
+
+/**
+ * Ngram_Index - A trigram inverted index for substring search over a table
+ * Every record's fields are lower-cased and cut into overlapping three-character
+ * pieces. Each piece maps to the sorted list of lines (row numbers in the
+ * Record_Store table) that contain it, so a substring query only has to look
+ * at the lines found in every one of its pieces' lists instead of at every
+ * line of the table.
+ *
+ * The lists are candidates: a line can hold all pieces of a query without
+ * holding the query itself, so callers verify each candidate.
+ *
+ * An index is built the first time a table is queried, from the lines of
+ * its Live_Table and outside the Record_Store lock, and then kept current by
+ * a Record_Store listener: appended and updated records only touch the lists
+ * of their own trigrams. A full reload of the table drops the index and the
+ * next query builds it again.
+ */
+public class Ngram_Index {
+
+    // Length of the indexed pieces; shorter queries cannot use the index
+    public static final int GRAM = 3;
+
+    // Indexes that are current with their table, keyed by file name (absent while a rebuild is due)
+    private static final HashMap<String, Ngram_Index> indexes = new HashMap<>();
+    // Tables whose changes are already being followed
+    private static final HashSet<String> followed = new HashSet<>();
+
+    // A sorted list of line numbers
+    private static final class Postings {
+        int[] lines = new int[4];
+        int size;
+
+        // Adds a line, keeping the list sorted (appends at the end are the common case)
+        void add(int line) {
+            if (size == lines.length) lines = Arrays.copyOf(lines, size * 2);
+            if (size == 0 || lines[size - 1] < line) {
+                lines[size++] = line;
+                return;
+            }
+            int at = Arrays.binarySearch(lines, 0, size, line);
+            if (at >= 0) return;                                // Already listed
+            at = -at - 1;
+            System.arraycopy(lines, at, lines, at + 1, size - at);
+            lines[at] = line;
+            size++;
+        }
+
+        // Removes a line if it is listed
+        void remove(int line) {
+            int at = Arrays.binarySearch(lines, 0, size, line);
+            if (at < 0) return;
+            System.arraycopy(lines, at + 1, lines, at, size - at - 1);
+            size--;
+        }
+    }
+
+    // Open-addressing map from trigram key to posting list (keys are never 0, see key())
+    private static final class Gram_Map {
+        long[] keys = new long[1024];
+        Postings[] values = new Postings[1024];
+        int size;
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return null;
+        }
+
+        Postings getOrAdd(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            for (; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            if ((size + 1) * 2 > keys.length) {                // Keep at most half full
+                grow();
+                return getOrAdd(key);
+            }
+            size++;
+            keys[i] = key;
+            return values[i] = new Postings();
+        }
+
+        void clear() {
+            keys = new long[1024];
+            values = new Postings[1024];
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] == 0) continue;
+                int i = slot(oldKeys[k], mask);
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & mask;
+        }
+    }
+
+    private final Gram_Map postings = new Gram_Map();
+    private final HashMap<String, Integer> lineById = new HashMap<>();   // First line per primary ID, as in Record_Store
+    private final Csv_Codec.Row row = new Csv_Codec.Row();               // Reused cursor for splitting records
+    private int lineCount;                                                // Lines indexed so far
+
+    /**
+     * Finds the lines of a table that may contain a substring
+     * The answer is only given while the table is still at the version the
+     * caller's copy was taken from, so the line numbers match that copy
+     * @param filename The path to the data file
+     * @param query The lower-case text to look for (at least GRAM characters)
+     * @param version The Record_Store version of the caller's copy of the table
+     * @return Candidate line numbers in ascending order, or null if the query
+     *         is too short or the table has changed since that version
+     */
+    public static int[] candidates(String filename, String query, long version) {
+        if (query.length() < GRAM) return null;
+        List<String> lines;
+        synchronized (Record_Store.class) {
+            if (Record_Store.version(filename) != version) return null;
+            Ngram_Index index = indexes.get(filename);
+            if (index != null) return index.query(query);
+            follow(filename);
+            lines = Live_Table.of(filename).snapshot().lines;  // Still at the caller's version, shared with the views
+        }
+        // Build outside the lock, so writers are not held up by a large table
+        Ngram_Index built = new Ngram_Index();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i % 4096 == 0 && Thread.currentThread().isInterrupted()) return null;   // Search was cancelled
+            built.add(lines.get(i));
+        }
+        synchronized (Record_Store.class) {
+            if (Record_Store.version(filename) != version) return null;   // Changed meanwhile, the next query builds again
+            indexes.put(filename, built);                      // From here on the listener keeps it current
+            return built.query(query);
+        }
+    }
+
+    // Starts following a table's changes (once per table, under the lock)
+    private static void follow(String filename) {
+        if (!followed.add(filename)) return;
+        Record_Store.addListener(filename, new Record_Store.Listener() {
+            public void recordChanged(String file, String oldLine, String newLine) {
+                Ngram_Index index = indexes.get(file);
+                if (index != null && !index.changed(oldLine, newLine)) indexes.remove(file);
+            }
+            public void tableReloaded(String file) {
+                indexes.remove(file);                          // Rebuilt lazily by the next query
+            }
+        });
+    }
+
+    // Intersects the posting lists of every trigram in the query
+    private int[] query(String query) {
+        HashSet<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) grams.add(key(query, i));
+        // Start from the shortest list so the intersection shrinks as fast as possible
+        Postings[] lists = new Postings[grams.size()];
+        int n = 0;
+        for (long gram : grams) {
+            Postings p = postings.get(gram);
+            if (p == null) return new int[0];                  // A piece no line has
+            lists[n++] = p;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists[0].lines, lists[0].size);
+        int size = result.length;
+        for (int k = 1; k < lists.length && size > 0; k++) {
+            Postings other = lists[k];
+            int kept = 0, j = 0;
+            for (int i = 0; i < size; i++) {
+                int line = result[i];
+                while (j < other.size && other.lines[j] < line) j++;
+                if (j == other.size) break;
+                if (other.lines[j] == line) result[kept++] = line;
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Follows one record change reported by Record_Store; false if the index has to be rebuilt instead
+    private boolean changed(String oldLine, String newLine) {
+        if (oldLine == null) {                                 // Appended
+            add(newLine);
+            return true;
+        }
+        Integer line = lineById.get(primaryKey(oldLine));
+        if (line == null || newLine == null) return false;     // Unknown line, or a removal that shifts later lines
+        forEachGram(oldLine, gram -> {
+            Postings p = postings.get(gram);
+            if (p != null) p.remove(line);
+        });
+        forEachGram(newLine, gram -> postings.getOrAdd(gram).add(line));
+        return true;
+    }
+
+    // Indexes a line appended after the current last line
+    private void add(String line) {
+        int number = lineCount++;
+        lineById.putIfAbsent(primaryKey(line), number);
+        forEachGram(line, gram -> postings.getOrAdd(gram).add(number));
+    }
+
+    // Calls back with every trigram of a record's lower-cased fields (none span two fields)
+    // A trigram can come up more than once; adding or removing a line twice is harmless
+    private void forEachGram(String line, LongConsumer action) {
+        row.reset(line);
+        for (int f = 0; f < row.size(); f++) {
+            String field = row.get(f).toLowerCase();
+            for (int i = 0; i + GRAM <= field.length(); i++) action.accept(key(field, i));
+        }
+    }
+
+    // Packs three characters into one key (the top bit keeps it from ever being 0)
+    private static long key(String s, int at) {
+        return (1L << 48) | ((long) s.charAt(at) << 32) | ((long) s.charAt(at + 1) << 16) | s.charAt(at + 2);
+    }
+
+    // Primary ID (first field) of a line
+    private String primaryKey(String line) {
+        return row.reset(line).get(0);
+    }
+}
@@ -0,0 +1,83 @@
+import javax.swing.*;                                // Panels shown in the content area
+import java.awt.*;                                  // Content area layout
+import java.io.File;                                // Report folders as sources
+import java.util.Arrays;                            // Comparing source versions
+import java.util.HashMap;                           // Panel class -> cached panel
+import java.util.function.Supplier;                 // Builds a panel on first use
+
+/**
+ * Panel_Registry - Builds each dashboard panel once and keeps it for later visits
+ * A dashboard's sidebar buttons used to construct a brand-new panel on every
+ * click, which re-read its data files and rebuilt its table renderers. The
+ * registry builds a panel the first time it is asked for and afterwards only
+ * swaps the kept panel back into the content area, so navigation costs no
+ * construction or file reads.
+ *
+ * Panels backed by a Search_Controller follow their file on their own (a
+ * hidden table searches again when it is shown, if the file changed). Other
+ * panels implement Refreshable: the registry remembers the versions of their
+ * sources when they were last shown and calls reload() only if one changed.
+ */
+public class Panel_Registry {
+
+    /**
+     * A panel whose data has to be reloaded by hand when its sources change
+     */
+    public interface Refreshable {
+        // Data files or report folders the panel shows
+        String[] sources();
+
+        // Reloads the panel's data (called on the EDT)
+        void reload();
+    }
+
+    private final Container content;                    // The dashboard's content area
+    private final HashMap<Class<?>, JComponent> panels = new HashMap<>();
+    private final HashMap<Class<?>, long[]> shownAt = new HashMap<>();   // Source versions when last shown
+
+    /**
+     * Creates a registry for one dashboard
+     * @param content The content area the panels are shown in (BorderLayout)
+     */
+    public Panel_Registry(Container content) {
+        this.content = content;
+    }
+
+    /**
+     * Shows a dashboard panel, building it on first use
+     * @param type The panel's class, which identifies it in this dashboard
+     * @param factory Builds the panel the first time it is shown
+     */
+    public <T extends JComponent> void show(Class<T> type, Supplier<T> factory) {
+        JComponent panel = panels.get(type);
+        if (panel == null) {
+            panel = factory.get();                      // Loads its own data while being built
+            panels.put(type, panel);
+            if (panel instanceof Refreshable refreshable) shownAt.put(type, versions(refreshable));
+        } else if (panel instanceof Refreshable refreshable) {
+            // Versions are taken before reloading, so a write during the reload is caught next time
+            long[] versions = versions(refreshable);
+            if (!Arrays.equals(versions, shownAt.get(type))) refreshable.reload();
+            shownAt.put(type, versions);
+        }
+
+        content.removeAll();
+        content.add(panel, BorderLayout.CENTER);
+        content.revalidate();
+        content.repaint();
+    }
+
+    // Current version of each of a panel's sources
+    private static long[] versions(Refreshable panel) {
+        String[] sources = panel.sources();
+        long[] versions = new long[sources.length];
+        for (int i = 0; i < sources.length; i++) versions[i] = version(sources[i]);
+        return versions;
+    }
+
+    // A data file's Record_Store version, or a report folder's timestamp (changes when reports are added or removed)
+    private static long version(String source) {
+        File file = new File(source);
+        return file.isDirectory() ? file.lastModified() : Record_Store.version(source);
+    }
+}
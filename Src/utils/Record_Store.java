@@ -0,0 +1,501 @@
+import java.io.*;                    // File access for loading tables
+import java.util.ArrayList;         // Resident list of lines per table
+import java.util.HashMap;           // Primary-key index and table registry
+import java.util.List;              // Generic list interface for callers
+import java.util.function.Consumer; // Row callback for scans
+
+/**
+ * Record_Store - A resident, ID-keyed cache of the data/*.txt tables
+ * Each table (items, suppliers, PRs, POs, sales, payments, users) is read from
+ * disk once and kept in memory together with an index on its primary ID
+ * (the first column). File_Utils reports every write here so the cache stays
+ * consistent, which turns point lookups into O(1) hash probes instead of a
+ * full file read and parse.
+ *
+ * A table's resident copy is its base file with any pending Change_Log
+ * entries applied on top. Writers hold the table's Lock_Manager lock while
+ * they change the base file, the log and the resident copy, so those always
+ * change together; the file is not re-read while another thread of this
+ * process is in the middle of such a write. The Record_Store lock itself
+ * only guards the resident copies and is held briefly.
+ *
+ * Listeners registered for a table hear about every record that is added or
+ * changed, and about full reloads, so derived data (totals, search indexes,
+ * views) can be kept up to date without rescanning the table. Changes made
+ * by another process are reported the same way: the file is read again and
+ * compared with the resident copy record by record, and only a change that
+ * moves records around (e.g. a deletion) is reported as a reload.
+ *
+ * Every record carries a version stamp: the table version at which it last
+ * changed. Writers that read a record, let the user edit it and then write
+ * it back pass the stamp they saw to File_Utils.compareAndSet, which only
+ * applies the write if the record was not changed in between.
+ */
+public class Record_Store {
+
+    /**
+     * Receives changes to a table's resident records
+     * Callbacks run while the store is locked and must not write to any table
+     */
+    public interface Listener {
+        // A record was added (oldLine is null), changed, or removed (newLine is null)
+        void recordChanged(String filename, String oldLine, String newLine);
+
+        // The table was (re)loaded or rewritten as a whole; derived data should be rebuilt
+        void tableReloaded(String filename);
+    }
+
+    /**
+     * One loaded table: its non-empty lines in file order plus a map from
+     * primary ID to the position of that record in the list
+     */
+    private static class Table {
+        final ArrayList<String> lines = new ArrayList<>();
+        final HashMap<String, Integer> rowById = new HashMap<>();
+        // Version at which each record last changed; records not listed are as old as the load
+        final HashMap<String, Long> changedAt = new HashMap<>();
+        long loadedAt;       // Version of the last full load from disk
+        // Secondary indexes: column -> field value -> rows holding it, in file order
+        final HashMap<Integer, HashMap<String, ArrayList<Integer>>> byColumn = new HashMap<>();
+        long lastModified;   // File timestamp when the cache was last synced
+        long length;         // File size when the cache was last synced
+        long logModified;    // Change log timestamp when the cache was last synced
+        long logLength;      // Change log size when the cache was last synced
+        long version;        // Bumped on every change, so derived copies can tell they are stale
+
+        // Takes over the file timestamps another copy of the table was read at
+        void stampedAs(Table other) {
+            lastModified = other.lastModified;
+            length = other.length;
+            logModified = other.logModified;
+            logLength = other.logLength;
+        }
+
+        // Rebuilds the primary-key index and every registered secondary index from the current lines
+        void reindex() {
+            rowById.clear();
+            for (int i = 0; i < lines.size(); i++) {
+                rowById.putIfAbsent(primaryKey(lines.get(i)), i);   // First record wins, as in the old scans
+            }
+            for (Integer column : byColumn.keySet()) buildIndex(column);
+        }
+
+        // (Re)builds the secondary index for one column
+        HashMap<String, ArrayList<Integer>> buildIndex(int column) {
+            HashMap<String, ArrayList<Integer>> index = new HashMap<>();
+            for (int i = 0; i < lines.size(); i++) {
+                keyRow.reset(lines.get(i));
+                if (column < keyRow.size()) {
+                    index.computeIfAbsent(keyRow.get(column), _ -> new ArrayList<>()).add(i);
+                }
+            }
+            byColumn.put(column, index);
+            return index;
+        }
+
+        // Adds a newly appended row to every secondary index
+        void indexRow(int row) {
+            if (byColumn.isEmpty()) return;
+            keyRow.reset(lines.get(row));
+            for (var entry : byColumn.entrySet()) {
+                if (entry.getKey() < keyRow.size()) {
+                    entry.getValue().computeIfAbsent(keyRow.get(entry.getKey()), _ -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+
+        // Moves a row between buckets after one of its indexed fields changed
+        void reindexField(int row, int column, String oldValue, String newValue) {
+            HashMap<String, ArrayList<Integer>> index = byColumn.get(column);
+            if (index == null || oldValue.equals(newValue)) return;
+            ArrayList<Integer> rows = index.get(oldValue);
+            if (rows != null) {
+                rows.remove(Integer.valueOf(row));
+                if (rows.isEmpty()) index.remove(oldValue);
+            }
+            ArrayList<Integer> target = index.computeIfAbsent(newValue, _ -> new ArrayList<>());
+            int at = 0;
+            while (at < target.size() && target.get(at) < row) at++;   // Keep file order
+            target.add(at, row);
+        }
+    }
+
+    // All tables loaded so far, keyed by file name
+    private static final HashMap<String, Table> tables = new HashMap<>();
+    // Listeners per table, keyed by file name
+    private static final HashMap<String, List<Listener>> listeners = new HashMap<>();
+    // Reused cursor for key extraction (only touched under the lock)
+    private static final Csv_Codec.Row keyRow = new Csv_Codec.Row();
+
+    /**
+     * Returns a copy of all non-empty lines of a table
+     * @param filename The path to the data file
+     * @return ArrayList<String> the caller is free to modify
+     */
+    public static synchronized ArrayList<String> lines(String filename) {
+        return new ArrayList<>(table(filename).lines);
+    }
+
+    /**
+     * Looks up a single record by its primary ID
+     * @param filename The path to the data file
+     * @param id The value of the first column of the wanted record
+     * @return The raw line, or null if there is no such record
+     */
+    public static synchronized String find(String filename, String id) {
+        Table t = table(filename);
+        Integer row = t.rowById.get(id);
+        return row == null ? null : t.lines.get(row);
+    }
+
+    /**
+     * A record's fields together with its version stamp
+     */
+    public static final class Versioned {
+        public final String[] fields;
+        public final long version;
+
+        Versioned(String[] fields, long version) {
+            this.fields = fields;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Looks up a record and the version it is at, for a later compare-and-set
+     * @param filename The path to the data file
+     * @param id The value of the first column of the wanted record
+     * @return The record's fields and version, or null if there is no such record
+     */
+    public static synchronized Versioned read(String filename, String id) {
+        Table t = table(filename);
+        Integer row = t.rowById.get(id);
+        if (row == null) return null;
+        return new Versioned(Csv_Codec.split(t.lines.get(row)), t.changedAt.getOrDefault(id, t.loadedAt));
+    }
+
+    /**
+     * Returns the version stamp of one record: the table version at which it last changed
+     * A copy of the table taken at version V holds the current content of
+     * every record whose stamp is not above V
+     * @param filename The path to the data file
+     * @param id The primary ID of the record
+     * @return The record's version, or -1 if there is no such record
+     */
+    public static synchronized long recordVersion(String filename, String id) {
+        Table t = table(filename);
+        if (!t.rowById.containsKey(id)) return -1;
+        return t.changedAt.getOrDefault(id, t.loadedAt);
+    }
+
+    /**
+     * Looks up a single record by its primary ID and splits it into fields
+     * @param filename The path to the data file
+     * @param id The value of the first column of the wanted record
+     * @return The record's fields, or null if there is no such record
+     */
+    public static String[] get(String filename, String id) {
+        String line = find(filename, id);
+        return line == null ? null : Csv_Codec.split(line);
+    }
+
+    /**
+     * Visits every record of a table through one reused Csv_Codec.Row
+     * Nothing is copied or split into Strings, which makes this the cheapest
+     * way to aggregate over a whole table. The callback runs while the store
+     * is locked, so it must not write to any table
+     * @param filename The path to the data file
+     * @param action Called once per record; the row is only valid during the call
+     */
+    public static synchronized void forEach(String filename, Consumer<Csv_Codec.Row> action) {
+        Csv_Codec.Row row = new Csv_Codec.Row();             // One cursor per scan, so scans may nest
+        for (String line : table(filename).lines) {
+            action.accept(row.reset(line));
+        }
+    }
+
+    /**
+     * Registers a listener for changes to one table
+     * @param filename The path to the data file
+     * @param listener Called after every change to that table
+     */
+    public static synchronized void addListener(String filename, Listener listener) {
+        listeners.computeIfAbsent(filename, _ -> new ArrayList<>()).add(listener);
+    }
+
+    /**
+     * Returns a counter that changes whenever a table's records change
+     * Picks up outside edits first, so an unchanged value means a copy made
+     * at that version is still current
+     * @param filename The path to the data file
+     * @return The table's current version
+     */
+    public static synchronized long version(String filename) {
+        return table(filename).version;
+    }
+
+    /**
+     * Reloads a table if its file was changed outside this process
+     * Cheap when nothing changed (the file and log timestamps are compared)
+     * @param filename The path to the data file
+     */
+    public static synchronized void refresh(String filename) {
+        table(filename);
+    }
+
+    /**
+     * Picks up changes another process made to a loaded table (see Data_Watcher)
+     * Appended and changed records are reported to the listeners one by one;
+     * tables that are not loaded yet are left alone, they are read on first use
+     * @param filename The path to the data file
+     */
+    public static synchronized void sync(String filename) {
+        if (tables.containsKey(filename)) table(filename);
+    }
+
+    /**
+     * Looks up all records whose given column holds a value, e.g. the POs
+     * raised for a PR or the payments made for a PO
+     * The index for a column is built on first use and then kept up to date
+     * on every write, so later lookups are a single hash probe
+     * @param filename The path to the data file
+     * @param column The column to match (a foreign key such as the PR ID of a PO)
+     * @param value The value that column must hold
+     * @return The matching records split into fields, in file order (empty if none)
+     */
+    public static synchronized List<String[]> findBy(String filename, int column, String value) {
+        Table t = table(filename);
+        HashMap<String, ArrayList<Integer>> index = t.byColumn.get(column);
+        if (index == null) index = t.buildIndex(column);
+        List<String[]> records = new ArrayList<>();
+        for (int row : index.getOrDefault(value, new ArrayList<>())) {
+            records.add(Csv_Codec.split(t.lines.get(row)));
+        }
+        return records;
+    }
+
+    /**
+     * Checks whether a record with the given primary ID exists
+     * @param filename The path to the data file
+     * @param id The primary ID to look for
+     * @return true if the table contains that ID
+     */
+    public static synchronized boolean contains(String filename, String id) {
+        return table(filename).rowById.containsKey(id);
+    }
+
+    /**
+     * Called after field updates for a record were written to the change log
+     * @param filename The path to the data file
+     * @param id The primary ID of the updated record
+     * @param columns The column indexes that were set
+     * @param values The new values, one per column
+     */
+    static synchronized void applied(String filename, String id, int[] columns, String[] values) {
+        Table t = tables.get(filename);
+        if (t == null) return;                                 // Not loaded yet, the log is replayed on first use
+        Integer row = t.rowById.get(id);
+        String oldLine = row == null ? null : t.lines.get(row);
+        apply(t, id, columns, values);
+        stamp(t, new File(filename));
+        if (oldLine != null) fireChanged(filename, oldLine, t.lines.get(row));
+    }
+
+    /**
+     * Called after a file has been completely rewritten
+     * @param filename The path to the data file
+     * @param newLines The lines that are now on disk
+     */
+    static synchronized void replaced(String filename, List<String> newLines) {
+        Table t = tables.computeIfAbsent(filename, _ -> new Table());
+        HashMap<String, String> before = byId(t);
+        t.lines.clear();
+        for (String line : newLines) {
+            if (!line.trim().isEmpty()) t.lines.add(line);
+        }
+        t.reindex();
+        stamp(t, new File(filename));
+        fireReloaded(filename);
+        restamp(t, before);
+    }
+
+    /**
+     * Called after a line has been appended to a file
+     * @param filename The path to the data file
+     * @param line The line that was appended
+     */
+    static synchronized void appended(String filename, String line) {
+        Table t = tables.get(filename);
+        if (t == null) return;                                 // Not loaded yet, will be read on first use
+        if (!line.trim().isEmpty()) {
+            t.lines.add(line);
+            t.rowById.putIfAbsent(primaryKey(line), t.lines.size() - 1);
+            t.indexRow(t.lines.size() - 1);
+        }
+        stamp(t, new File(filename));
+        if (!line.trim().isEmpty()) fireChanged(filename, null, line);
+    }
+
+    // Returns the cached table, (re)loading it if the file changed behind our back
+    private static Table table(String filename) {
+        File file = new File(filename);
+        File log = Change_Log.logFile(filename);
+        Table t = tables.get(filename);
+        if (t != null && Lock_Manager.isLockedElsewhere(filename)) {
+            return t;                                          // A local write is in flight; it updates the copy itself
+        }
+        if (t != null && t.lastModified == file.lastModified() && t.length == file.length()
+                && t.logModified == log.lastModified() && t.logLength == log.length()) {
+            return t;                                          // Cache is current
+        }
+        if (t == null) {
+            t = new Table();
+            tables.put(filename, t);
+            load(t, filename);
+        } else {
+            resync(t, filename);
+        }
+        return t;
+    }
+
+    // Reads the whole file into the table and rebuilds its index
+    private static void load(Table t, String filename) {
+        read(t, filename);
+        fireReloaded(filename);
+        t.changedAt.clear();
+        t.loadedAt = t.version;
+    }
+
+    // Reads a table changed by another process and reports the difference record by record
+    private static void resync(Table t, String filename) {
+        Table fresh = new Table();
+        read(fresh, filename);
+        int common = t.lines.size();
+        boolean inPlace = fresh.lines.size() >= common;        // Records only changed or appended
+        for (int i = 0; inPlace && i < common; i++) {
+            String oldLine = t.lines.get(i), newLine = fresh.lines.get(i);
+            inPlace = oldLine.equals(newLine) || primaryKey(oldLine).equals(primaryKey(newLine));
+        }
+        if (!inPlace) {                                        // Records removed or reordered
+            HashMap<String, String> before = byId(t);
+            t.lines.clear();
+            t.lines.addAll(fresh.lines);
+            t.reindex();
+            t.stampedAs(fresh);
+            fireReloaded(filename);
+            restamp(t, before);
+            return;
+        }
+        t.stampedAs(fresh);
+        for (int i = 0; i < common; i++) {
+            String oldLine = t.lines.get(i), newLine = fresh.lines.get(i);
+            if (oldLine.equals(newLine)) continue;
+            if (!t.byColumn.isEmpty()) {
+                String[] before = Csv_Codec.split(oldLine), after = Csv_Codec.split(newLine);
+                for (Integer column : t.byColumn.keySet()) {
+                    if (column < before.length && column < after.length) {
+                        t.reindexField(i, column, before[column], after[column]);
+                    }
+                }
+            }
+            t.lines.set(i, newLine);
+            fireChanged(filename, oldLine, newLine);
+        }
+        for (int i = common; i < fresh.lines.size(); i++) {
+            String line = fresh.lines.get(i);
+            t.lines.add(line);
+            t.rowById.putIfAbsent(primaryKey(line), i);
+            t.indexRow(i);
+            fireChanged(filename, null, line);
+        }
+    }
+
+    // Reads the file and replays its change log into an empty table (no listeners are told)
+    private static void read(Table t, String filename) {
+        File file = new File(filename);
+        stamp(t, file);                                        // Before reading: a write made meanwhile is seen next time
+        t.lines.clear();
+        System.out.println("📂 File Path: " + file.getAbsolutePath());
+        if (!file.exists()) {
+            System.out.println("⚠️ File not found: " + file.getPath());
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {                 // Ignore blank lines
+                        t.lines.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("⚠️ Error reading file: " + file.getPath());
+            }
+        }
+        t.reindex();
+        for (String[] entry : Change_Log.entries(filename)) {   // Recover updates not yet folded in
+            try {
+                apply(t, entry[0], new int[]{Integer.parseInt(entry[1])}, new String[]{entry[2]});
+            } catch (NumberFormatException ignored) {}
+        }
+    }
+
+    // Tells a table's listeners about one changed record
+    private static void fireChanged(String filename, String oldLine, String newLine) {
+        Table t = tables.get(filename);
+        t.version++;
+        t.changedAt.put(primaryKey(newLine != null ? newLine : oldLine), t.version);
+        for (Listener listener : listeners.getOrDefault(filename, List.of())) {
+            listener.recordChanged(filename, oldLine, newLine);
+        }
+    }
+
+    // Tells a table's listeners that the whole table was replaced
+    private static void fireReloaded(String filename) {
+        tables.get(filename).version++;
+        for (Listener listener : listeners.getOrDefault(filename, List.of())) {
+            listener.tableReloaded(filename);
+        }
+    }
+
+    // The current line of every record, by primary ID (first record wins, as in rowById)
+    private static HashMap<String, String> byId(Table t) {
+        HashMap<String, String> lines = new HashMap<>();
+        for (String line : t.lines) lines.putIfAbsent(primaryKey(line), line);
+        return lines;
+    }
+
+    // After a rewrite, stamps only the records whose line differs from before, so unrelated writers do not conflict
+    private static void restamp(Table t, HashMap<String, String> before) {
+        for (String line : t.lines) {
+            String id = primaryKey(line);
+            if (!line.equals(before.get(id))) t.changedAt.put(id, t.version);
+        }
+    }
+
+    // Sets the given columns of one resident record
+    private static void apply(Table t, String id, int[] columns, String[] values) {
+        Integer row = t.rowById.get(id);
+        if (row == null) return;                               // Record was deleted since
+        String[] parts = Csv_Codec.split(t.lines.get(row));
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] > 0 && columns[i] < parts.length) {
+                t.reindexField(row, columns[i], parts[columns[i]], values[i]);
+                parts[columns[i]] = values[i];
+            }
+        }
+        t.lines.set(row, Csv_Codec.join(parts));
+    }
+
+    // Remembers the file's (and its log's) timestamp and size so later changes can be detected
+    private static void stamp(Table t, File file) {
+        File log = Change_Log.logFile(file.getPath());
+        t.lastModified = file.lastModified();
+        t.length = file.length();
+        t.logModified = log.lastModified();
+        t.logLength = log.length();
+    }
+
+    // Extracts the primary ID (first column, unquoted) of a line
+    private static String primaryKey(String line) {
+        return keyRow.reset(line).get(0);
+    }
+}
@@ -0,0 +1,118 @@
+import javax.swing.table.AbstractTableModel;       // Base for the read-only model
+import java.util.List;
+
+/**
+ * Record_Table_Model - A read-only table model that shows data file records
+ * without copying them
+ * The model holds the table's lines (shared with the Record_Store snapshot
+ * they came from) and an int[] view listing which lines are shown, in which
+ * order. Cells are cut out of a line only when the JTable asks for them,
+ * which it does for the visible rows alone, so filtering or re-sorting
+ * produces a new view instead of new rows, and showing it fires a single
+ * change event.
+ *
+ * Each column shows one field of the record; a column mapped to -1 has no
+ * field behind it (e.g. a button column) and its cells are null.
+ */
+public class Record_Table_Model extends AbstractTableModel {
+
+    private final String[] columnNames;
+    private final int[] fields;                         // Record field shown in each column, -1 for none
+    private List<String> lines = List.of();             // All lines of the table
+    private int[] view = new int[0];                    // Line shown in each row
+    private long version = -1;                          // Record_Store version the lines were taken at
+    private final Csv_Codec.Row cursor = new Csv_Codec.Row();
+    private int parsed = -1;                            // Row currently held by the cursor
+
+    /**
+     * Creates a model whose columns show the record's fields in file order
+     * @param columnNames Header of each column
+     */
+    public Record_Table_Model(String[] columnNames) {
+        this(columnNames, identity(columnNames.length));
+    }
+
+    /**
+     * Creates a model that shows selected fields of each record
+     * @param columnNames Header of each column
+     * @param fields Record field shown in each column (-1 for a column without one)
+     */
+    public Record_Table_Model(String[] columnNames, int[] fields) {
+        this.columnNames = columnNames;
+        this.fields = fields;
+    }
+
+    /**
+     * Replaces the rows shown (on the EDT)
+     * @param lines All lines of the table
+     * @param view Index into lines of the record shown in each row
+     * @param version The Record_Store version the lines were taken at
+     */
+    public void show(List<String> lines, int[] view, long version) {
+        this.lines = lines;
+        this.view = view;
+        this.version = version;
+        parsed = -1;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Returns the table version the rows were taken at; a write based on a
+     * row passes it to File_Utils.compareAndSet so it fails if the record
+     * changed since it was shown
+     * @return The Record_Store version of the shown lines (-1 before the first show)
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return Record field shown in each column (-1 for none); must not be modified
+     */
+    public int[] fields() {
+        return fields;
+    }
+
+    /**
+     * Returns the record behind a row as a parsed cursor
+     * @param row The row index
+     * @return The record; valid until the next call on this model
+     */
+    public Csv_Codec.Row record(int row) {
+        if (row != parsed) {
+            cursor.reset(lines.get(view[row]));
+            parsed = row;
+        }
+        return cursor;
+    }
+
+    @Override
+    public int getRowCount() {
+        return view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int field = fields[column];
+        if (field < 0) return null;
+        Csv_Codec.Row record = record(row);
+        return field < record.size() ? record.get(field) : "";   // Short records show blanks
+    }
+
+    // Column i shows field i
+    private static int[] identity(int count) {
+        int[] fields = new int[count];
+        for (int i = 0; i < count; i++) fields[i] = i;
+        return fields;
+    }
+}
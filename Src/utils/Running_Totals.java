@@ -0,0 +1,185 @@
+import java.util.HashMap;           // Sold quantity and unit price per item
+
+/**
+ * Running_Totals - Incrementally maintained figures for the summary bars
+ * Total payments, total paid, total sales, total sales amount, total items
+ * and total stock are computed once and then adjusted by Record_Store
+ * listeners whenever a sale, payment or item record is written, so reading
+ * them costs the same no matter how large the data files grow.
+ *
+ * The sales amount is kept as sold quantity per item times that item's unit
+ * price, so a price change only adjusts the total by the quantity sold of
+ * the repriced item.
+ */
+public class Running_Totals {
+
+    private static final String PAYMENTS_FILE = "data/payments_data.txt";
+    private static final String SALES_FILE = "data/sales_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+
+    private static boolean ready;             // Listeners registered and totals computed
+
+    private static int payments;              // Payment records
+    private static double paid;               // Amount of the payments marked paid
+    private static int sales;                 // Sales records
+    private static double salesAmount;        // Sum of qty x unit price over all sales
+    private static int items;                 // Item records
+    private static long stock;                // Units in stock over all items
+
+    // Quantity sold per item code, and the unit price the sales amount currently uses
+    private static final HashMap<String, Long> soldQty = new HashMap<>();
+    private static final HashMap<String, Double> unitPrice = new HashMap<>();
+
+    // Reused cursor for reading changed lines (only touched under the lock)
+    private static final Csv_Codec.Row row = new Csv_Codec.Row();
+
+    // Number of payment records
+    public static int payments() {
+        synchronized (Record_Store.class) { current(); return payments; }
+    }
+
+    // Total amount of the payments marked paid
+    public static double paid() {
+        synchronized (Record_Store.class) { current(); return paid; }
+    }
+
+    // Number of sales records
+    public static int sales() {
+        synchronized (Record_Store.class) { current(); return sales; }
+    }
+
+    // Total value of all sales at current unit prices
+    public static double salesAmount() {
+        synchronized (Record_Store.class) { current(); return salesAmount; }
+    }
+
+    // Number of item records
+    public static int items() {
+        synchronized (Record_Store.class) { current(); return items; }
+    }
+
+    // Units in stock over all items
+    public static long stock() {
+        synchronized (Record_Store.class) { current(); return stock; }
+    }
+
+    // Sets up the totals on first use and picks up files changed outside this process
+    private static void current() {
+        if (!ready) {
+            ready = true;
+            Record_Store.Listener listener = new Record_Store.Listener() {
+                public void recordChanged(String filename, String oldLine, String newLine) {
+                    if (oldLine != null) adjust(filename, oldLine, -1);
+                    if (newLine != null) adjust(filename, newLine, +1);
+                }
+                public void tableReloaded(String filename) {
+                    rebuild(filename);
+                }
+            };
+            for (String file : new String[]{ITEMS_FILE, SALES_FILE, PAYMENTS_FILE}) {
+                rebuild(file);                          // Loads the table if needed
+                Record_Store.addListener(file, listener);
+            }
+        }
+        // Cheap timestamp checks; a changed file triggers tableReloaded and a rebuild
+        Record_Store.refresh(ITEMS_FILE);
+        Record_Store.refresh(SALES_FILE);
+        Record_Store.refresh(PAYMENTS_FILE);
+    }
+
+    // Adds (sign = +1) or removes (sign = -1) one record's contribution
+    private static void adjust(String filename, String line, int sign) {
+        row.reset(line);
+        switch (filename) {
+            case PAYMENTS_FILE -> {
+                if (row.size() <= 11) return;
+                payments += sign;
+                if (row.get(11).equalsIgnoreCase("paid")) {
+                    try { paid += sign * row.parseDouble(4); } catch (Exception ignored) {}
+                }
+            }
+            case SALES_FILE -> {
+                if (row.size() < 4) return;
+                sales += sign;
+                String itemCode = row.get(1);
+                try {
+                    long qty = sign * (long) row.parseInt(3);
+                    soldQty.merge(itemCode, qty, Long::sum);
+                    salesAmount += qty * unitPrice.getOrDefault(itemCode, 0.0);
+                } catch (Exception ignored) {}
+            }
+            case ITEMS_FILE -> {
+                if (row.size() >= 9) {
+                    items += sign;
+                    try { stock += sign * (long) row.parseInt(3); } catch (Exception ignored) {}
+                }
+                if (sign > 0) reprice(row.get(0));          // Once the new version is in place
+            }
+            default -> {}
+        }
+    }
+
+    // Re-reads the unit price of one item and moves the sales amount by the difference
+    private static void reprice(String itemCode) {
+        double oldPrice = unitPrice.getOrDefault(itemCode, 0.0);
+        double newPrice = priceOf(Record_Store.get(ITEMS_FILE, itemCode));   // First record for the code wins
+        if (newPrice == 0.0) unitPrice.remove(itemCode);
+        else unitPrice.put(itemCode, newPrice);
+        salesAmount += soldQty.getOrDefault(itemCode, 0L) * (newPrice - oldPrice);
+    }
+
+    // Recomputes everything that depends on one table
+    private static void rebuild(String filename) {
+        switch (filename) {
+            case PAYMENTS_FILE -> {
+                payments = 0;
+                paid = 0.0;
+                Record_Store.forEach(PAYMENTS_FILE, p -> {
+                    if (p.size() <= 11) return;
+                    payments++;
+                    if (p.get(11).equalsIgnoreCase("paid")) {
+                        try { paid += p.parseDouble(4); } catch (Exception ignored) {}
+                    }
+                });
+            }
+            case SALES_FILE -> {
+                sales = 0;
+                soldQty.clear();
+                Record_Store.forEach(SALES_FILE, s -> {
+                    if (s.size() < 4) return;
+                    sales++;
+                    try { soldQty.merge(s.get(1), (long) s.parseInt(3), Long::sum); } catch (Exception ignored) {}
+                });
+                recomputeSalesAmount();
+            }
+            case ITEMS_FILE -> {
+                items = 0;
+                stock = 0;
+                unitPrice.clear();
+                Record_Store.forEach(ITEMS_FILE, item -> {
+                    if (item.size() > 4 && !unitPrice.containsKey(item.get(0))) {
+                        try { unitPrice.put(item.get(0), item.parseDouble(4)); } catch (Exception ignored) {}
+                    }
+                    if (item.size() >= 9) {
+                        items++;
+                        try { stock += item.parseInt(3); } catch (Exception ignored) {}
+                    }
+                });
+                recomputeSalesAmount();
+            }
+            default -> {}
+        }
+    }
+
+    // Sales amount from the per-item quantities and prices
+    private static void recomputeSalesAmount() {
+        salesAmount = 0.0;
+        soldQty.forEach((itemCode, qty) -> salesAmount += qty * unitPrice.getOrDefault(itemCode, 0.0));
+    }
+
+    // Unit price of an item record, 0 if it has none
+    private static double priceOf(String[] item) {
+        if (item == null || item.length <= 4) return 0.0;
+        try { return Double.parseDouble(item[4]); } catch (Exception e) { return 0.0; }
+    }
+}
@@ -0,0 +1,256 @@
+import javax.swing.*;                                // Timer and text field
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;          // Keystrokes in the search field
+import java.awt.*;                                  // Component that owns the busy cursor
+import java.awt.event.HierarchyEvent;               // Panel shown again after being hidden
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;                // Which records are rows, extra filters
+import java.util.function.ToIntFunction;            // Optional row order
+
+/**
+ * Search_Controller - Type-to-search for a table backed by one data file
+ * Keystrokes are debounced, so a burst of typing runs one search instead of
+ * one per character. Searches run through Data_Worker and a newer search
+ * cancels the one still running.
+ *
+ * Searches work on the lines of the file's Live_Table, which every view of
+ * the file shares, and the rows picked from them are only picked again after
+ * the file changed. When the new search text extends the previous one (and
+ * the scope is unchanged), only the previous matches are checked again
+ * instead of the whole snapshot.
+ *
+ * A row matches when one of the fields shown in the model contains the
+ * search text (ignoring case) and the current scope accepts the record.
+ * Texts of three or more characters first ask Ngram_Index for the lines
+ * that can contain them, so only those rows are checked.
+ *
+ * Results go to a Record_Table_Model as line numbers; no rows or cells are
+ * copied.
+ *
+ * The table follows changes to the file on its own: a write from any panel
+ * searches again in every view that is showing, and a hidden view searches
+ * again when it is shown.
+ */
+public class Search_Controller {
+
+    // Quiet time after the last keystroke before a search runs
+    private static final int DEBOUNCE_MS = 200;
+    // How many rows are checked between looks at the cancellation flag
+    private static final int CANCEL_CHECK = 4096;
+
+    // The table's lines at one Record_Store version, and which of them are rows
+    private static final class Snapshot {
+        final long version;
+        final List<String> lines;
+        final int[] rows;                               // Line shown in each row, in display order
+        final int[] rowOfLine;                          // Row shown for each file line, -1 if left out
+
+        Snapshot(long version, List<String> lines, int[] rows) {
+            this.version = version;
+            this.lines = lines;
+            this.rows = rows;
+            this.rowOfLine = new int[lines.size()];
+            Arrays.fill(rowOfLine, -1);
+            for (int i = 0; i < rows.length; i++) rowOfLine[rows[i]] = i;
+        }
+    }
+
+    // The outcome of one completed search, kept so the next one can refine it
+    private static final class Result {
+        final Snapshot snapshot;
+        final String text;
+        final Predicate<Csv_Codec.Row> scope;
+        final int[] matches;                             // Indexes into snapshot.rows
+
+        Result(Snapshot snapshot, String text, Predicate<Csv_Codec.Row> scope, int[] matches) {
+            this.snapshot = snapshot;
+            this.text = text;
+            this.scope = scope;
+            this.matches = matches;
+        }
+    }
+
+    private final Component owner;
+    private final Record_Table_Model model;
+    private final String filename;
+    private final Live_Table table;                     // Lines shared with the file's other views
+    private final Runnable onChange = this::tableChanged;   // Held here, Live_Table only keeps it weakly
+    private final Predicate<Csv_Codec.Row> include;
+    private final int[] searched;                       // Fields the search text is looked for in
+    private volatile ToIntFunction<Csv_Codec.Row> order; // Sort key of a record, null for file order
+    private final Timer debounce;
+
+    private JTextField field;                           // Source of the search text (EDT only)
+    private Predicate<Csv_Codec.Row> scope = _ -> true; // Extra filter (EDT only)
+    private Data_Worker.Task<Result> running;           // Search in progress (EDT only)
+    private volatile Snapshot snapshot;                 // Latest snapshot, shared with the workers
+    private volatile Result last;                       // Latest completed search
+    private boolean stale;                              // File changed while hidden (EDT only)
+
+    /**
+     * Creates a controller that shows every record with enough fields
+     * @param owner Component that shows the busy cursor
+     * @param model The table model that shows the matching records
+     * @param filename The data file searched
+     * @param minFields Records with fewer fields are not shown
+     */
+    public Search_Controller(Component owner, Record_Table_Model model, String filename, int minFields) {
+        this(owner, model, filename, record -> record.size() >= minFields);
+    }
+
+    /**
+     * Creates a controller
+     * @param owner Component that shows the busy cursor
+     * @param model The table model that shows the matching records
+     * @param filename The data file searched
+     * @param include Decides which records are rows of the table at all
+     */
+    public Search_Controller(Component owner, Record_Table_Model model, String filename, Predicate<Csv_Codec.Row> include) {
+        this.owner = owner;
+        this.model = model;
+        this.filename = filename;
+        this.table = Live_Table.of(filename);
+        this.include = include;
+        this.searched = Arrays.stream(model.fields()).filter(f -> f >= 0).toArray();
+        this.debounce = new Timer(DEBOUNCE_MS, _ -> refresh());
+        this.debounce.setRepeats(false);
+        table.observe(onChange);
+        if (owner != null) {
+            owner.addHierarchyListener(e -> {
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && owner.isShowing() && stale) refresh();
+            });
+        }
+    }
+
+    /**
+     * Searches as the user types in a text field (debounced)
+     * @param searchField The field holding the search text
+     */
+    public void attach(JTextField searchField) {
+        this.field = searchField;
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { debounce.restart(); }
+            public void removeUpdate(DocumentEvent e) { debounce.restart(); }
+            public void changedUpdate(DocumentEvent e) {}
+        });
+    }
+
+    /**
+     * Shows the rows ordered by a key instead of file order (equal keys keep file order)
+     * The snapshot is kept sorted, so searches need no sorting of their own
+     * @param order Sort key of a record, smaller first
+     */
+    public void orderBy(ToIntFunction<Csv_Codec.Row> order) {
+        this.order = order;
+        this.snapshot = null;                           // Re-sort on the next search
+    }
+
+    /**
+     * Sets the extra filter (e.g. the selected status) and searches right away
+     * @param scope Accepts the records that may be shown
+     */
+    public void setScope(Predicate<Csv_Codec.Row> scope) {
+        this.scope = scope;
+        refresh();
+    }
+
+    /**
+     * Searches right away with the current text and scope
+     * Writes to the file are followed on their own; this is for a new text or scope
+     */
+    public void refresh() {
+        debounce.stop();
+        stale = false;
+        String text = field == null ? "" : field.getText().trim().toLowerCase();
+        Predicate<Csv_Codec.Row> currentScope = scope;
+        Result previous = last;
+        if (running != null && !running.isDone()) running.cancel();   // Superseded
+        running = Data_Worker.submit(owner, () -> search(text, currentScope, previous), this::show);
+    }
+
+    // The file changed: search again now if the table is showing, otherwise once it is shown
+    private void tableChanged() {
+        if (owner == null || owner.isShowing()) refresh();
+        else stale = true;
+    }
+
+    // Runs one search off the EDT
+    private Result search(String text, Predicate<Csv_Codec.Row> currentScope, Result previous) throws InterruptedException {
+        Snapshot snap = current();
+        boolean refine = previous != null && previous.snapshot == snap
+            && previous.scope == currentScope && text.startsWith(previous.text);
+        // Refining re-checks the previous matches; otherwise the trigram index narrows the rows down
+        int[] candidates = refine ? previous.matches : indexed(snap, text);
+        int count = candidates != null ? candidates.length : snap.rows.length;
+        int[] matches = new int[count];
+        int found = 0;
+        Csv_Codec.Row record = new Csv_Codec.Row();
+        for (int k = 0; k < count; k++) {
+            if (k % CANCEL_CHECK == 0 && Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            int i = candidates != null ? candidates[k] : k;
+            record.reset(snap.lines.get(snap.rows[i]));
+            if (contains(record, text) && currentScope.test(record)) matches[found++] = i;
+        }
+        return new Result(snap, text, currentScope, Arrays.copyOf(matches, found));
+    }
+
+    // True if one of the shown fields contains the (lower-case) text
+    private boolean contains(Csv_Codec.Row record, String text) {
+        if (text.isEmpty()) return true;
+        for (int f : searched) {
+            if (record.containsIgnoreCase(f, text)) return true;
+        }
+        return false;
+    }
+
+    // Rows that may contain the text according to the trigram index, in row order (null = check every row)
+    private int[] indexed(Snapshot snap, String text) {
+        int[] lines = Ngram_Index.candidates(filename, text, snap.version);
+        if (lines == null) return null;                 // Text too short, or the file moved on
+        int[] rows = new int[lines.length];
+        int n = 0;
+        for (int line : lines) {
+            int row = snap.rowOfLine[line];
+            if (row >= 0) rows[n++] = row;
+        }
+        rows = Arrays.copyOf(rows, n);
+        if (order != null) Arrays.sort(rows);           // Line order differs from the sorted row order
+        return rows;
+    }
+
+    // Returns the snapshot, picking the rows again first if the file changed since they were picked
+    private Snapshot current() throws InterruptedException {
+        Live_Table.Snapshot shared = table.snapshot();
+        Snapshot snap = snapshot;
+        if (snap != null && snap.version == shared.version) return snap;
+        long version = shared.version;
+        List<String> lines = shared.lines;
+        ToIntFunction<Csv_Codec.Row> key = order;
+        Csv_Codec.Row record = new Csv_Codec.Row();
+        // Sort key in the high half and line number in the low half, so equal keys keep file order
+        long[] shown = new long[lines.size()];
+        int n = 0;
+        for (int line = 0; line < lines.size(); line++) {
+            if (line % CANCEL_CHECK == 0 && Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            record.reset(lines.get(line));
+            if (!include.test(record)) continue;
+            long rank = key == null ? 0 : key.applyAsInt(record);
+            shown[n++] = (rank << 32) | line;
+        }
+        if (key != null) Arrays.sort(shown, 0, n);     // Every subset of a sorted snapshot is sorted too
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = (int) shown[i];
+        Snapshot fresh = new Snapshot(version, lines, rows);
+        snapshot = fresh;
+        return fresh;
+    }
+
+    // Puts a finished search into the table (on the EDT)
+    private void show(Result result) {
+        last = result;
+        int[] view = new int[result.matches.length];
+        for (int i = 0; i < view.length; i++) view[i] = result.snapshot.rows[result.matches[i]];
+        model.show(result.snapshot.lines, view, result.snapshot.version);
+    }
+}
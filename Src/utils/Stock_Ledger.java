@@ -0,0 +1,597 @@
+import java.io.*;                                   // Reading the ledger from a snapshot onwards
+import java.nio.charset.StandardCharsets;          // Snapshot headers are plain ASCII
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;              // Seeking to a snapshot's ledger position
+import java.nio.charset.Charset;                   // Same encoding as Durable_Writer
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;                          // Stock per item code
+import java.util.LinkedHashMap;                    // Running stock of a batch, in first-moved order
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;     // Running totals per kind of movement
+import java.util.concurrent.Executors;             // Background snapshot thread
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Stock_Ledger - Append-only history of stock movements
+ * Every change to an item's stock (a sale, a delivery, a manual adjustment
+ * or the reversal of a sale) is appended to data/stock_ledger_data.txt as
+ * one movement:
+ *   movedAt,itemCode,kind,delta,onHandAfter,reference,userId
+ * and the item's stock column is set in the same step through the
+ * Change_Log, so a movement costs two appends no matter how large the files
+ * are. The stock column of items_data.txt stays the current on-hand figure
+ * every panel reads; the ledger adds the history behind it.
+ *
+ * Every so often the on-hand stock of all items is written to
+ * data/stock_snapshots_data.txt together with the ledger position it
+ * matches:
+ *   takenAt,ledgerOffset,itemCode,qty,itemCode,qty,...
+ * Stock at a past moment is the last snapshot before it plus the movements
+ * that follow it up to that moment, so a query reads at most one snapshot
+ * interval of the ledger. Since a snapshot repeats the whole catalog, the
+ * interval grows with it: the movements between two snapshots take at least
+ * SNAPSHOT_SIZE_RATIO times the space of one snapshot. Snapshots are copied
+ * under the locks but written and synced after releasing them, straight to
+ * the file (they are never loaded into Record_Store), and the newest one is
+ * found by reading the file backwards from its end. The first movement ever
+ * recorded takes a snapshot of the opening stock; there is no history
+ * before it.
+ *
+ * Movements hold the items and ledger locks together (see Lock_Manager) and
+ * the ledger line is written first, so the history never misses a change
+ * that reached the stock column.
+ */
+public class Stock_Ledger {
+
+    /**
+     * Why stock moved
+     */
+    public enum Kind {
+        SALE,           // Sold to a customer (negative)
+        DELIVERY,       // Received against a purchase order (positive)
+        ADJUSTMENT,     // Set by hand: new items, edits, deleted items
+        REVERSAL;       // A sale taken back or reduced (positive)
+
+        // The form stored in the ledger, e.g. "sale"
+        String code() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static final String LEDGER_FILE = "data/stock_ledger_data.txt";
+    public static final String SNAPSHOTS_FILE = "data/stock_snapshots_data.txt";
+    private static final String ITEMS_FILE = "data/items_data.txt";
+
+    // A new snapshot is taken once this many bytes of movements follow the last one...
+    private static final long SNAPSHOT_EVERY_BYTES = 64 * 1024;
+    // ...and those movements take at least this many times the size of a snapshot
+    private static final int SNAPSHOT_SIZE_RATIO = 4;
+    // Bytes read at a time while looking for line breaks from the end of the snapshot file
+    private static final int TAIL_BLOCK = 8 * 1024;
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Bytes read at a time while bringing the totals of totalsFor up to date
+    private static final int TALLY_BLOCK = 64 * 1024;
+
+    /**
+     * Units per reference of one kind of movement, counted up to a ledger position
+     */
+    private static final class Tally {
+        final HashMap<String, Integer> units = new HashMap<>();
+        long readTo;                                    // Ledger position just past the last line counted
+    }
+
+    // Running totals per kind, for totalsFor
+    private static final ConcurrentHashMap<Kind, Tally> tallies = new ConcurrentHashMap<>();
+
+    // Ledger position and size in bytes of the newest snapshot, -1 until it was looked up (under the ledger lock)
+    private static long snapshotOffset = -1;
+    private static long snapshotBytes;
+    private static boolean snapshotQueued;              // Under the ledger lock
+
+    /**
+     * Where a snapshot line sits in the snapshot file
+     * @param start Position of its first byte
+     * @param end Position just past its last byte, line break excluded
+     * @param takenAt When it was taken
+     * @param offset The ledger position it matches
+     */
+    private record Snapshot(long start, long end, String takenAt, long offset) {}
+
+    // Single daemon thread that writes the periodic snapshots
+    private static final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "stock-snapshots");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Moves an item's stock and records the movement
+     * @param itemCode The item whose stock moves
+     * @param kind Why it moves
+     * @param delta Units added (negative for units taken out)
+     * @param reference The sale, PO or note behind the movement
+     * @return APPLIED, MISSING if there is no such item, or FAILED
+     */
+    public static File_Utils.Update record(String itemCode, Kind kind, int delta, String reference) {
+        long ticket;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, LEDGER_FILE)) {
+            String[] item = Record_Store.get(ITEMS_FILE, itemCode);
+            if (item == null || item.length <= 3) return File_Utils.Update.MISSING;
+            int onHand;
+            try {
+                onHand = Integer.parseInt(item[3].trim()) + delta;
+            } catch (NumberFormatException e) {
+                return File_Utils.Update.MISSING;          // No stock figure to move
+            }
+            try {
+                ticket = move(itemCode, kind, delta, onHand, reference);
+            } catch (IOException e) {
+                System.out.println("⚠️ Error recording stock movement for: " + itemCode);  // Log error
+                return File_Utils.Update.FAILED;
+            }
+        }
+        awaitDurable(ticket);                              // Both appends share one group commit
+        return File_Utils.Update.APPLIED;
+    }
+
+    /**
+     * Sets an item's stock to a counted figure and records the difference as an adjustment
+     * The difference is taken from the stock the item has now, under the
+     * items and ledger locks, so movements booked since the figure was
+     * shown are kept in the history
+     * @param itemCode The item whose stock is set
+     * @param onHand The new stock
+     * @param reason The note behind the adjustment
+     * @return APPLIED (also when the stock already matched), MISSING if there is no such item, or FAILED
+     */
+    public static File_Utils.Update adjustTo(String itemCode, int onHand, String reason) {
+        long ticket;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, LEDGER_FILE)) {
+            String[] item = Record_Store.get(ITEMS_FILE, itemCode);
+            if (item == null || item.length <= 3) return File_Utils.Update.MISSING;
+            int delta = onHand - stockOf(item);
+            if (delta == 0) return File_Utils.Update.APPLIED;
+            try {
+                ticket = move(itemCode, Kind.ADJUSTMENT, delta, onHand, reason);
+            } catch (IOException e) {
+                System.out.println("⚠️ Error recording stock movement for: " + itemCode);  // Log error
+                return File_Utils.Update.FAILED;
+            }
+        }
+        awaitDurable(ticket);
+        return File_Utils.Update.APPLIED;
+    }
+
+    /**
+     * Deletes an item and books its remaining stock out as an adjustment
+     * The stock is read and the record removed under the items and ledger
+     * locks, so the history ends at the figure the item really had
+     * @param itemCode The item to delete
+     * @param reason The note behind the adjustment
+     * @return APPLIED, MISSING if there is no such item, or FAILED
+     */
+    public static File_Utils.Update removeItem(String itemCode, String reason) {
+        long ticket = 0;
+        File_Utils.Update removed;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, LEDGER_FILE)) {
+            String[] item = Record_Store.get(ITEMS_FILE, itemCode);
+            if (item == null) return File_Utils.Update.MISSING;
+            int stock = item.length > 3 ? stockOf(item) : 0;
+            if (stock != 0) {
+                try {
+                    ticket = append(itemCode, Kind.ADJUSTMENT, -stock, 0, reason);
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error recording stock movement for: " + itemCode);  // Log error
+                    return File_Utils.Update.FAILED;
+                }
+            }
+            removed = File_Utils.deleteRecord(ITEMS_FILE, itemCode);
+        }
+        if (ticket > 0) awaitDurable(ticket);
+        return removed;
+    }
+
+    /**
+     * Records a movement whose stock the caller writes to items_data.txt itself
+     * (e.g. a new item's opening stock)
+     * Call it before that write, under no other table lock
+     * @param itemCode The item whose stock moves
+     * @param kind Why it moves
+     * @param delta Units added (negative for units taken out)
+     * @param reference The note behind the movement
+     */
+    public static void note(String itemCode, Kind kind, int delta, String reference) {
+        long ticket;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, LEDGER_FILE)) {
+            String[] item = Record_Store.get(ITEMS_FILE, itemCode);
+            int onHand = delta;
+            if (item != null && item.length > 3) {
+                try { onHand += Integer.parseInt(item[3].trim()); } catch (NumberFormatException ignored) {}
+            }
+            try {
+                ticket = append(itemCode, kind, delta, onHand, reference);
+            } catch (IOException e) {
+                System.out.println("⚠️ Error recording stock movement for: " + itemCode);  // Log error
+                return;
+            }
+        }
+        awaitDurable(ticket);
+    }
+
+    /**
+     * Returns every item's stock at a past moment
+     * @param at The moment, e.g. the end of a day
+     * @return Stock per item code, or null if the ledger started after that moment
+     */
+    public static HashMap<String, Integer> stockAt(LocalDateTime at) {
+        String until = TIME.format(at);
+        Snapshot taken = newestSnapshot(until);            // Newest snapshot taken by then
+        if (taken == null) return null;
+        HashMap<String, Integer> stock = readSnapshot(taken);
+        if (stock == null) return null;
+
+        // Replay the movements that follow the snapshot, up to the moment asked for
+        try (FileChannel channel = FileChannel.open(Path.of(LEDGER_FILE), StandardOpenOption.READ)) {
+            channel.position(taken.offset());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), Charset.defaultCharset()));
+            Csv_Codec.Row move = new Csv_Codec.Row();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                move.reset(line);
+                if (move.size() < 7) continue;                  // A torn last line
+                if (move.get(0).compareTo(until) > 0) break;   // Movements are in time order
+                try {
+                    stock.merge(move.get(1), move.parseInt(3), Integer::sum);
+                } catch (NumberFormatException ignored) {}
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Error reading stock ledger: " + e.getMessage());
+        }
+        return stock;
+    }
+
+    /**
+     * Returns one item's stock at a past moment
+     * @param itemCode The item code
+     * @param at The moment
+     * @return The stock then, or null if the ledger started after that moment or the item did not exist
+     */
+    public static Integer stockAt(String itemCode, LocalDateTime at) {
+        HashMap<String, Integer> stock = stockAt(at);
+        return stock == null ? null : stock.get(itemCode);
+    }
+
+    /**
+     * Writes a movement and the item's new stock without waiting for the sync
+     * Must be called while holding the items and ledger locks; the caller
+     * passes the returned ticket to Durable_Writer.awaitDurable after
+     * releasing them
+     * @param itemCode The item whose stock moves
+     * @param kind Why it moves
+     * @param delta Units added (negative for units taken out)
+     * @param onHand The item's stock after the movement
+     * @param reference The sale, PO or note behind the movement
+     * @return Group-commit ticket covering both appends
+     * @throws IOException If the ledger or the change log could not be written
+     */
+    static long move(String itemCode, Kind kind, int delta, int onHand, String reference) throws IOException {
+        long ticket = append(itemCode, kind, delta, onHand, reference);
+        String[] value = {String.valueOf(onHand)};
+        ticket = Math.max(ticket, Change_Log.append(ITEMS_FILE, itemCode, new int[]{3}, value));
+        Record_Store.applied(ITEMS_FILE, itemCode, new int[]{3}, value);
+        return ticket;
+    }
+
+    /**
+     * Writes many movements of one kind and the items' new stock, one write per file
+     * Movements of the same item add up in order. Must be called while
+     * holding the items and ledger locks; the caller passes the returned
+     * ticket to Durable_Writer.awaitDurable after releasing them
+     * @param kind Why the stock moves
+     * @param itemCodes The item of each movement
+     * @param deltas Units added by each movement (negative for units taken out)
+     * @param references The sale, PO or note behind each movement
+     * @return Group-commit ticket covering all appends (0 if there were no movements)
+     * @throws IOException If the ledger or the change log could not be written
+     */
+    static long moveAll(Kind kind, List<String> itemCodes, int[] deltas, List<String> references) throws IOException {
+        if (itemCodes.isEmpty()) return 0;
+        LinkedHashMap<String, Integer> onHand = new LinkedHashMap<>();   // Running stock per item
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < itemCodes.size(); i++) {
+            String code = itemCodes.get(i);
+            Integer before = onHand.get(code);
+            if (before == null) {
+                String[] item = Record_Store.get(ITEMS_FILE, code);
+                before = 0;
+                if (item != null && item.length > 3) {
+                    try { before = Integer.parseInt(item[3].trim()); } catch (NumberFormatException ignored) {}
+                }
+            }
+            onHand.put(code, before + deltas[i]);
+            lines.add(line(code, kind, deltas[i], before + deltas[i], references.get(i)));
+        }
+        long ticket = appendLines(lines);
+        List<String> codes = new ArrayList<>(onHand.keySet());
+        List<String[]> values = new ArrayList<>();
+        for (String code : codes) values.add(new String[]{String.valueOf(onHand.get(code))});
+        ticket = Math.max(ticket, Change_Log.append(ITEMS_FILE, codes, new int[]{3}, values));
+        for (int i = 0; i < codes.size(); i++) Record_Store.applied(ITEMS_FILE, codes.get(i), new int[]{3}, values.get(i));
+        return ticket;
+    }
+
+    /**
+     * Records many movements whose stock the caller writes to items_data.txt
+     * itself (e.g. the opening stock of imported items), in one append
+     * Must be called while holding the items and ledger locks, before that write
+     * @param kind Why the stock moves
+     * @param itemCodes The item of each movement
+     * @param deltas Units added by each movement (negative for units taken out)
+     * @param reference The note behind the movements
+     * @return Group-commit ticket (0 if there were no movements)
+     * @throws IOException If the ledger could not be written
+     */
+    static long noteAll(Kind kind, List<String> itemCodes, int[] deltas, String reference) throws IOException {
+        if (itemCodes.isEmpty()) return 0;
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < itemCodes.size(); i++) {
+            String[] item = Record_Store.get(ITEMS_FILE, itemCodes.get(i));
+            int onHand = deltas[i];
+            if (item != null && item.length > 3) {
+                try { onHand += Integer.parseInt(item[3].trim()); } catch (NumberFormatException ignored) {}
+            }
+            lines.add(line(itemCodes.get(i), kind, deltas[i], onHand, reference));
+        }
+        return appendLines(lines);
+    }
+
+    /**
+     * Adds up the units received so far against each of some references
+     * (e.g. the deliveries booked against purchase orders)
+     * The totals of a kind are kept in memory and brought up to date by
+     * reading only the movements appended since the last call (by any
+     * client), so only the first call reads the whole ledger
+     * @param kind The kind of movement to count
+     * @param references The references to add up
+     * @return Units per reference; references without movements are left out
+     */
+    public static HashMap<String, Integer> totalsFor(Kind kind, Set<String> references) {
+        HashMap<String, Integer> totals = new HashMap<>();
+        if (references.isEmpty()) return totals;
+        Tally tally = tallies.computeIfAbsent(kind, _ -> new Tally());
+        synchronized (tally) {
+            try {
+                catchUp(tally, kind.code());
+            } catch (IOException e) {
+                System.out.println("⚠️ Error reading stock ledger: " + e.getMessage());
+            }
+            for (String reference : references) {
+                Integer units = tally.units.get(reference);
+                if (units != null) totals.put(reference, units);
+            }
+        }
+        return totals;
+    }
+
+    // Adds the complete movements appended since the tally was last brought up to date (holding the tally)
+    private static void catchUp(Tally tally, String code) throws IOException {
+        File file = new File(LEDGER_FILE);
+        if (!file.exists()) return;
+        if (file.length() < tally.readTo) {                // Ledger replaced by a shorter one: count again
+            tally.units.clear();
+            tally.readTo = 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long end = raf.length();
+            byte[] block = new byte[TALLY_BLOCK];
+            ByteArrayOutputStream partial = new ByteArrayOutputStream();   // Line cut by the end of a block
+            Csv_Codec.Row move = new Csv_Codec.Row();
+            long pos = tally.readTo;
+            raf.seek(pos);
+            while (pos < end) {
+                int n = raf.read(block, 0, (int) Math.min(block.length, end - pos));
+                if (n < 0) break;
+                int lineStart = 0;
+                for (int i = 0; i < n; i++) {
+                    if (block[i] != '\n') continue;
+                    partial.write(block, lineStart, i - lineStart);
+                    move.reset(new String(partial.toByteArray(), Charset.defaultCharset()));
+                    partial.reset();
+                    lineStart = i + 1;
+                    tally.readTo = pos + lineStart;        // A line is counted once it is complete
+                    if (move.size() < 7 || !move.equals(2, code)) continue;
+                    try {
+                        tally.units.merge(move.get(5), move.parseInt(3), Integer::sum);
+                    } catch (NumberFormatException ignored) {}
+                }
+                partial.write(block, lineStart, n - lineStart);
+                pos += n;
+            }
+        }
+    }
+
+    // Appends one movement line (under the items and ledger locks)
+    private static long append(String itemCode, Kind kind, int delta, int onHand, String reference) throws IOException {
+        return appendLines(List.of(line(itemCode, kind, delta, onHand, reference)));
+    }
+
+    // Appends movement lines in one write, queueing a snapshot first if one is due (under the items and ledger locks)
+    private static long appendLines(List<String> lines) throws IOException {
+        long offset = new File(LEDGER_FILE).length();
+        if (snapshotOffset < 0) {
+            Snapshot newest = newestSnapshot(null);
+            if (newest != null) {
+                snapshotOffset = newest.offset();
+                snapshotBytes = newest.end() - newest.start();
+            }
+        }
+        if (snapshotOffset < 0 && !snapshotQueued) {
+            String opening = snapshotLine(offset);        // First movement: keep the opening stock, copied before it moves
+            snapshotOffset = offset;
+            snapshotQueued = true;
+            snapshotter.execute(() -> writeSnapshot(opening, offset));
+        } else if (offset - snapshotOffset >= Math.max(SNAPSHOT_EVERY_BYTES, snapshotBytes * SNAPSHOT_SIZE_RATIO)
+                && !snapshotQueued) {
+            snapshotQueued = true;
+            snapshotter.execute(Stock_Ledger::takeSnapshot);
+        }
+        return Durable_Writer.append(LEDGER_FILE, lines);
+    }
+
+    // Formats one movement line, stamped now and with the logged-in user
+    private static String line(String itemCode, Kind kind, int delta, int onHand, String reference) {
+        String userId = Session.getLoggedInUserId();
+        return Csv_Codec.join(TIME.format(LocalDateTime.now()), itemCode, kind.code(),
+                String.valueOf(delta), String.valueOf(onHand),
+                reference == null ? "" : reference, userId == null ? "" : userId);
+    }
+
+    // Takes a periodic snapshot in the background: copied under both locks, written after releasing them
+    private static void takeSnapshot() {
+        String snapshot;
+        long offset;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, LEDGER_FILE)) {
+            offset = new File(LEDGER_FILE).length();
+            snapshot = snapshotLine(offset);
+        }
+        writeSnapshot(snapshot, offset);
+    }
+
+    // The current stock of every item as a snapshot line at a ledger position (under both locks)
+    private static String snapshotLine(long offset) {
+        List<String> fields = new ArrayList<>();
+        fields.add(TIME.format(LocalDateTime.now()));
+        fields.add(String.valueOf(offset));
+        Record_Store.forEach(ITEMS_FILE, row -> {
+            if (row.size() <= 3) return;
+            fields.add(row.get(0));
+            fields.add(row.get(3).trim());
+        });
+        return Csv_Codec.join(fields.toArray(new String[0]));
+    }
+
+    // Appends a snapshot line and waits for its sync (on the snapshot thread, under no lock)
+    private static void writeSnapshot(String snapshot, long offset) {
+        boolean written = false;
+        try {
+            File file = new File(SNAPSHOTS_FILE);
+            boolean torn = file.length() > 0 && !endsWithLineBreak(file);   // A snapshot cut short by a crash
+            long ticket = Durable_Writer.append(SNAPSHOTS_FILE, torn ? List.of("", snapshot) : List.of(snapshot));
+            Durable_Writer.awaitDurable(ticket);
+            written = true;
+        } catch (IOException e) {
+            System.out.println("⚠️ Error writing stock snapshot: " + e.getMessage());
+        }
+        try (Lock_Manager.Held _ = Lock_Manager.lock(LEDGER_FILE)) {
+            snapshotQueued = false;
+            if (written) {
+                snapshotOffset = offset;
+                snapshotBytes = snapshot.length();
+            }
+        }
+    }
+
+    // The newest complete snapshot taken by a moment (null: the newest of all), read from the end of the file
+    private static Snapshot newestSnapshot(String until) {
+        File file = new File(SNAPSHOTS_FILE);
+        if (!file.exists()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length == 0) return null;
+            // A last line without its line break is a snapshot cut short by a crash
+            long end = endsWithLineBreak(file) ? length - 1 : lineStart(raf, length) - 1;
+            while (end > 0) {
+                long start = lineStart(raf, end);
+                Snapshot snapshot = header(raf, start, end);
+                if (snapshot != null && (until == null || snapshot.takenAt().compareTo(until) <= 0)) return snapshot;
+                end = start - 1;                           // Snapshots are in time order: step back one
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Error reading stock snapshots: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // Position just past the last line break before a position, 0 if there is none
+    private static long lineStart(RandomAccessFile raf, long before) throws IOException {
+        byte[] block = new byte[TAIL_BLOCK];
+        long pos = before;
+        while (pos > 0) {
+            int n = (int) Math.min(TAIL_BLOCK, pos);
+            pos -= n;
+            raf.seek(pos);
+            raf.readFully(block, 0, n);
+            for (int i = n - 1; i >= 0; i--) {
+                if (block[i] == '\n') return pos + i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Reads the time and ledger position at the start of a snapshot line, null if it is not one
+    private static Snapshot header(RandomAccessFile raf, long start, long end) throws IOException {
+        byte[] head = new byte[(int) Math.min(64, end - start)];
+        raf.seek(start);
+        raf.readFully(head);
+        String[] fields = new String(head, StandardCharsets.US_ASCII).split(",", 3);
+        if (fields.length < 3) return null;
+        try {
+            return new Snapshot(start, end, fields[0], Long.parseLong(fields[1].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Reads the stock per item code held by a snapshot line, null if it cannot be read
+    private static HashMap<String, Integer> readSnapshot(Snapshot snapshot) {
+        byte[] bytes = new byte[(int) (snapshot.end() - snapshot.start())];
+        try (RandomAccessFile raf = new RandomAccessFile(SNAPSHOTS_FILE, "r")) {
+            raf.seek(snapshot.start());
+            raf.readFully(bytes);
+        } catch (IOException e) {
+            System.out.println("⚠️ Error reading stock snapshots: " + e.getMessage());
+            return null;
+        }
+        String[] fields = Csv_Codec.split(new String(bytes, Charset.defaultCharset()).stripTrailing());
+        HashMap<String, Integer> stock = new HashMap<>();
+        for (int i = 2; i + 1 < fields.length; i += 2) {
+            try { stock.put(fields[i], Integer.parseInt(fields[i + 1])); } catch (NumberFormatException ignored) {}
+        }
+        return stock;
+    }
+
+    // Whether the last byte of a file is a line break, i.e. its last line was written completely
+    private static boolean endsWithLineBreak(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() == 0) return true;
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    // An item record's stock column, 0 if it is not a number
+    private static int stockOf(String[] item) {
+        try {
+            return Integer.parseInt(item[3].trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Waits for a group-commit ticket and reports a failed sync
+    private static void awaitDurable(long ticket) {
+        try {
+            Durable_Writer.awaitDurable(ticket);
+        } catch (IOException e) {
+            System.out.println("⚠️ Error syncing stock ledger");  // Log error
+        }
+    }
+}
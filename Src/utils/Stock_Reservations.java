@@ -0,0 +1,313 @@
+import java.io.IOException;
+import java.util.HashSet;                          // Items still present after a reload
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;     // Counters per item code
+import java.util.concurrent.atomic.AtomicInteger;  // Lock-free check-and-take
+
+/**
+ * Stock_Reservations - Sells stock without overselling it
+ * Every item has an in-memory counter of the units still available: its
+ * stock minus the units reserved by sales in progress. A sales window takes
+ * its quantity off the counter with a compare-and-set, so two windows
+ * selling the last units of an item at the same moment cannot both
+ * succeed, and neither waits for a lock or a file to do so.
+ *
+ * Committing a reservation writes the sale: the stock movement (see
+ * Stock_Ledger), the new stock and the sale record are written under the
+ * items, ledger and sales locks and share one group commit. The stock on
+ * disk is checked again at that point, which catches sales made by other
+ * clients of the data folder that the counters of this process have not
+ * heard of yet.
+ *
+ * Sales that sell fewer units after an edit, or are deleted, give units back
+ * (reduceSale, deleteSale) under the same three locks, with the sale read
+ * fresh at that point, so the units returned are the ones really sold.
+ *
+ * The counters follow the stock column through a Record_Store listener, so
+ * deliveries, adjustments and outside edits change what can be sold.
+ */
+public class Stock_Reservations {
+
+    private static final String ITEMS_FILE = "data/items_data.txt";
+
+    /**
+     * Units of one item set aside for a sale that is being written
+     * Either commit or release it exactly once
+     */
+    public static final class Reservation {
+        public final String itemCode;
+        public final int quantity;
+        private boolean settled;
+
+        private Reservation(String itemCode, int quantity) {
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+        }
+
+        /**
+         * Writes the sale and takes the reserved units out of stock
+         * @param salesFile The sales data file the record is appended to
+         * @param saleLine The sale record
+         * @param saleId The sale's ID, kept as the movement's reference
+         * @return APPLIED; CONFLICT if the stock on disk no longer covers the
+         *         sale (sold by another client); MISSING if the item is gone; FAILED
+         */
+        public File_Utils.Update commit(String salesFile, String saleLine, String saleId) {
+            return write(salesFile, saleId, saleLine, null, null);
+        }
+
+        /**
+         * Writes a change to an existing sale that sells more units than
+         * before, and takes the reserved extra units out of stock
+         * @param salesFile The sales data file holding the sale
+         * @param saleId The sale being changed, kept as the movement's reference
+         * @param columns The sale fields that change
+         * @param values Their new values
+         * @return APPLIED; CONFLICT if the stock on disk no longer covers the
+         *         extra units; MISSING if the item or the sale is gone; FAILED
+         */
+        public File_Utils.Update commitEdit(String salesFile, String saleId, int[] columns, String[] values) {
+            return write(salesFile, saleId, null, columns, values);
+        }
+
+        // Writes the movement, the stock and either a new sale line or the changed sale fields
+        private File_Utils.Update write(String salesFile, String saleId, String saleLine, int[] columns, String[] values) {
+            long ticket;
+            try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, Stock_Ledger.LEDGER_FILE, salesFile)) {
+                String[] item = Record_Store.get(ITEMS_FILE, itemCode);
+                int onHand;
+                try {
+                    onHand = item == null || item.length <= 3 ? -1 : Integer.parseInt(item[3].trim());
+                } catch (NumberFormatException e) {
+                    onHand = -1;
+                }
+                if (onHand < 0 || (saleLine == null && !Record_Store.contains(salesFile, saleId))) {
+                    release();
+                    return File_Utils.Update.MISSING;
+                }
+                if (onHand < quantity) {
+                    release();
+                    return File_Utils.Update.CONFLICT;
+                }
+                Record_Store.refresh(salesFile);            // Pick up outside edits before the write is stamped
+                try {
+                    ticket = Stock_Ledger.move(itemCode, Stock_Ledger.Kind.SALE, -quantity, onHand - quantity, saleId);
+                    ticket = Math.max(ticket, saleLine != null
+                            ? Durable_Writer.append(salesFile, List.of(saleLine))
+                            : Change_Log.append(salesFile, saleId, columns, values));
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error writing sale: " + saleId);  // Log error
+                    release();
+                    return File_Utils.Update.FAILED;
+                }
+                if (saleLine != null) Record_Store.appended(salesFile, saleLine);
+                else Record_Store.applied(salesFile, saleId, columns, values);
+            }
+            // The listener already took the sold units off the counter along with the stock
+            release();
+            if (ticket > 0) {
+                try {
+                    Durable_Writer.awaitDurable(ticket);   // One sync for the movement, the stock and the sale
+                } catch (IOException e) {
+                    System.out.println("⚠️ Error syncing sale: " + saleId);  // Log error
+                }
+            }
+            return File_Utils.Update.APPLIED;
+        }
+
+        /**
+         * Gives the reserved units back without selling them
+         */
+        public void release() {
+            if (settled) return;
+            settled = true;
+            AtomicInteger counter = available.get(itemCode);
+            if (counter != null) counter.addAndGet(quantity);
+            reserved.get(itemCode).addAndGet(-quantity);
+        }
+    }
+
+    // Units that can still be sold, per item code
+    private static final ConcurrentHashMap<String, AtomicInteger> available = new ConcurrentHashMap<>();
+    // Units held by reservations not yet committed or released, per item code
+    private static final ConcurrentHashMap<String, AtomicInteger> reserved = new ConcurrentHashMap<>();
+    private static volatile boolean ready;               // Counters filled and following the items table
+
+    // Reused cursor for reading changed lines (only touched under the Record_Store lock)
+    private static final Csv_Codec.Row row = new Csv_Codec.Row();
+
+    /**
+     * Sets units of an item aside for a sale, if enough are available
+     * @param itemCode The item being sold
+     * @param quantity The units sold (more than zero)
+     * @return The reservation, or null if the item does not have that many units available
+     */
+    public static Reservation reserve(String itemCode, int quantity) {
+        if (quantity <= 0) return null;
+        follow();
+        AtomicInteger counter = available.get(itemCode);
+        if (counter == null) return null;                    // No such item
+        AtomicInteger held = reserved.computeIfAbsent(itemCode, _ -> new AtomicInteger());
+        held.addAndGet(quantity);                            // Before the take, so a rebuild never hands these units out
+        while (true) {
+            int now = counter.get();
+            if (now < quantity) {
+                held.addAndGet(-quantity);
+                return null;
+            }
+            if (counter.compareAndSet(now, now - quantity)) return new Reservation(itemCode, quantity);
+        }
+    }
+
+    /**
+     * Writes a change to an existing sale that sells no more units than
+     * before, and puts the units no longer sold back into stock
+     * The sale fields and the reversal are written under the items, ledger
+     * and sales locks and share one group commit
+     * @param salesFile The sales data file holding the sale
+     * @param saleId The sale being changed, kept as the movement's reference
+     * @param seenVersion The version of the sales table the sale was shown from
+     * @param quantity The sale's new quantity (column 3, also among the values)
+     * @param columns The sale fields that change
+     * @param values Their new values
+     * @return APPLIED; CONFLICT if the sale changed since seenVersion or now
+     *         sells more units than the new quantity; MISSING if the sale is gone; FAILED
+     */
+    public static File_Utils.Update reduceSale(String salesFile, String saleId, long seenVersion, int quantity,
+                                               int[] columns, String[] values) {
+        return giveBack(salesFile, saleId, seenVersion, quantity, columns, values);
+    }
+
+    /**
+     * Deletes a sale and puts its units back into stock
+     * The sale is read again under the items, ledger and sales locks, so the
+     * units returned are the ones it sells now
+     * @param salesFile The sales data file holding the sale
+     * @param saleId The sale to delete, kept as the movement's reference
+     * @return APPLIED, MISSING if the sale is gone, or FAILED
+     */
+    public static File_Utils.Update deleteSale(String salesFile, String saleId) {
+        return giveBack(salesFile, saleId, Long.MAX_VALUE, 0, null, null);
+    }
+
+    // Changes (columns set) or deletes (columns null) a sale and books the units it no longer sells as a reversal
+    private static File_Utils.Update giveBack(String salesFile, String saleId, long seenVersion, int quantity,
+                                              int[] columns, String[] values) {
+        long ticket = 0;
+        try (Lock_Manager.Held _ = Lock_Manager.lock(ITEMS_FILE, Stock_Ledger.LEDGER_FILE, salesFile)) {
+            String[] sale = Record_Store.get(salesFile, saleId);   // Current record, picks up outside edits
+            if (sale == null || sale.length <= 3) return File_Utils.Update.MISSING;
+            if (Record_Store.recordVersion(salesFile, saleId) > seenVersion) return File_Utils.Update.CONFLICT;
+            int sold;
+            try {
+                sold = Integer.parseInt(sale[3].trim());
+            } catch (NumberFormatException e) {
+                sold = quantity;                             // No quantity to give back
+            }
+            int returned = sold - quantity;
+            if (returned < 0) return File_Utils.Update.CONFLICT;   // Sells more now: needs a reservation
+            try {
+                if (columns != null) {
+                    ticket = Change_Log.append(salesFile, saleId, columns, values);
+                    Record_Store.applied(salesFile, saleId, columns, values);
+                } else {
+                    File_Utils.Update removed = File_Utils.deleteRecord(salesFile, saleId);
+                    if (removed != File_Utils.Update.APPLIED) return removed;
+                }
+                String[] item = Record_Store.get(ITEMS_FILE, sale[1]);
+                int onHand;
+                try {
+                    onHand = item == null || item.length <= 3 ? -1 : Integer.parseInt(item[3].trim());
+                } catch (NumberFormatException e) {
+                    onHand = -1;
+                }
+                if (returned > 0 && onHand >= 0) {           // An item deleted since has no stock to return to
+                    ticket = Math.max(ticket, Stock_Ledger.move(sale[1], Stock_Ledger.Kind.REVERSAL,
+                            returned, onHand + returned, saleId));
+                }
+            } catch (IOException e) {
+                System.out.println("⚠️ Error writing sale: " + saleId);  // Log error
+                return File_Utils.Update.FAILED;
+            }
+        }
+        if (ticket > 0) {
+            try {
+                Durable_Writer.awaitDurable(ticket);       // One sync for the sale, the movement and the stock
+            } catch (IOException e) {
+                System.out.println("⚠️ Error syncing sale: " + saleId);  // Log error
+            }
+        }
+        return File_Utils.Update.APPLIED;
+    }
+
+    /**
+     * Returns the units of an item that can be sold right now
+     * @param itemCode The item code
+     * @return Stock minus reserved units (0 for an unknown item)
+     */
+    public static int available(String itemCode) {
+        follow();
+        AtomicInteger counter = available.get(itemCode);
+        return counter == null ? 0 : Math.max(0, counter.get());
+    }
+
+    // Fills the counters on first use and keeps them in step with the stock column
+    private static void follow() {
+        if (ready) return;
+        synchronized (Record_Store.class) {
+            if (ready) return;
+            rebuild();
+            Record_Store.addListener(ITEMS_FILE, new Record_Store.Listener() {
+                public void recordChanged(String filename, String oldLine, String newLine) {
+                    changed(oldLine, newLine);
+                }
+                public void tableReloaded(String filename) {
+                    rebuild();
+                }
+            });
+            ready = true;
+        }
+    }
+
+    // Moves an item's counter by the change of its stock (under the Record_Store lock)
+    private static void changed(String oldLine, String newLine) {
+        String code = row.reset(newLine != null ? newLine : oldLine).get(0);
+        int before = oldLine == null ? 0 : stockOf(oldLine);
+        if (newLine == null) {
+            available.remove(code);                          // Item deleted
+            return;
+        }
+        int delta = stockOf(newLine) - before;
+        if (oldLine == null) {
+            AtomicInteger held = reserved.get(code);
+            available.put(code, new AtomicInteger(delta - (held == null ? 0 : held.get())));
+        } else if (delta != 0) {
+            available.computeIfAbsent(code, _ -> new AtomicInteger()).addAndGet(delta);
+        }
+    }
+
+    // Sets every counter from the stock column, less what is still reserved (under the Record_Store lock)
+    private static void rebuild() {
+        HashSet<String> seen = new HashSet<>();
+        Record_Store.forEach(ITEMS_FILE, item -> {
+            if (item.size() <= 3) return;
+            String code = item.get(0);
+            int stock;
+            try { stock = item.parseInt(3); } catch (NumberFormatException e) { stock = 0; }
+            AtomicInteger held = reserved.get(code);
+            available.computeIfAbsent(code, _ -> new AtomicInteger()).set(stock - (held == null ? 0 : held.get()));
+            seen.add(code);
+        });
+        available.keySet().retainAll(seen);                  // Items that are gone
+    }
+
+    // The stock field of an item line (0 if it has none)
+    private static int stockOf(String line) {
+        row.reset(line);
+        try {
+            return row.size() > 3 ? row.parseInt(3) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}